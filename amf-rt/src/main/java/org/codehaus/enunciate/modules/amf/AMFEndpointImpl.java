@@ -35,13 +35,13 @@ import java.util.HashMap;
 public abstract class AMFEndpointImpl {
 
   private SecurityExceptionChecker securityChecker = new DefaultSecurityExceptionChecker();
-  private final HashMap<String, Method> operationNames2Methods = new HashMap<String, Method>();
+  private final HashMap<String, Operation> operationNames2Operations = new HashMap<String, Operation>();
   protected Object serviceBean;
 
   protected AMFEndpointImpl(Object serviceBean) {
     this.serviceBean = serviceBean;
 
-    this.operationNames2Methods.clear();
+    this.operationNames2Operations.clear();
 
     for (Method method : getServiceInterface().getMethods()) {
       String operationName = method.getName();
@@ -55,7 +55,7 @@ public abstract class AMFEndpointImpl {
         operationName = webMethodInfo.operationName();
       }
 
-      this.operationNames2Methods.put(operationName, method);
+      this.operationNames2Operations.put(operationName, new Operation(method));
     }
   }
 
@@ -68,32 +68,51 @@ public abstract class AMFEndpointImpl {
    * @return The (AMF) result of the invocation.
    */
   protected final Object invokeOperation(String operationName, Object... params) throws Exception {
-    Method method = this.operationNames2Methods.get(operationName);
-    if (method == null) {
+    Operation operation = this.operationNames2Operations.get(operationName);
+    if (operation == null) {
       throw new NoSuchMethodError("No such method: " + operationName);
     }
-    AMFMappingContext mappingContext = new AMFMappingContext();
 
-    Type[] paramTypes = method.getGenericParameterTypes();
-    if (paramTypes.length != params.length) {
-      throw new IllegalArgumentException(String.format("Wrong number of parameters for operation '%s'.  Expected %s, got %s.", operationName, paramTypes.length, params.length));
+    AMFMapper[] paramMappers = operation.paramMappers;
+    if (paramMappers.length != params.length) {
+      throw new IllegalArgumentException(String.format("Wrong number of parameters for operation '%s'.  Expected %s, got %s.", operationName, paramMappers.length, params.length));
     }
 
-    Object[] mappedParams = new Object[paramTypes.length];
-    for (int i = 0; i < paramTypes.length; i++) {
+    AMFMappingContext mappingContext = AMFMappingContext.borrow(operation.lastGraphSize);
+    try {
+      return invokeOperation(operation, params, mappingContext);
+    }
+    finally {
+      operation.lastGraphSize = mappingContext.size();
+      mappingContext.release();
+    }
+  }
+
+  /**
+   * Invoke an operation with the specified mapping context.
+   *
+   * @param operation The operation.
+   * @param params The parameters.
+   * @param mappingContext The mapping context.
+   * @return The result of the invocation.
+   */
+  private Object invokeOperation(Operation operation, Object[] params, AMFMappingContext mappingContext) throws Exception {
+    AMFMapper[] paramMappers = operation.paramMappers;
+    Object[] mappedParams = new Object[paramMappers.length];
+    for (int i = 0; i < paramMappers.length; i++) {
       AMFMapper mapper;
       if (params[i] instanceof AMFMapperAware) {
         mapper = ((AMFMapperAware) params[i]).loadAMFMapper();
       }
       else {
-        mapper = AMFMapperIntrospector.getAMFMapper(paramTypes[i]);
+        mapper = paramMappers[i] != null ? paramMappers[i] : AMFMapperIntrospector.getAMFMapper(operation.paramTypes[i]);
       }
       mappedParams[i] = mapper.toJAXB(params[i], mappingContext);
     }
 
     Object returnValue;
     try {
-      returnValue = method.invoke(serviceBean, mappedParams);
+      returnValue = operation.method.invoke(serviceBean, mappedParams);
     }
     catch (InvocationTargetException e) {
       Throwable targetException = e.getTargetException();
@@ -103,11 +122,9 @@ public abstract class AMFEndpointImpl {
         throw se;
       }
       else {
-        for (int i = 0; i < method.getExceptionTypes().length; i++) {
-          Class exceptionType = method.getExceptionTypes()[i];
-          if (exceptionType.isInstance(targetException)) {
-            throw (Exception) AMFMapperIntrospector.getAMFMapper(targetException.getClass(), exceptionType).toAMF(targetException, mappingContext);
-          }
+        AMFMapper exceptionMapper = operation.getExceptionMapper(targetException);
+        if (exceptionMapper != null) {
+          throw (Exception) exceptionMapper.toAMF(targetException, mappingContext);
         }
       }
 
@@ -119,8 +136,8 @@ public abstract class AMFEndpointImpl {
       }
     }
 
-    if (method.getReturnType() != Void.TYPE) {
-      returnValue = returnValue != null ? AMFMapperIntrospector.getAMFMapper(returnValue.getClass(), method.getGenericReturnType()).toAMF(returnValue, mappingContext) : null;
+    if (!operation.isVoid) {
+      returnValue = returnValue != null ? operation.getReturnMapper(returnValue.getClass()).toAMF(returnValue, mappingContext) : null;
     }
 
     return returnValue;
@@ -141,4 +158,101 @@ public abstract class AMFEndpointImpl {
    * @return The service interface.
    */
   protected abstract Class getServiceInterface();
+
+  /**
+   * An operation, with everything needed to invoke it resolved up front so that each invocation is reduced to mapping
+   * the parameters, invoking the method and mapping the result.
+   */
+  private static final class Operation {
+
+    final Method method;
+    final Type[] paramTypes;
+    final AMFMapper[] paramMappers;
+    final Class[] exceptionTypes;
+    final AMFMapper[] exceptionMappers;
+    final Type returnType;
+    final boolean isVoid;
+
+    /**
+     * The number of objects mapped by the last invocation, used to size the mapping context for the next one.
+     */
+    volatile int lastGraphSize;
+
+    /**
+     * The mapper last used to map a return value, along with the runtime class it was resolved for.
+     */
+    private volatile BaseAMFMapper.ResolvedMapper lastReturnMapper;
+
+    Operation(Method method) {
+      this.method = method;
+      this.paramTypes = method.getGenericParameterTypes();
+      this.paramMappers = new AMFMapper[this.paramTypes.length];
+      for (int i = 0; i < this.paramTypes.length; i++) {
+        try {
+          this.paramMappers[i] = AMFMapperIntrospector.getAMFMapper(this.paramTypes[i]);
+        }
+        catch (RuntimeException e) {
+          //leave it unresolved; the error will surface when the operation is invoked.
+          this.paramMappers[i] = null;
+        }
+      }
+      this.exceptionTypes = method.getExceptionTypes();
+      this.exceptionMappers = new AMFMapper[this.exceptionTypes.length];
+      for (int i = 0; i < this.exceptionTypes.length; i++) {
+        try {
+          this.exceptionMappers[i] = AMFMapperIntrospector.getAMFMapper(this.exceptionTypes[i], this.exceptionTypes[i]);
+        }
+        catch (RuntimeException e) {
+          //leave it unresolved; the error will surface when the exception is thrown.
+          this.exceptionMappers[i] = null;
+        }
+      }
+      this.returnType = method.getGenericReturnType();
+      this.isVoid = method.getReturnType() == Void.TYPE;
+
+      try {
+        this.method.setAccessible(true);
+      }
+      catch (java.lang.SecurityException e) {
+        //fall through; the access check will just be done on each invocation.
+      }
+    }
+
+    /**
+     * Get the mapper for an exception thrown by the operation.
+     *
+     * @param exception The exception.
+     * @return The mapper, or null if the exception isn't one of the declared exception types.
+     */
+    AMFMapper getExceptionMapper(Throwable exception) {
+      Class exceptionClass = exception.getClass();
+      for (int i = 0; i < this.exceptionTypes.length; i++) {
+        if (this.exceptionTypes[i].isInstance(exception)) {
+          if (this.exceptionTypes[i] == exceptionClass && this.exceptionMappers[i] != null) {
+            return this.exceptionMappers[i];
+          }
+
+          //a subclass of a declared exception type is mapped by its own class.
+          return AMFMapperIntrospector.getAMFMapper(exceptionClass, this.exceptionTypes[i]);
+        }
+      }
+
+      return null;
+    }
+
+    /**
+     * Get the mapper for a return value of the specified runtime class.
+     *
+     * @param valueType The runtime class of the return value.
+     * @return The mapper.
+     */
+    AMFMapper getReturnMapper(Class valueType) {
+      BaseAMFMapper.ResolvedMapper resolved = this.lastReturnMapper;
+      if (resolved == null || resolved.valueType != valueType) {
+        resolved = new BaseAMFMapper.ResolvedMapper(valueType, AMFMapperIntrospector.getAMFMapper(valueType, this.returnType));
+        this.lastReturnMapper = resolved;
+      }
+      return resolved.mapper;
+    }
+  }
 }
@@ -24,10 +24,9 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import java.lang.reflect.*;
 import java.net.URI;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Introspector used to lookup AMF mappers.
@@ -36,14 +35,28 @@ import java.util.UUID;
  */
 public class AMFMapperIntrospector {
 
-  private static final Map<Type, AMFMapper> MAPPERS = new HashMap<Type, AMFMapper>();
+  /**
+   * The mappers, keyed on (real type, jaxb type, adapter, element info). Read-mostly; writes only happen the first time
+   * a given combination is seen.
+   */
+  private static final ConcurrentMap<MapperKey, AMFMapper> MAPPERS = new ConcurrentHashMap<MapperKey, AMFMapper>();
+
+  /**
+   * The custom mapper classes that have been loaded, keyed on the JAXB class.
+   */
+  private static final ConcurrentMap<Class, Class<? extends AMFMapper>> CUSTOM_MAPPER_CLASSES = new ConcurrentHashMap<Class, Class<? extends AMFMapper>>();
+
+  /**
+   * The JAXB classes known to have no custom mapper (negative lookup cache).
+   */
+  private static final Set<Class> NO_CUSTOM_MAPPER = Collections.newSetFromMap(new ConcurrentHashMap<Class, Boolean>());
 
   static {
-    AMFMapperIntrospector.MAPPERS.put(DataHandler.class, new DataHandlerAMFMapper());
-    AMFMapperIntrospector.MAPPERS.put(QName.class, new QNameAMFMapper());
-    AMFMapperIntrospector.MAPPERS.put(URI.class, new URIAMFMapper());
-    AMFMapperIntrospector.MAPPERS.put(UUID.class, new UUIDAMFMapper());
-    AMFMapperIntrospector.MAPPERS.put(XMLGregorianCalendar.class, new XMLGregorianCalendarAMFMapper());
+    AMFMapperIntrospector.MAPPERS.put(new MapperKey(DataHandler.class), new DataHandlerAMFMapper());
+    AMFMapperIntrospector.MAPPERS.put(new MapperKey(QName.class), new QNameAMFMapper());
+    AMFMapperIntrospector.MAPPERS.put(new MapperKey(URI.class), new URIAMFMapper());
+    AMFMapperIntrospector.MAPPERS.put(new MapperKey(UUID.class), new UUIDAMFMapper());
+    AMFMapperIntrospector.MAPPERS.put(new MapperKey(XMLGregorianCalendar.class), new XMLGregorianCalendarAMFMapper());
   }
 
   public static AMFMapper getAMFMapper(Type jaxbType) {
@@ -59,15 +72,55 @@ public class AMFMapperIntrospector {
   }
 
   public static AMFMapper getAMFMapper(Class realType, Type jaxbType, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
-    if (adapterInfo == null && (realType != null) && (!realType.isArray()) && (!realType.isPrimitive()) && (realType.getPackage() != null)) {
+    if (!isRealTypeApplicable(realType, adapterInfo)) {
+      //the real type isn't considered, so don't let it fragment the cache.
+      realType = null;
+    }
+
+    MapperKey key = new MapperKey(realType, jaxbType, adapterInfo, elementInfo);
+    AMFMapper mapper = MAPPERS.get(key);
+    if (mapper == null) {
+      mapper = createAMFMapper(realType, jaxbType, adapterInfo, elementInfo);
+      AMFMapper existing = MAPPERS.putIfAbsent(key, mapper);
+      if (existing != null) {
+        mapper = existing;
+      }
+    }
+    return mapper;
+  }
+
+  /**
+   * Whether the real type of a value is to be considered when looking up its mapper.
+   *
+   * @param realType The real type.
+   * @param adapterInfo The adapter info.
+   * @return Whether the real type is to be considered.
+   */
+  private static boolean isRealTypeApplicable(Class realType, XmlJavaTypeAdapter adapterInfo) {
+    return adapterInfo == null && (realType != null) && (!realType.isArray()) && (!realType.isPrimitive()) && (realType.getPackage() != null);
+  }
+
+  /**
+   * Create (uncached) the AMF mapper for the specified type information.
+   *
+   * @param realType The real type, or null if the real type isn't to be considered.
+   * @param jaxbType The JAXB type.
+   * @param adapterInfo The adapter info.
+   * @param elementInfo The element info.
+   * @return The mapper.
+   */
+  private static AMFMapper createAMFMapper(Class realType, Type jaxbType, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
+    if (realType != null) {
       //first check the real type.  if a mapper exists, use it, otherwise use the type defined in the signature.
-      if (MAPPERS.containsKey(realType)) {
-        return MAPPERS.get(realType);
+      AMFMapper realTypeMapper = MAPPERS.get(new MapperKey(realType));
+      if (realTypeMapper != null) {
+        return realTypeMapper;
       }
 
       try {
-        loadCustomMapperClass(realType);
-        jaxbType = realType;
+        if (findCustomMapperClass(realType) != null) {
+          jaxbType = realType;
+        }
       }
       catch (Throwable e) {
         //fall through.
@@ -83,7 +136,6 @@ public class AMFMapperIntrospector {
       AMFMapper adaptingMapper = getAMFMapper(adaptingType);
       AMFMapper adaptedMapper = getAMFMapper(jaxbType);
       try {
-        //if it's adapted, don't cache it (return it directly).
         return new AdaptingAMFMapper(adapterInfo.value().newInstance(), adaptingMapper, adaptedMapper, narrowType(jaxbType), narrowType(adaptingType));
       }
       catch (Exception e) {
@@ -96,11 +148,8 @@ public class AMFMapperIntrospector {
     }
 
     Class specifiedType = ((elementInfo != null) && (elementInfo.type() != null) && (elementInfo.type() != XmlElement.DEFAULT.class)) ? elementInfo.type() : null;
-    AMFMapper mapper;
-    if (adapterInfo == null && MAPPERS.containsKey(jaxbType)) {
-      mapper = MAPPERS.get(jaxbType);
-    }
-    else {
+    AMFMapper mapper = MAPPERS.get(new MapperKey(jaxbType));
+    if (mapper == null) {
       if (jaxbType instanceof ParameterizedType) {
         Type rawType = ((ParameterizedType) jaxbType).getRawType();
 
@@ -171,13 +220,8 @@ public class AMFMapperIntrospector {
         }
         else {
           try {
-            mapper = loadCustomMapperClass(jaxbClass).newInstance();
-          }
-          catch (ClassNotFoundException e) {
-            mapper = DefaultAMFMapper.INSTANCE;
-          }
-          catch (NoClassDefFoundError e) {
-            mapper = DefaultAMFMapper.INSTANCE;
+            Class<? extends AMFMapper> customMapperClass = findCustomMapperClass(jaxbClass);
+            mapper = customMapperClass == null ? DefaultAMFMapper.INSTANCE : customMapperClass.newInstance();
           }
           catch (Throwable e) {
             throw new AMFMappingException("Unable to instantiate class '" + jaxbClass.getPackage().getName() + ".amf." + jaxbClass.getSimpleName() + "AMFMapper'.", e);
@@ -188,8 +232,11 @@ public class AMFMapperIntrospector {
         mapper = DefaultAMFMapper.INSTANCE;
       }
 
-      if (specifiedType == null) { //only cache if the type isn't specified.
-        MAPPERS.put(jaxbType, mapper);
+      if (specifiedType == null) { //only cache by the type alone if the type isn't specified.
+        AMFMapper existing = MAPPERS.putIfAbsent(new MapperKey(jaxbType), mapper);
+        if (existing != null) {
+          mapper = existing;
+        }
       }
     }
 
@@ -217,15 +264,39 @@ public class AMFMapperIntrospector {
     }
   }
 
-  private static Class<? extends AMFMapper> loadCustomMapperClass(Class jaxbClass) throws ClassNotFoundException {
-    if (jaxbClass.getPackage().getName().startsWith("java.")) {
-      throw new ClassNotFoundException();
+  /**
+   * Find the custom (generated) mapper class for the specified JAXB class. Lookups are cached, including negative lookups, so
+   * that a type without a custom mapper doesn't cost a failed class load every time it's seen.
+   *
+   * @param jaxbClass The JAXB class.
+   * @return The custom mapper class, or null if none exists.
+   */
+  private static Class<? extends AMFMapper> findCustomMapperClass(Class jaxbClass) {
+    Class<? extends AMFMapper> mapperClass = CUSTOM_MAPPER_CLASSES.get(jaxbClass);
+    if (mapperClass != null || NO_CUSTOM_MAPPER.contains(jaxbClass)) {
+      return mapperClass;
     }
-    if (jaxbClass.getPackage().getName().startsWith("javax.")) {
-      throw new ClassNotFoundException();
+
+    String packageName = jaxbClass.getPackage().getName();
+    if (!packageName.startsWith("java.") && !packageName.startsWith("javax.")) {
+      try {
+        mapperClass = (Class<? extends AMFMapper>) Class.forName(packageName + ".amf." + jaxbClass.getSimpleName() + "AMFMapper");
+      }
+      catch (ClassNotFoundException e) {
+        mapperClass = null;
+      }
+      catch (NoClassDefFoundError e) {
+        mapperClass = null;
+      }
     }
 
-    return (Class<? extends AMFMapper>) Class.forName(jaxbClass.getPackage().getName() + ".amf." + jaxbClass.getSimpleName() + "AMFMapper");
+    if (mapperClass == null) {
+      NO_CUSTOM_MAPPER.add(jaxbClass);
+    }
+    else {
+      CUSTOM_MAPPER_CLASSES.put(jaxbClass, mapperClass);
+    }
+    return mapperClass;
   }
 
   private static Type findAdaptingType(Class<? extends XmlAdapter> adapterClass) {
@@ -246,4 +317,54 @@ public class AMFMapperIntrospector {
   private AMFMapperIntrospector() {
   }
 
+  /**
+   * Key for a cached mapper.
+   */
+  private static final class MapperKey {
+
+    private final Class realType;
+    private final Type jaxbType;
+    private final XmlJavaTypeAdapter adapterInfo;
+    private final XmlElement elementInfo;
+    private final int hash;
+
+    MapperKey(Type jaxbType) {
+      this(null, jaxbType, null, null);
+    }
+
+    MapperKey(Class realType, Type jaxbType, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
+      this.realType = realType;
+      this.jaxbType = jaxbType;
+      this.adapterInfo = adapterInfo;
+      this.elementInfo = elementInfo;
+      int hash = realType == null ? 0 : realType.hashCode();
+      hash = 31 * hash + (jaxbType == null ? 0 : jaxbType.hashCode());
+      hash = 31 * hash + (adapterInfo == null ? 0 : adapterInfo.hashCode());
+      hash = 31 * hash + (elementInfo == null ? 0 : elementInfo.hashCode());
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof MapperKey)) {
+        return false;
+      }
+
+      MapperKey other = (MapperKey) o;
+      return this.hash == other.hash
+        && (realType == null ? other.realType == null : realType.equals(other.realType))
+        && (jaxbType == null ? other.jaxbType == null : jaxbType.equals(other.jaxbType))
+        && (adapterInfo == null ? other.adapterInfo == null : adapterInfo.equals(other.adapterInfo))
+        && (elementInfo == null ? other.elementInfo == null : elementInfo.equals(other.elementInfo));
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2006-2008 Web Cohesion
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.enunciate.modules.amf;
+
+/**
+ * Direct (non-reflective) access to a single property of a JAXB class and its corresponding AMF class. Generated mappers
+ * register these with {@link BaseAMFMapper#setPropertyAccessor} so that property values are copied without reflection.
+ *
+ * @author Ryan Heaton
+ */
+public interface AMFPropertyAccessor<J, G> {
+
+  /**
+   * Read the property value from the JAXB object.
+   *
+   * @param jaxbObject The JAXB object.
+   * @return The property value.
+   */
+  Object getJAXBValue(J jaxbObject);
+
+  /**
+   * Write the property value to the JAXB object.
+   *
+   * @param jaxbObject The JAXB object.
+   * @param value The (already mapped) property value.
+   */
+  void setJAXBValue(J jaxbObject, Object value);
+
+  /**
+   * Read the property value from the AMF object.
+   *
+   * @param amfObject The AMF object.
+   * @return The property value.
+   */
+  Object getAMFValue(G amfObject);
+
+  /**
+   * Write the property value to the AMF object.
+   *
+   * @param amfObject The AMF object.
+   * @param value The (already mapped) property value.
+   */
+  void setAMFValue(G amfObject, Object value);
+}
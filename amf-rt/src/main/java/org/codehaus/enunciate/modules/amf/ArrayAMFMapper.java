@@ -51,8 +51,14 @@ public class ArrayAMFMapper implements CustomAMFMapper {
       return null;
     }
 
+    Object mapped = context.lookup(jaxbObject);
+    if (mapped != null) {
+      return mapped;
+    }
+
     Object[] jaxbArray = (Object[]) jaxbObject;
     Object[] amfArray = (Object[]) Array.newInstance(this.amfItemClass, jaxbArray.length);
+    context.objectMapped(jaxbObject, amfArray);
     for (int i = 0; i < jaxbArray.length; i++) {
       Object jaxbItem = jaxbArray[i];
       Object amfItem;
@@ -94,6 +100,16 @@ public class ArrayAMFMapper implements CustomAMFMapper {
     return jaxbArray;
   }
 
+  /**
+   * Get the mapper for an item of the specified class.
+   *
+   * @param itemClass The class of the item.
+   * @return The mapper for the item.
+   */
+  AMFMapper getItemMapper(Class itemClass) {
+    return AMFMapperIntrospector.getAMFMapper(itemClass, this.declaredComponentType, this.adapterInfo, this.elementInfo);
+  }
+
   public Class getJaxbClass() {
     return Array.newInstance(this.jaxbItemClass, 0).getClass();
   }
@@ -24,6 +24,13 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Base implementation of an AMFMapper. If a custom mapper exists for a certain JAXB class, it is assumed to
@@ -37,7 +44,9 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
   private final Class<J> jaxbClass;
   private final Class<G> amfClass;
   private final String[] properties;
-  private final PropertyDescriptor[][] jaxbProperties2amfProperties;
+  private final PropertyPlan[] propertyPlans;
+  private final List<String> propertyNames;
+  private final Map<String, PropertyPlan> propertyPlansByName;
 
   /**
    * Construct a base AMF mapper.
@@ -54,7 +63,7 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
     }
 
     this.properties = properties;
-    this.jaxbProperties2amfProperties = new PropertyDescriptor[this.properties.length][];
+    this.propertyPlans = new PropertyPlan[this.properties.length];
     for (int i = 0; i < properties.length; i++) {
       String property = properties[i];
       PropertyDescriptor jaxbProperty = findProperty(jaxbClass, property);
@@ -67,8 +76,17 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
         throw new IllegalStateException("Unknown property '" + property + "' on class " + amfClass.getName() + ".");
       }
 
-      this.jaxbProperties2amfProperties[i] = new PropertyDescriptor[]{jaxbProperty, amfProperty};
+      this.propertyPlans[i] = new PropertyPlan(jaxbProperty, amfProperty, findTypeAdapter(jaxbProperty), findXmlElement(jaxbProperty));
     }
+
+    List<String> propertyNames = new ArrayList<String>(this.propertyPlans.length);
+    this.propertyPlansByName = new HashMap<String, PropertyPlan>();
+    for (PropertyPlan plan : this.propertyPlans) {
+      if (this.propertyPlansByName.put(plan.name, plan) == null) {
+        propertyNames.add(plan.name);
+      }
+    }
+    this.propertyNames = Collections.unmodifiableList(propertyNames);
   }
 
   /**
@@ -113,8 +131,9 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
       return null;
     }
 
-    if (context.getMappedObjects().containsKey(jaxbObject)) {
-      return (G) context.getMappedObjects().get(jaxbObject);
+    Object mapped = context.lookup(jaxbObject);
+    if (mapped != null) {
+      return (G) mapped;
     }
 
     G amfObject;
@@ -126,41 +145,123 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
     }
 
     context.objectMapped(jaxbObject, amfObject);
-    for (PropertyDescriptor[] pds : this.jaxbProperties2amfProperties) {
-      PropertyDescriptor jaxbProperty = pds[0];
-      PropertyDescriptor amfProperty = pds[1];
-      Method getter = jaxbProperty.getReadMethod();
-      if (getter == null) {
+    for (PropertyPlan plan : this.propertyPlans) {
+      if (plan.jaxbGetter == null) {
         throw new AMFMappingException("In order to convert from JAXB classes to AMF, you must provide a getter for property '"
-          + jaxbProperty.getName() + "' on class " + jaxbProperty.getWriteMethod().getDeclaringClass());
+          + plan.name + "' on class " + plan.jaxbSetter.getDeclaringClass());
       }
 
       Object propertyValue;
       try {
-        propertyValue = getter.invoke(jaxbObject);
+        propertyValue = plan.readJAXB(jaxbObject);
       }
       catch (Exception e) {
-        throw new AMFMappingException("Unable to read property '" + jaxbProperty.getName() + "' on " + jaxbObject, e);
+        throw new AMFMappingException("Unable to read property '" + plan.name + "' on " + jaxbObject, e);
       }
 
       if (propertyValue == null) {
         continue;
       }
 
-      XmlJavaTypeAdapter adapterInfo = findTypeAdapter(jaxbProperty);
-      XmlElement xmlElement = findXmlElement(jaxbProperty);
-      AMFMapper mapper = AMFMapperIntrospector.getAMFMapper(propertyValue.getClass(), getter.getGenericReturnType(), adapterInfo, xmlElement);
+      AMFMapper mapper = plan.getAMFMapper(propertyValue.getClass());
       try {
-        amfProperty.getWriteMethod().invoke(amfObject, mapper.toAMF(propertyValue, context));
+        plan.writeAMF(amfObject, mapper.toAMF(propertyValue, context));
       }
       catch (Exception e) {
-        throw new AMFMappingException("Unable to set property " + jaxbProperty.getName() + " for the amf bean " + amfClass.getName(), e);
+        throw new AMFMappingException("Unable to set property " + plan.name + " for the amf bean " + amfClass.getName(), e);
       }
     }
 
     return amfObject;
   }
 
+  /**
+   * The names of the properties that are mapped, in order.
+   *
+   * @return The names of the properties that are mapped.
+   */
+  List<String> getPropertyNames() {
+    return this.propertyNames;
+  }
+
+  /**
+   * The type of the specified property on the AMF class.
+   *
+   * @param property The property.
+   * @return The type, or null if the property isn't mapped.
+   */
+  Class getAMFPropertyType(String property) {
+    PropertyPlan plan = this.propertyPlansByName.get(property);
+    return plan == null ? null : plan.amfGetter != null ? plan.amfGetter.getReturnType() : plan.amfSetter.getParameterTypes()[0];
+  }
+
+  /**
+   * Read the value of a property of a JAXB object. Used to stream a JAXB object as AMF without first mapping it to an
+   * instance of the AMF class.
+   *
+   * @param jaxbObject The JAXB object.
+   * @param property The property.
+   * @return The value.
+   * @see StreamingAMFProxy
+   */
+  Object readJAXBProperty(J jaxbObject, String property) throws AMFMappingException {
+    PropertyPlan plan = getPropertyPlan(property);
+    if (plan.jaxbGetter == null) {
+      throw new AMFMappingException("In order to convert from JAXB classes to AMF, you must provide a getter for property '"
+        + plan.name + "' on class " + plan.jaxbSetter.getDeclaringClass());
+    }
+
+    Object propertyValue;
+    try {
+      propertyValue = plan.readJAXB(jaxbObject);
+    }
+    catch (Exception e) {
+      throw new AMFMappingException("Unable to read property '" + plan.name + "' on " + jaxbObject, e);
+    }
+
+    return propertyValue;
+  }
+
+  /**
+   * Get the mapper to use to map a value of the specified property to AMF.
+   *
+   * @param property The property.
+   * @param valueType The runtime class of the value.
+   * @return The mapper.
+   */
+  AMFMapper getPropertyAMFMapper(String property, Class valueType) throws AMFMappingException {
+    return getPropertyPlan(property).getAMFMapper(valueType);
+  }
+
+  private PropertyPlan getPropertyPlan(String property) throws AMFMappingException {
+    PropertyPlan plan = this.propertyPlansByName.get(property);
+    if (plan == null) {
+      throw new AMFMappingException("Unknown property '" + property + "' on class " + jaxbClass.getName() + ".");
+    }
+    return plan;
+  }
+
+  /**
+   * Register a direct accessor for the specified property, to be used instead of reflection when copying the property value.
+   * Generated mappers call this from their constructors.
+   *
+   * @param property The name of the property.
+   * @param accessor The accessor.
+   */
+  protected final void setPropertyAccessor(String property, AMFPropertyAccessor<? extends J, ? extends G> accessor) {
+    boolean found = false;
+    for (PropertyPlan plan : this.propertyPlans) {
+      if (plan.name.equals(property)) {
+        plan.accessor = accessor;
+        found = true;
+      }
+    }
+
+    if (!found) {
+      throw new IllegalStateException("Unknown property '" + property + "' on class " + jaxbClass.getName() + ".");
+    }
+  }
+
   /**
    * Find the type adapter for the specified JAXB property.
    *
@@ -178,7 +279,7 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
       adapterInfo = jaxbProperty.getWriteMethod().getAnnotation(XmlJavaTypeAdapter.class);
     }
 
-    if (adapterInfo == null) {
+    if ((adapterInfo == null) && (jaxbProperty.getReadMethod() != null)) {
       Package pckg = jaxbProperty.getReadMethod().getDeclaringClass().getPackage();
       Class<?> returnType = jaxbProperty.getReadMethod().getReturnType();
 
@@ -231,8 +332,9 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
       return null;
     }
     
-    if (context.getMappedObjects().containsKey(amfObject)) {
-      return (J) context.getMappedObjects().get(amfObject);
+    Object mapped = context.lookup(amfObject);
+    if (mapped != null) {
+      return (J) mapped;
     }
 
     J jaxbObject;
@@ -244,42 +346,37 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
     }
 
     context.objectMapped(amfObject, jaxbObject);
-    for (PropertyDescriptor[] pds : this.jaxbProperties2amfProperties) {
-      PropertyDescriptor jaxbProperty = pds[0];
-      PropertyDescriptor amfProperty = pds[1];
-      Method getter = amfProperty.getReadMethod();
+    for (PropertyPlan plan : this.propertyPlans) {
       Object propertyValue;
       try {
-        propertyValue = getter.invoke(amfObject);
+        propertyValue = plan.readAMF(amfObject);
       }
       catch (Exception e) {
-        throw new AMFMappingException("Unable to read property '" + amfProperty.getName() + "' on " + amfObject, e);
+        throw new AMFMappingException("Unable to read property '" + plan.name + "' on " + amfObject, e);
       }
 
       if (propertyValue == null) {
         continue;
       }
 
-      Method setter = jaxbProperty.getWriteMethod();
-      if (setter == null) {
+      if (plan.jaxbSetter == null) {
         throw new AMFMappingException("In order to convert from AMF back to JAXB classes, you must provide a setter for property '"
-          + jaxbProperty.getName() + "' on class " + jaxbProperty.getReadMethod().getDeclaringClass());
+          + plan.name + "' on class " + plan.jaxbGetter.getDeclaringClass());
       }
 
-      XmlJavaTypeAdapter typeAdapter = findTypeAdapter(jaxbProperty);
       AMFMapper mapper;
-      if (propertyValue instanceof AMFMapperAware && typeAdapter == null) {
+      if (propertyValue instanceof AMFMapperAware && plan.adapterInfo == null) {
         mapper = ((AMFMapperAware) propertyValue).loadAMFMapper();
       }
       else {
-        mapper = AMFMapperIntrospector.getAMFMapper(setter.getGenericParameterTypes()[0], typeAdapter, findXmlElement(jaxbProperty));
+        mapper = plan.getJAXBMapper();
       }
 
       try {
-        setter.invoke(jaxbObject, mapper.toJAXB(propertyValue, context));
+        plan.writeJAXB(jaxbObject, mapper.toJAXB(propertyValue, context));
       }
       catch (Exception e) {
-        throw new AMFMappingException("Unable to set property " + jaxbProperty.getName() + " for the amf bean " + amfClass.getName(), e);
+        throw new AMFMappingException("Unable to set property " + plan.name + " for the amf bean " + amfClass.getName(), e);
       }
     }
 
@@ -316,4 +413,124 @@ public abstract class BaseAMFMapper<J, G> implements CustomAMFMapper<J, G> {
   public Class<G> getAmfClass() {
     return amfClass;
   }
+
+  /**
+   * The plan for copying a single property, resolved once per mapper so that the per-object work is reduced to reads, writes
+   * and a mapper dispatch.
+   */
+  private static final class PropertyPlan {
+
+    final String name;
+    final Method jaxbGetter;
+    final Method jaxbSetter;
+    final Method amfGetter;
+    final Method amfSetter;
+    final Type jaxbGetterType;
+    final Type jaxbSetterType;
+    final XmlJavaTypeAdapter adapterInfo;
+    final XmlElement elementInfo;
+
+    /**
+     * Whether the declared type of the property is final, in which case the AMF-side mapper doesn't depend on the runtime class.
+     */
+    final boolean finalType;
+
+    /**
+     * The direct accessor for the property, or null if the property is to be accessed reflectively.
+     */
+    AMFPropertyAccessor accessor;
+
+    /**
+     * The mapper last used to map a value to AMF, along with the runtime class it was resolved for.
+     */
+    private volatile ResolvedMapper lastAMFMapper;
+
+    /**
+     * The mapper used to map a value back to JAXB. Resolved lazily, since the property might refer back to the type being mapped.
+     */
+    private volatile AMFMapper jaxbMapper;
+
+    PropertyPlan(PropertyDescriptor jaxbProperty, PropertyDescriptor amfProperty, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
+      this.name = jaxbProperty.getName();
+      this.jaxbGetter = jaxbProperty.getReadMethod();
+      this.jaxbSetter = jaxbProperty.getWriteMethod();
+      this.amfGetter = amfProperty.getReadMethod();
+      this.amfSetter = amfProperty.getWriteMethod();
+      this.jaxbGetterType = this.jaxbGetter == null ? null : this.jaxbGetter.getGenericReturnType();
+      this.jaxbSetterType = this.jaxbSetter == null ? null : this.jaxbSetter.getGenericParameterTypes()[0];
+      this.adapterInfo = adapterInfo;
+      this.elementInfo = elementInfo;
+      Class<?> declaredType = this.jaxbGetter == null ? null : this.jaxbGetter.getReturnType();
+      this.finalType = declaredType != null && !declaredType.isArray() && !declaredType.isPrimitive() && Modifier.isFinal(declaredType.getModifiers());
+    }
+
+    Object readJAXB(Object jaxbObject) throws Exception {
+      return this.accessor != null ? this.accessor.getJAXBValue(jaxbObject) : this.jaxbGetter.invoke(jaxbObject);
+    }
+
+    void writeJAXB(Object jaxbObject, Object value) throws Exception {
+      if (this.accessor != null) {
+        this.accessor.setJAXBValue(jaxbObject, value);
+      }
+      else {
+        this.jaxbSetter.invoke(jaxbObject, value);
+      }
+    }
+
+    Object readAMF(Object amfObject) throws Exception {
+      return this.accessor != null ? this.accessor.getAMFValue(amfObject) : this.amfGetter.invoke(amfObject);
+    }
+
+    void writeAMF(Object amfObject, Object value) throws Exception {
+      if (this.accessor != null) {
+        this.accessor.setAMFValue(amfObject, value);
+      }
+      else {
+        this.amfSetter.invoke(amfObject, value);
+      }
+    }
+
+    /**
+     * Get the mapper to use to map a property value of the specified runtime class to AMF.
+     *
+     * @param valueType The runtime class of the property value.
+     * @return The mapper.
+     */
+    AMFMapper getAMFMapper(Class valueType) {
+      ResolvedMapper resolved = this.lastAMFMapper;
+      if (resolved == null || (!this.finalType && resolved.valueType != valueType)) {
+        resolved = new ResolvedMapper(valueType, AMFMapperIntrospector.getAMFMapper(valueType, this.jaxbGetterType, this.adapterInfo, this.elementInfo));
+        this.lastAMFMapper = resolved;
+      }
+      return resolved.mapper;
+    }
+
+    /**
+     * Get the mapper to use to map a property value back to JAXB.
+     *
+     * @return The mapper.
+     */
+    AMFMapper getJAXBMapper() {
+      AMFMapper mapper = this.jaxbMapper;
+      if (mapper == null) {
+        mapper = AMFMapperIntrospector.getAMFMapper(this.jaxbSetterType, this.adapterInfo, this.elementInfo);
+        this.jaxbMapper = mapper;
+      }
+      return mapper;
+    }
+  }
+
+  /**
+   * A mapper resolved for a specific runtime class.
+   */
+  static final class ResolvedMapper {
+
+    final Class valueType;
+    final AMFMapper mapper;
+
+    ResolvedMapper(Class valueType, AMFMapper mapper) {
+      this.valueType = valueType;
+      this.mapper = mapper;
+    }
+  }
 }
@@ -44,7 +44,13 @@ public class CollectionAMFMapper implements AMFMapper<Collection, Collection> {
       return null;
     }
 
+    Object mapped = context.lookup(jaxbObject);
+    if (mapped != null) {
+      return (Collection) mapped;
+    }
+
     Collection collection = CollectionAMFMapper.newCollectionInstance(collectionType);
+    context.objectMapped(jaxbObject, collection);
     for (Object item : jaxbObject) {
       Object toItem  = item != null ? AMFMapperIntrospector.getAMFMapper(item.getClass(), this.defaultItemType, this.adapterInfo, this.elementInfo).toAMF(item, context) : null;
       collection.add(toItem);
@@ -65,6 +71,16 @@ public class CollectionAMFMapper implements AMFMapper<Collection, Collection> {
     return collection;
   }
 
+  /**
+   * Get the mapper for an item of the specified class.
+   *
+   * @param itemClass The class of the item.
+   * @return The mapper for the item.
+   */
+  AMFMapper getItemMapper(Class itemClass) {
+    return AMFMapperIntrospector.getAMFMapper(itemClass, this.defaultItemType, this.adapterInfo, this.elementInfo);
+  }
+
   /**
    * Create a new instance of something of the specified collection type.
    *
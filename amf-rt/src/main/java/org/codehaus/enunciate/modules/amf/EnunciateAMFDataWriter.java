@@ -14,6 +14,19 @@ import java.io.OutputStream;
  */
 public class EnunciateAMFDataWriter implements AMFDataWriter {
 
+  private boolean streaming = false;
+
+  public EnunciateAMFDataWriter() {
+  }
+
+  /**
+   * @param streaming Whether to stream the JAXB objects directly.
+   * @see #setStreaming(boolean)
+   */
+  public EnunciateAMFDataWriter(boolean streaming) {
+    this.streaming = streaming;
+  }
+
   public boolean isWriteable(Class realType, Type genericType) {
     AMFMapper mapper = AMFMapperIntrospector.getAMFMapper(realType, genericType);
     if (mapper instanceof CustomAMFMapper) {
@@ -29,6 +42,31 @@ public class EnunciateAMFDataWriter implements AMFDataWriter {
     SerializationContext context = new SerializationContext();
     Amf3Output output = new Amf3Output(context);
     output.setOutputStream(stream);
-    output.writeObject(mapper.toAMF(obj, new AMFMappingContext()));
+    AMFMappingContext mappingContext = AMFMappingContext.borrow(0);
+    try {
+      output.writeObject(this.streaming ? StreamingAMFProxy.toStreamable(obj, mapper, mappingContext) : mapper.toAMF(obj, mappingContext));
+    }
+    finally {
+      mappingContext.release();
+    }
+  }
+
+  /**
+   * Whether the JAXB objects are streamed directly as AMF.
+   *
+   * @return Whether the JAXB objects are streamed directly as AMF.
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Whether to stream the JAXB objects directly as AMF, reading each property value from the JAXB object as it's written
+   * instead of first mapping the whole object graph to AMF objects. The AMF written is equivalent either way.
+   *
+   * @param streaming Whether to stream the JAXB objects directly as AMF.
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
   }
 }
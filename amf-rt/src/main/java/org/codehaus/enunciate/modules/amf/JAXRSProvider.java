@@ -57,6 +57,30 @@ public class JAXRSProvider implements MessageBodyReader, MessageBodyWriter {
     this.reader = reader;
   }
 
+  /**
+   * Whether the JAXB objects are streamed directly as AMF.
+   *
+   * @return Whether the JAXB objects are streamed directly as AMF.
+   */
+  public boolean isStreaming() {
+    return (this.writer instanceof EnunciateAMFDataWriter) && ((EnunciateAMFDataWriter) this.writer).isStreaming();
+  }
+
+  /**
+   * Whether to stream the JAXB objects directly as AMF. Only supported if the writer is an {@link EnunciateAMFDataWriter}.
+   *
+   * @param streaming Whether to stream the JAXB objects directly as AMF.
+   * @see EnunciateAMFDataWriter#setStreaming(boolean)
+   */
+  public void setStreaming(boolean streaming) {
+    if (this.writer instanceof EnunciateAMFDataWriter) {
+      ((EnunciateAMFDataWriter) this.writer).setStreaming(streaming);
+    }
+    else if (streaming) {
+      throw new IllegalStateException("Streaming isn't supported by the configured AMF data writer, " + this.writer + ".");
+    }
+  }
+
   public AMFDataWriter getWriter() {
     return writer;
   }
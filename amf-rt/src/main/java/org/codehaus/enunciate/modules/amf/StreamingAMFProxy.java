@@ -0,0 +1,239 @@
+/*
+ * Copyright 2006-2008 Web Cohesion
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.enunciate.modules.amf;
+
+import flex.messaging.io.AbstractProxy;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A property proxy that presents a JAXB object to the AMF serializer as if it were an instance of its AMF class. The
+ * property values are read from the JAXB object as they are written, so the AMF object graph is never built.
+ *
+ * @author Ryan Heaton
+ */
+final class StreamingAMFProxy extends AbstractProxy {
+
+  private final BaseAMFMapper mapper;
+  private final AMFMappingContext context;
+
+  StreamingAMFProxy(BaseAMFMapper mapper, Object jaxbObject, AMFMappingContext context) {
+    super(jaxbObject);
+    this.mapper = mapper;
+    this.context = context;
+  }
+
+  /**
+   * Convert a JAXB object into something that can be streamed as AMF. Objects with a generated mapper are wrapped in a
+   * proxy, collections are wrapped in a view that converts each item as it's written, arrays are converted item by item,
+   * and anything else is mapped with its mapper. A collection or array is converted once per mapping context, so the AMF
+   * serializer sees the same instance each time it's referenced and can write it by reference.
+   *
+   * @param jaxbObject The JAXB object.
+   * @param mapper The mapper for the object.
+   * @param context The mapping context.
+   * @return The object to stream.
+   */
+  static Object toStreamable(Object jaxbObject, AMFMapper mapper, AMFMappingContext context) {
+    if (jaxbObject == null) {
+      return null;
+    }
+    else if (mapper instanceof BaseAMFMapper) {
+      return new StreamingAMFProxy((BaseAMFMapper) mapper, jaxbObject, context);
+    }
+    else if (mapper instanceof CollectionAMFMapper) {
+      Object streamable = context.lookup(jaxbObject);
+      if (streamable == null) {
+        CollectionAMFMapper collectionMapper = (CollectionAMFMapper) mapper;
+        if (jaxbObject instanceof List) {
+          streamable = new StreamingList((List) jaxbObject, collectionMapper, context);
+        }
+        else if (jaxbObject instanceof Set) {
+          streamable = new StreamingSet((Set) jaxbObject, collectionMapper, context);
+        }
+        else {
+          streamable = new StreamingCollection((Collection) jaxbObject, collectionMapper, context);
+        }
+        context.objectMapped(jaxbObject, streamable);
+      }
+      return streamable;
+    }
+    else if (mapper instanceof ArrayAMFMapper) {
+      Object[] streamable = (Object[]) context.lookup(jaxbObject);
+      if (streamable == null) {
+        ArrayAMFMapper arrayMapper = (ArrayAMFMapper) mapper;
+        Object[] items = (Object[]) jaxbObject;
+        streamable = new Object[items.length];
+        context.objectMapped(jaxbObject, streamable);
+        for (int i = 0; i < items.length; i++) {
+          Object item = items[i];
+          streamable[i] = item == null ? null : toStreamable(item, arrayMapper.getItemMapper(item.getClass()), context);
+        }
+      }
+      return streamable;
+    }
+    else {
+      return mapper.toAMF(jaxbObject, context);
+    }
+  }
+
+  @Override
+  public String getAlias(Object instance) {
+    return this.mapper.getAmfClass().getName();
+  }
+
+  @Override
+  public boolean isExternalizable(Object instance) {
+    return false;
+  }
+
+  public List getPropertyNames(Object instance) {
+    return this.mapper.getPropertyNames();
+  }
+
+  public Class getType(Object instance, String propertyName) {
+    return this.mapper.getAMFPropertyType(propertyName);
+  }
+
+  public Object getValue(Object instance, String propertyName) {
+    Object value = this.mapper.readJAXBProperty(instance, propertyName);
+    return value == null ? null : toStreamable(value, this.mapper.getPropertyAMFMapper(propertyName, value.getClass()), this.context);
+  }
+
+  public void setValue(Object instance, String propertyName, Object value) {
+    throw new UnsupportedOperationException("JAXB objects streamed as AMF are read-only.");
+  }
+
+  /**
+   * Converts the items of a JAXB collection as they're iterated.
+   */
+  private static final class StreamingIterator implements Iterator {
+
+    private final Iterator items;
+    private final CollectionAMFMapper mapper;
+    private final AMFMappingContext context;
+
+    private StreamingIterator(Iterator items, CollectionAMFMapper mapper, AMFMappingContext context) {
+      this.items = items;
+      this.mapper = mapper;
+      this.context = context;
+    }
+
+    public boolean hasNext() {
+      return this.items.hasNext();
+    }
+
+    public Object next() {
+      Object item = this.items.next();
+      return item == null ? null : toStreamable(item, this.mapper.getItemMapper(item.getClass()), this.context);
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException("JAXB objects streamed as AMF are read-only.");
+    }
+  }
+
+  /**
+   * A read-only view of a JAXB list that converts its items as they're written.
+   */
+  private static final class StreamingList extends AbstractList {
+
+    private final List items;
+    private final CollectionAMFMapper mapper;
+    private final AMFMappingContext context;
+
+    private StreamingList(List items, CollectionAMFMapper mapper, AMFMappingContext context) {
+      this.items = items;
+      this.mapper = mapper;
+      this.context = context;
+    }
+
+    @Override
+    public Object get(int index) {
+      Object item = this.items.get(index);
+      return item == null ? null : toStreamable(item, this.mapper.getItemMapper(item.getClass()), this.context);
+    }
+
+    @Override
+    public Iterator iterator() {
+      return new StreamingIterator(this.items.iterator(), this.mapper, this.context);
+    }
+
+    @Override
+    public int size() {
+      return this.items.size();
+    }
+  }
+
+  /**
+   * A read-only view of a JAXB set that converts its items as they're written.
+   */
+  private static final class StreamingSet extends AbstractSet {
+
+    private final Set items;
+    private final CollectionAMFMapper mapper;
+    private final AMFMappingContext context;
+
+    private StreamingSet(Set items, CollectionAMFMapper mapper, AMFMappingContext context) {
+      this.items = items;
+      this.mapper = mapper;
+      this.context = context;
+    }
+
+    @Override
+    public Iterator iterator() {
+      return new StreamingIterator(this.items.iterator(), this.mapper, this.context);
+    }
+
+    @Override
+    public int size() {
+      return this.items.size();
+    }
+  }
+
+  /**
+   * A read-only view of a JAXB collection that converts its items as they're written.
+   */
+  private static final class StreamingCollection extends AbstractCollection {
+
+    private final Collection items;
+    private final CollectionAMFMapper mapper;
+    private final AMFMappingContext context;
+
+    private StreamingCollection(Collection items, CollectionAMFMapper mapper, AMFMappingContext context) {
+      this.items = items;
+      this.mapper = mapper;
+      this.context = context;
+    }
+
+    @Override
+    public Iterator iterator() {
+      return new StreamingIterator(this.items.iterator(), this.mapper, this.context);
+    }
+
+    @Override
+    public int size() {
+      return this.items.size();
+    }
+  }
+}
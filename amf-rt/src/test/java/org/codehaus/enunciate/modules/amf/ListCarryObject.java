@@ -0,0 +1,34 @@
+package org.codehaus.enunciate.modules.amf;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@XmlRootElement
+public class ListCarryObject {
+    private List<List<String>> groups;
+    private List<String> names;
+
+    public ListCarryObject() {
+    }
+
+    public ListCarryObject(List<List<String>> groups, List<String> names) {
+        this.groups = groups;
+        this.names = names;
+    }
+
+    public List<List<String>> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<List<String>> groups) {
+        this.groups = groups;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public void setNames(List<String> names) {
+        this.names = names;
+    }
+}
@@ -95,4 +95,19 @@ public class TestAMFMapperIntrospector extends TestCase {
       
     assertTrue("Wrong mapper type.", mapper instanceof AdaptingAMFMapper);
   }
+
+  public void testAdaptedMapperIsCached() {
+    PropertyDescriptor prop = AMFUtils.findProperty(TestObject.class, "propString");
+    AMFMapper mapper1 = AMFMapperIntrospector.getAMFMapper(null, prop.getReadMethod().getGenericReturnType(), AMFUtils.findTypeAdapter(prop), AMFUtils.findXmlElement(prop));
+    AMFMapper mapper2 = AMFMapperIntrospector.getAMFMapper(null, prop.getReadMethod().getGenericReturnType(), AMFUtils.findTypeAdapter(prop), AMFUtils.findXmlElement(prop));
+    assertTrue("Wrong mapper type.", mapper1 instanceof AdaptingAMFMapper);
+    assertSame(mapper1, mapper2);
+  }
+
+  public void testTypeWithoutCustomMapper() {
+    AMFMapper mapper = AMFMapperIntrospector.getAMFMapper(MapCarryObject.class, Object.class);
+    assertSame(DefaultAMFMapper.INSTANCE, mapper);
+    assertSame(mapper, AMFMapperIntrospector.getAMFMapper(MapCarryObject.class, Object.class));
+    assertSame(DefaultAMFMapper.INSTANCE, AMFMapperIntrospector.getAMFMapper(MapCarryObject.class));
+  }
 }
@@ -0,0 +1,76 @@
+package org.codehaus.enunciate.modules.amf;
+
+import junit.framework.TestCase;
+
+import java.util.Map;
+
+public class TestAMFMappingContext extends TestCase {
+
+  public void testLookupIsByIdentity() {
+    AMFMappingContext context = new AMFMappingContext();
+    String from = new String("from");
+    Object to = new Object();
+    context.objectMapped(from, to);
+    assertSame(to, context.lookup(from));
+    assertNull(context.lookup(new String("from")));
+    assertEquals(1, context.size());
+
+    Object to2 = new Object();
+    context.objectMapped(from, to2);
+    assertSame(to2, context.lookup(from));
+    assertEquals(1, context.size());
+  }
+
+  public void testLargeGraph() {
+    AMFMappingContext context = new AMFMappingContext(4);
+    Object[] from = new Object[10000];
+    for (int i = 0; i < from.length; i++) {
+      from[i] = new Object();
+      context.objectMapped(from[i], i);
+    }
+
+    assertEquals(from.length, context.size());
+    for (int i = 0; i < from.length; i++) {
+      assertEquals(i, context.lookup(from[i]));
+    }
+
+    Map<Object, Object> mappedObjects = context.getMappedObjects();
+    assertEquals(from.length, mappedObjects.size());
+    assertEquals(5, mappedObjects.get(from[5]));
+  }
+
+  public void testNotPooledByDefault() {
+    assertEquals(Boolean.getBoolean(AMFMappingContext.POOLED_PROPERTY), AMFMappingContext.isPooled());
+  }
+
+  public void testBorrowReusesReleasedTable() {
+    boolean pooled = AMFMappingContext.isPooled();
+    AMFMappingContext.setPooled(true);
+    try {
+      AMFMappingContext context = AMFMappingContext.borrow(0);
+      Object from = new Object();
+      context.objectMapped(from, "to");
+      context.release();
+
+      AMFMappingContext reused = AMFMappingContext.borrow(10);
+      assertNotSame(context, reused);
+      assertEquals(0, reused.size());
+      assertNull(reused.lookup(from));
+
+      //a nested borrow gets its own table.
+      AMFMappingContext nested = AMFMappingContext.borrow(0);
+      nested.objectMapped(from, "nested");
+      assertNull(reused.lookup(from));
+      nested.release();
+      reused.release();
+
+      //a table too small for the expected size isn't reused.
+      AMFMappingContext large = AMFMappingContext.borrow(100000);
+      assertNull(large.lookup(from));
+      large.release();
+    }
+    finally {
+      AMFMappingContext.setPooled(pooled);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package org.codehaus.enunciate.modules.amf;
+
+import flex.messaging.io.SerializationContext;
+import flex.messaging.io.amf.Amf3Output;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestBaseAMFMapper extends TestCase {
+
+  public void testPropertiesAreMappedPerRuntimeClass() throws Exception {
+    MapCarryObjectAMFMapper mapper = new MapCarryObjectAMFMapper();
+
+    MapCarryObject amf = mapper.toAMF(new MapCarryObject("key", "value"), new AMFMappingContext());
+    assertEquals("key", amf.getKey());
+    assertEquals("value", amf.getValue());
+
+    amf = mapper.toAMF(new MapCarryObject(new URI("urn:key"), null), new AMFMappingContext());
+    assertEquals("urn:key", amf.getKey());
+    assertNull(amf.getValue());
+
+    amf = mapper.toAMF(new MapCarryObject("key2", "value2"), new AMFMappingContext());
+    assertEquals("key2", amf.getKey());
+    assertEquals("value2", amf.getValue());
+
+    MapCarryObject jaxb = mapper.toJAXB(new MapCarryObject("key", "value"), new AMFMappingContext());
+    assertEquals("key", jaxb.getKey());
+    assertEquals("value", jaxb.getValue());
+  }
+
+  public void testAlreadyMappedObjectsAreReused() throws Exception {
+    MapCarryObjectAMFMapper mapper = new MapCarryObjectAMFMapper();
+    MapCarryObject jaxb = new MapCarryObject("key", "value");
+    AMFMappingContext context = new AMFMappingContext();
+    MapCarryObject amf = mapper.toAMF(jaxb, context);
+    assertSame(amf, mapper.toAMF(jaxb, context));
+  }
+
+  public void testDirectPropertyAccessors() throws Exception {
+    DirectMapCarryObjectAMFMapper mapper = new DirectMapCarryObjectAMFMapper();
+
+    MapCarryObject amf = mapper.toAMF(new MapCarryObject(new URI("urn:key"), "value"), new AMFMappingContext());
+    assertEquals("urn:key", amf.getKey());
+    assertEquals("value", amf.getValue());
+
+    MapCarryObject jaxb = mapper.toJAXB(new MapCarryObject("key", "value"), new AMFMappingContext());
+    assertEquals("key", jaxb.getKey());
+    assertEquals("value", jaxb.getValue());
+    assertEquals(4, mapper.accessCount);
+  }
+
+  public void testStreamingProxy() throws Exception {
+    MapCarryObjectAMFMapper mapper = new MapCarryObjectAMFMapper();
+    MapCarryObject jaxb = new MapCarryObject(new URI("urn:key"), null);
+    StreamingAMFProxy proxy = (StreamingAMFProxy) StreamingAMFProxy.toStreamable(jaxb, mapper, new AMFMappingContext());
+    assertSame(jaxb, proxy.getDefaultInstance());
+    assertEquals(MapCarryObject.class.getName(), proxy.getAlias(jaxb));
+    assertEquals(Arrays.asList("key", "value"), proxy.getPropertyNames(jaxb));
+    assertEquals("urn:key", proxy.getValue(jaxb, "key"));
+    assertNull(proxy.getValue(jaxb, "value"));
+  }
+
+  public void testStreamingWritesTheSameAMF() throws Exception {
+    ListCarryObjectAMFMapper mapper = new ListCarryObjectAMFMapper();
+    List<String> shared = new ArrayList<String>(Arrays.asList("a", "b"));
+    List<List<String>> groups = new ArrayList<List<String>>();
+    groups.add(shared);
+    groups.add(new ArrayList<String>(Arrays.asList("c")));
+    ListCarryObject jaxb = new ListCarryObject(groups, shared);
+
+    byte[] streamed = writeAMF(StreamingAMFProxy.toStreamable(jaxb, mapper, new AMFMappingContext()));
+    assertTrue(Arrays.equals(writeAMF(mapper.toAMF(jaxb, new AMFMappingContext())), streamed));
+
+    //the shared collection is written once and then by reference.
+    ListCarryObject unshared = new ListCarryObject(groups, new ArrayList<String>(shared));
+    assertTrue(streamed.length < writeAMF(StreamingAMFProxy.toStreamable(unshared, mapper, new AMFMappingContext())).length);
+  }
+
+  private byte[] writeAMF(Object amf) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Amf3Output output = new Amf3Output(new SerializationContext());
+    output.setOutputStream(bytes);
+    output.writeObject(amf);
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  public static class MapCarryObjectAMFMapper extends BaseAMFMapper<MapCarryObject, MapCarryObject> {
+
+    public MapCarryObjectAMFMapper() {
+      super(MapCarryObject.class, MapCarryObject.class, "key", "value");
+    }
+  }
+
+  public static class ListCarryObjectAMFMapper extends BaseAMFMapper<ListCarryObject, ListCarryObject> {
+
+    public ListCarryObjectAMFMapper() {
+      super(ListCarryObject.class, ListCarryObject.class, "groups", "names");
+    }
+  }
+
+  public static class DirectMapCarryObjectAMFMapper extends BaseAMFMapper<MapCarryObject, MapCarryObject> {
+
+    private int accessCount = 0;
+
+    public DirectMapCarryObjectAMFMapper() {
+      super(MapCarryObject.class, MapCarryObject.class, "key", "value");
+      setPropertyAccessor("key", new AMFPropertyAccessor<MapCarryObject, MapCarryObject>() {
+        public Object getJAXBValue(MapCarryObject jaxbObject) {
+          accessCount++;
+          return jaxbObject.getKey();
+        }
+
+        public void setJAXBValue(MapCarryObject jaxbObject, Object value) {
+          accessCount++;
+          jaxbObject.setKey(value);
+        }
+
+        public Object getAMFValue(MapCarryObject amfObject) {
+          accessCount++;
+          return amfObject.getKey();
+        }
+
+        public void setAMFValue(MapCarryObject amfObject, Object value) {
+          accessCount++;
+          amfObject.setKey(value);
+        }
+      });
+    }
+  }
+}
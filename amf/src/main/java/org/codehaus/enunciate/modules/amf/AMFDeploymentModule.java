@@ -34,6 +34,7 @@ import org.codehaus.enunciate.contract.validation.Validator;
 import org.codehaus.enunciate.main.*;
 import org.codehaus.enunciate.main.webapp.BaseWebAppFragment;
 import org.codehaus.enunciate.main.webapp.WebAppComponent;
+import org.codehaus.enunciate.modules.DependencyAwareModule;
 import org.codehaus.enunciate.modules.FacetAware;
 import org.codehaus.enunciate.modules.FlexHomeAwareModule;
 import org.codehaus.enunciate.modules.FreemarkerDeploymentModule;
@@ -118,6 +119,9 @@ import java.util.*;
  * <li>The "enforceNoFieldAccessors" attribute specifies whether to enforce that a field accessor cannot be used for AMF mapping.
  * <i>Note: whether this option is enabled or disabled, there currently MUST be a getter and setter for each accessor.  This option only
  * disables the compile-time validation check.</i></li>
+ * <li>The "directPropertyAccess" attribute specifies whether the generated AMF mappers are to access bean properties directly
+ * (i.e. with generated getter and setter calls) instead of through reflection. Properties that don't have both a getter and a setter
+ * are still accessed reflectively. Default: "false".</li>
  * </ul>
  *
  * <h3>The "war" element</h3>
@@ -224,7 +228,7 @@ import java.util.*;
  * @author Ryan Heaton
  * @docFileName module_amf.html
  */
-public class AMFDeploymentModule extends FreemarkerDeploymentModule implements ProjectExtensionModule, FlexHomeAwareModule, EnunciateClasspathListener, FacetAware {
+public class AMFDeploymentModule extends FreemarkerDeploymentModule implements ProjectExtensionModule, FlexHomeAwareModule, EnunciateClasspathListener, FacetAware, DependencyAwareModule {
 
   private String amfSubcontext = "/amf/";
   private String flexAppDir = null;
@@ -240,6 +244,7 @@ public class AMFDeploymentModule extends FreemarkerDeploymentModule implements P
   private boolean amfRtFound = false;
   private boolean springDIFound = false;
   private boolean enforceNoFieldAccessors = true;
+  private boolean directPropertyAccess = false;
   private String mergeServicesConfigXML;
   private Set<String> facetIncludes = new TreeSet<String>();
   private Set<String> facetExcludes = new TreeSet<String>(Arrays.asList("org.codehaus.enunciate.modules.amf.AMFTransient"));
@@ -252,6 +257,16 @@ public class AMFDeploymentModule extends FreemarkerDeploymentModule implements P
     return "amf";
   }
 
+  /**
+   * The Flex compile only uses files generated by this module, so it can run concurrently with the other modules.
+   *
+   * @param target The target.
+   * @return No dependencies for the compile step, null otherwise.
+   */
+  public Set<String> getStepDependencies(Enunciate.Target target) {
+    return target == Enunciate.Target.COMPILE ? Collections.<String>emptySet() : null;
+  }
+
   @Override
   public void init(Enunciate enunciate) throws EnunciateException {
     super.init(enunciate);
@@ -315,6 +330,8 @@ public class AMFDeploymentModule extends FreemarkerDeploymentModule implements P
       EnunciateFreemarkerModel model = getModel();
       model.setFileOutputDirectory(serverGenerateDir);
       model.put("useSpringDI", this.springDIFound);
+      model.put("directPropertyAccess", this.directPropertyAccess);
+      model.put("jaxbClassnameFor", new JAXBClassnameForMethod());
 
       TreeMap<String, String> packages = new TreeMap<String, String>(new Comparator<String>() {
         public int compare(String package1, String package2) {
@@ -1316,5 +1333,23 @@ public class AMFDeploymentModule extends FreemarkerDeploymentModule implements P
     this.enforceNoFieldAccessors = enforceNoFieldAccessors;
   }
 
+  /**
+   * Whether the generated mappers are to access bean properties directly instead of through reflection.
+   *
+   * @return Whether the generated mappers are to access bean properties directly instead of through reflection.
+   */
+  public boolean isDirectPropertyAccess() {
+    return directPropertyAccess;
+  }
+
+  /**
+   * Whether the generated mappers are to access bean properties directly instead of through reflection.
+   *
+   * @param directPropertyAccess Whether the generated mappers are to access bean properties directly instead of through reflection.
+   */
+  public void setDirectPropertyAccess(boolean directPropertyAccess) {
+    this.directPropertyAccess = directPropertyAccess;
+  }
+
 
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2006-2008 Web Cohesion
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.enunciate.modules.amf;
+
+import com.sun.mirror.declaration.TypeDeclaration;
+import freemarker.template.TemplateModelException;
+import org.codehaus.enunciate.template.freemarker.ClassnameForMethod;
+
+import java.util.HashMap;
+
+/**
+ * The (raw) server-side classname of a JAXB type, as it can be referenced from the generated AMF mappers.
+ *
+ * @author Ryan Heaton
+ */
+public class JAXBClassnameForMethod extends ClassnameForMethod {
+
+  public JAXBClassnameForMethod() {
+    super(new HashMap<String, String>());
+  }
+
+  @Override
+  public String convert(TypeDeclaration declaration) throws TemplateModelException {
+    //the qualified name accounts for nested classes.
+    return declaration.getQualifiedName();
+  }
+}
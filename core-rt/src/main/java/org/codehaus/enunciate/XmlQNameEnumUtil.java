@@ -6,8 +6,11 @@ import org.codehaus.enunciate.qname.XmlUnknownQNameEnumValue;
 
 import javax.xml.bind.annotation.XmlSchema;
 import javax.xml.namespace.QName;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -23,6 +26,11 @@ public class XmlQNameEnumUtil {
   private static final AtomicReference<String> DEFAULT_BASE_URI = new AtomicReference<String>();
   private static final AtomicBoolean WRITE_RELATIVE_URIS = new AtomicBoolean(false);
 
+  /**
+   * The lookup tables, read without locking. A table is added by replacing the cache with a copy (see {@link #getTable(Class)}).
+   */
+  private static volatile TableCache tables = new TableCache(4);
+
   /**
    * Set the default base uri for resolving qname URIs.
    *
@@ -73,59 +81,16 @@ public class XmlQNameEnumUtil {
       return null;
     }
 
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo == null) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
-    }
-    else if (enumInfo.base() != XmlQNameEnum.BaseType.QNAME) {
+    QNameEnumTable table = getTable(clazz);
+    if (table.base != XmlQNameEnum.BaseType.QNAME) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted from a URI (not QName).");
     }
 
-    String namespace = enumInfo.namespace();
-    if ("##default".equals(namespace)) {
-      Package pkg = clazz.getPackage();
-      if (pkg != null) {
-        XmlSchema schemaInfo = pkg.getAnnotation(XmlSchema.class);
-        namespace = schemaInfo.namespace();
-      }
-    }
-
-    Field unknown = null;
-    Field[] fields = clazz.getDeclaredFields();
-    for (Field field : fields) {
-      if (field.isEnumConstant()) {
-        if (field.getAnnotation(XmlUnknownQNameEnumValue.class) != null) {
-          unknown = field;
-          continue;
-        }
-
-        XmlQNameEnumValue enumValueInfo = field.getAnnotation(XmlQNameEnumValue.class);
-        String ns = namespace;
-        String localPart = field.getName();
-        if (enumValueInfo != null) {
-          if (enumValueInfo.exclude()) {
-            continue;
-          }
-          if (!"##default".equals(enumValueInfo.namespace())) {
-            ns = enumValueInfo.namespace();
-          }
-          if (!"##default".equals(enumValueInfo.localPart())) {
-            localPart = enumValueInfo.localPart();
-          }
-        }
-
-        if (new QName(ns, localPart).equals(qname)) {
-          return Enum.valueOf(clazz, field.getName());
-        }
-      }
-    }
-
-    if (unknown != null) {
-      return Enum.valueOf(clazz, unknown.getName());
-    }
-    else {
-      return null;
+    String constant = table.qnames2constants.get(qname);
+    if (constant == null) {
+      constant = table.unknownConstant;
     }
+    return constant == null ? null : Enum.valueOf(clazz, constant);
   }
 
   /**
@@ -143,50 +108,12 @@ public class XmlQNameEnumUtil {
     }
 
     Class<?> clazz = e.getDeclaringClass();
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo == null) {
-      throw new IllegalArgumentException("Class " + clazz.getName() + " isn't a QName enum.");
-    }
-    else if (enumInfo.base() != XmlQNameEnum.BaseType.QNAME) {
+    QNameEnumTable table = getTable(clazz);
+    if (table.base != XmlQNameEnum.BaseType.QNAME) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted to a URI (not QName).");
     }
 
-    String namespace = enumInfo.namespace();
-    if ("##default".equals(namespace)) {
-      Package pkg = clazz.getPackage();
-      if (pkg != null) {
-        XmlSchema schemaInfo = pkg.getAnnotation(XmlSchema.class);
-        namespace = schemaInfo.namespace();
-      }
-    }
-
-    Field[] fields = clazz.getDeclaredFields();
-    for (Field field : fields) {
-      if (field.isEnumConstant() && field.getName().equals(e.name())) {
-        if (field.getAnnotation(XmlUnknownQNameEnumValue.class) != null) {
-          throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is not a QName enum value.");
-        }
-
-        XmlQNameEnumValue enumValueInfo = field.getAnnotation(XmlQNameEnumValue.class);
-        String ns = namespace;
-        String localPart = field.getName();
-        if (enumValueInfo != null && !enumValueInfo.exclude()) {
-          if (enumValueInfo.exclude()) {
-            throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is excluded a QName enum value.");
-          }
-          if (!"##default".equals(enumValueInfo.namespace())) {
-            ns = enumValueInfo.namespace();
-          }
-          if (!"##default".equals(enumValueInfo.localPart())) {
-            localPart = enumValueInfo.localPart();
-          }
-        }
-
-        return new QName(ns, localPart);
-      }
-    }
-
-    throw new IllegalStateException("Unable to find " + e.getDeclaringClass().getName() + "." + e + " as a QName enum value.");
+    return table.qnames[table.checkValue(e)];
   }
 
   /**
@@ -238,59 +165,16 @@ public class XmlQNameEnumUtil {
       uriValue = URI.create(defaultBaseUri).resolve(uriValue).toString();
     }
 
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo == null) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
-    }
-    else if (enumInfo.base() != XmlQNameEnum.BaseType.URI) {
+    QNameEnumTable table = getTable(clazz);
+    if (table.base != XmlQNameEnum.BaseType.URI) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted to a QName (not URI).");
     }
 
-    String namespace = enumInfo.namespace();
-    if ("##default".equals(namespace)) {
-      Package pkg = clazz.getPackage();
-      if (pkg != null) {
-        XmlSchema schemaInfo = pkg.getAnnotation(XmlSchema.class);
-        namespace = schemaInfo.namespace();
-      }
-    }
-
-    Field unknown = null;
-    Field[] fields = clazz.getDeclaredFields();
-    for (Field field : fields) {
-      if (field.isEnumConstant()) {
-        if (field.getAnnotation(XmlUnknownQNameEnumValue.class) != null) {
-          unknown = field;
-          continue;
-        }
-
-        XmlQNameEnumValue enumValueInfo = field.getAnnotation(XmlQNameEnumValue.class);
-        String ns = namespace;
-        String localPart = field.getName();
-        if (enumValueInfo != null) {
-          if (enumValueInfo.exclude()) {
-            continue;
-          }
-          if (!"##default".equals(enumValueInfo.namespace())) {
-            ns = enumValueInfo.namespace();
-          }
-          if (!"##default".equals(enumValueInfo.localPart())) {
-            localPart = enumValueInfo.localPart();
-          }
-        }
-
-        if ((ns + localPart).equals(uriValue)) {
-          return Enum.valueOf(clazz, field.getName());
-        }
-      }
-    }
-
-    if (unknown != null) {
-      return Enum.valueOf(clazz, unknown.getName());
-    }
-    else {
-      return null;
+    String constant = table.uris2constants.get(uriValue);
+    if (constant == null) {
+      constant = table.unknownConstant;
     }
+    return constant == null ? null : Enum.valueOf(clazz, constant);
   }
 
   /**
@@ -338,61 +222,217 @@ public class XmlQNameEnumUtil {
       return null;
     }
 
-    String uriValue = null;
-
     Class<?> clazz = e.getDeclaringClass();
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo == null) {
-      throw new IllegalArgumentException("Class " + clazz.getName() + " isn't a QName enum.");
-    }
-    else if (enumInfo.base() != XmlQNameEnum.BaseType.URI) {
+    QNameEnumTable table = getTable(clazz);
+    if (table.base != XmlQNameEnum.BaseType.URI) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted from a QName (not URI).");
     }
 
-    String namespace = enumInfo.namespace();
-    if ("##default".equals(namespace)) {
-      Package pkg = clazz.getPackage();
-      if (pkg != null) {
-        XmlSchema schemaInfo = pkg.getAnnotation(XmlSchema.class);
-        namespace = schemaInfo.namespace();
+    int ordinal = table.checkValue(e);
+    String ns = table.namespaces[ordinal];
+    if (ns.equals(defaultBaseUri) && isWriteRelativeUris()) {
+      ns = "";
+    }
+
+    return ns + table.localParts[ordinal];
+  }
+
+  /**
+   * Get the lookup table for the specified QName enum class, building it if necessary.
+   *
+   * @param clazz The enum class.
+   * @return The lookup table.
+   * @throws IllegalArgumentException If <code>clazz</code> isn't a QName enum.
+   */
+  static QNameEnumTable getTable(Class<?> clazz) {
+    QNameEnumTable table = tables.get(clazz);
+    if (table == null) {
+      XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
+      if (enumInfo == null) {
+        throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
       }
+
+      table = new QNameEnumTable(clazz, enumInfo);
+      synchronized (XmlQNameEnumUtil.class) {
+        QNameEnumTable existing = tables.get(clazz);
+        if (existing != null) {
+          return existing;
+        }
+        tables = tables.with(clazz, table);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * An immutable open-addressing table of the lookup tables, keyed weakly by enum class so that the cache doesn't keep
+   * the class loaded. Since it's never modified, it can be read without locking.
+   */
+  private static final class TableCache {
+
+    private final WeakReference<Class<?>>[] classes;
+    private final QNameEnumTable[] tables;
+
+    @SuppressWarnings("unchecked")
+    TableCache(int capacity) {
+      this.classes = new WeakReference[capacity];
+      this.tables = new QNameEnumTable[capacity];
     }
 
-    Field[] fields = clazz.getDeclaredFields();
-    for (Field field : fields) {
-      if (field.isEnumConstant() && field.getName().equals(e.name())) {
-        if (field.getAnnotation(XmlUnknownQNameEnumValue.class) != null) {
-          throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is not a QName enum value.");
+    /**
+     * Look up the table for the specified class.
+     *
+     * @param clazz The class.
+     * @return The table, or null if there isn't one.
+     */
+    QNameEnumTable get(Class<?> clazz) {
+      int mask = this.classes.length - 1;
+      int i = System.identityHashCode(clazz) & mask;
+      while (true) {
+        WeakReference<Class<?>> ref = this.classes[i];
+        if (ref == null) {
+          return null;
         }
+        else if (ref.get() == clazz) {
+          return this.tables[i];
+        }
+        i = (i + 1) & mask;
+      }
+    }
 
-        XmlQNameEnumValue enumValueInfo = field.getAnnotation(XmlQNameEnumValue.class);
-        String ns = namespace;
-        String localPart = field.getName();
-        if (enumValueInfo != null && !enumValueInfo.exclude()) {
-          if (enumValueInfo.exclude()) {
-            throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is excluded a QName enum value.");
-          }
-          if (!"##default".equals(enumValueInfo.namespace())) {
-            ns = enumValueInfo.namespace();
-          }
-          if (!"##default".equals(enumValueInfo.localPart())) {
-            localPart = enumValueInfo.localPart();
-          }
+    /**
+     * A copy of this cache with the specified table added, without the entries for classes that have been unloaded.
+     *
+     * @param clazz The class.
+     * @param table The table.
+     * @return The copy.
+     */
+    TableCache with(Class<?> clazz, QNameEnumTable table) {
+      int size = 1;
+      for (WeakReference<Class<?>> ref : this.classes) {
+        if (ref != null && ref.get() != null) {
+          size++;
         }
+      }
 
-        if (ns.equals(defaultBaseUri) && isWriteRelativeUris()) {
-          ns = "";
+      //keep the table at most half full so that a lookup always finds an empty slot.
+      int capacity = 4;
+      while (capacity < size * 2) {
+        capacity <<= 1;
+      }
+
+      TableCache copy = new TableCache(capacity);
+      for (int i = 0; i < this.classes.length; i++) {
+        Class<?> existing = this.classes[i] == null ? null : this.classes[i].get();
+        if (existing != null && existing != clazz) {
+          copy.put(existing, this.tables[i]);
         }
+      }
+      copy.put(clazz, table);
+      return copy;
+    }
 
-        uriValue = ns + localPart;
-        break;
+    private void put(Class<?> clazz, QNameEnumTable table) {
+      int mask = this.classes.length - 1;
+      int i = System.identityHashCode(clazz) & mask;
+      while (this.classes[i] != null) {
+        i = (i + 1) & mask;
       }
+      this.classes[i] = new WeakReference<Class<?>>(clazz);
+      this.tables[i] = table;
     }
+  }
 
-    if (uriValue == null) {
-      throw new IllegalStateException("Unable to find " + e.getDeclaringClass().getName() + "." + e + " as a QName enum value.");
+  /**
+   * The QName/URI values of the constants of a QName enum, and the reverse lookups. Constants are referenced by name
+   * and ordinal only so that the cache doesn't hold on to the enum class.
+   */
+  static final class QNameEnumTable {
+
+    final XmlQNameEnum.BaseType base;
+    final String[] namespaces;
+    final String[] localParts;
+    final QName[] qnames;
+    final boolean[] unknown;
+    final Map<QName, String> qnames2constants = new HashMap<QName, String>();
+    final Map<String, String> uris2constants = new HashMap<String, String>();
+    final String unknownConstant;
+
+    QNameEnumTable(Class<?> clazz, XmlQNameEnum enumInfo) {
+      this.base = enumInfo.base();
+
+      String namespace = enumInfo.namespace();
+      if ("##default".equals(namespace)) {
+        Package pkg = clazz.getPackage();
+        if (pkg != null) {
+          XmlSchema schemaInfo = pkg.getAnnotation(XmlSchema.class);
+          namespace = schemaInfo.namespace();
+        }
+      }
+
+      int count = clazz.getEnumConstants().length;
+      this.namespaces = new String[count];
+      this.localParts = new String[count];
+      this.qnames = new QName[count];
+      this.unknown = new boolean[count];
+
+      String unknownConstant = null;
+      Field[] fields = clazz.getDeclaredFields();
+      for (Field field : fields) {
+        if (field.isEnumConstant()) {
+          int ordinal = Enum.valueOf((Class) clazz, field.getName()).ordinal();
+
+          if (field.getAnnotation(XmlUnknownQNameEnumValue.class) != null) {
+            this.unknown[ordinal] = true;
+            unknownConstant = field.getName();
+            continue;
+          }
+
+          XmlQNameEnumValue enumValueInfo = field.getAnnotation(XmlQNameEnumValue.class);
+          String ns = namespace;
+          String localPart = field.getName();
+          boolean excluded = enumValueInfo != null && enumValueInfo.exclude();
+          if (enumValueInfo != null && !excluded) {
+            if (!"##default".equals(enumValueInfo.namespace())) {
+              ns = enumValueInfo.namespace();
+            }
+            if (!"##default".equals(enumValueInfo.localPart())) {
+              localPart = enumValueInfo.localPart();
+            }
+          }
+
+          this.namespaces[ordinal] = ns;
+          this.localParts[ordinal] = localPart;
+          this.qnames[ordinal] = new QName(ns, localPart);
+          if (!excluded) {
+            //the first constant declared with a given value wins.
+            QName qname = this.qnames[ordinal];
+            if (!this.qnames2constants.containsKey(qname)) {
+              this.qnames2constants.put(qname, field.getName());
+            }
+            String uri = ns + localPart;
+            if (!this.uris2constants.containsKey(uri)) {
+              this.uris2constants.put(uri, field.getName());
+            }
+          }
+        }
+      }
+      this.unknownConstant = unknownConstant;
     }
 
-    return uriValue;
+    /**
+     * Check that the specified constant has a QName/URI value.
+     *
+     * @param e The constant.
+     * @return The ordinal of the constant.
+     * @throws IllegalArgumentException If <code>e</code> is the {@link XmlUnknownQNameEnumValue unknown enum}.
+     */
+    int checkValue(Enum e) {
+      int ordinal = e.ordinal();
+      if (this.unknown[ordinal]) {
+        throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is not a QName enum value.");
+      }
+      return ordinal;
+    }
   }
 }
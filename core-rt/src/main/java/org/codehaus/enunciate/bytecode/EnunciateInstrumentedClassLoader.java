@@ -3,39 +3,246 @@ package org.codehaus.enunciate.bytecode;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Class loader that instruments the classes identified by the instrumentation info. Each class is instrumented when
+ * it's first loaded, from the bytes supplied by the parent class loader. The instrumented bytes can optionally be
+ * cached in a directory so that they don't have to be instrumented again the next time.
+ *
  * @author Ryan Heaton
  */
 public class EnunciateInstrumentedClassLoader extends ClassLoader {
 
+  static {
+    //we'd like to be parallel-capable, but ClassLoader.registerAsParallelCapable() isn't available until Java 7.
+    try {
+      Method registerAsParallelCapable = ClassLoader.class.getDeclaredMethod("registerAsParallelCapable");
+      registerAsParallelCapable.invoke(null);
+    }
+    catch (Exception e) {
+      //fall through...
+    }
+  }
+
   private final InstrumentationInfo instrumentation;
+  private final Set<String> instrumentedClasses;
+  private final ConcurrentMap<String, Object> classLoadingLocks = new ConcurrentHashMap<String, Object>();
+  private final File cacheDirectory;
+  private volatile String instrumentationHash;
 
   public EnunciateInstrumentedClassLoader(ClassLoader parent, InstrumentationInfo instrumentation) throws ClassNotFoundException {
+    this(parent, instrumentation, null);
+  }
+
+  /**
+   * @param parent The parent class loader.
+   * @param instrumentation The instrumentation info.
+   * @param cacheDirectory The directory in which to cache the instrumented classes, or null to not cache them.
+   */
+  public EnunciateInstrumentedClassLoader(ClassLoader parent, InstrumentationInfo instrumentation, File cacheDirectory) throws ClassNotFoundException {
     super(parent);
     this.instrumentation = instrumentation;
+    this.instrumentedClasses = new HashSet<String>(instrumentation.getInstrumentedClasses());
+    this.cacheDirectory = cacheDirectory;
+  }
 
-    //redefine all the instrumented classes.
-    for (String instrumentedClass : instrumentation.getInstrumentedClasses()) {
-      findClass(instrumentedClass);
+  @Override
+  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    if (!this.instrumentedClasses.contains(name)) {
+      return super.loadClass(name, resolve);
+    }
+
+    //instrumented classes are loaded by this class loader instead of the parent.
+    synchronized (getClassLoadingLock(name)) {
+      Class<?> clazz = findLoadedClass(name);
+      if (clazz == null) {
+        clazz = findClass(name);
+      }
+
+      if (resolve) {
+        resolveClass(clazz);
+      }
+      return clazz;
     }
   }
 
   @Override
   public Class<?> findClass(String name) throws ClassNotFoundException {
-    ClassWriter writer = new ClassWriter(0);
-    ClassReader reader;
+    byte[] original;
     try {
-      reader = new ClassReader(name);
+      original = readClassBytes(name);
     }
     catch (IOException e) {
       throw new ClassNotFoundException("Unable to read class " + name + ".", e);
     }
 
-    reader.accept(new WebParamAnnotationInstrumentation(writer, this.instrumentation), 0);
-    byte[] bytes = writer.toByteArray();
+    File cacheFile = this.cacheDirectory == null ? null : new File(this.cacheDirectory, name + '-' + hash(original) + ".class");
+    byte[] bytes = cacheFile == null ? null : readCachedBytes(cacheFile);
+    if (bytes == null) {
+      ClassWriter writer = new ClassWriter(0);
+      new ClassReader(original).accept(new WebParamAnnotationInstrumentation(writer, this.instrumentation), 0);
+      bytes = writer.toByteArray();
+
+      if (cacheFile != null) {
+        writeCachedBytes(cacheFile, bytes);
+      }
+    }
+
     return defineClass(name, bytes, 0, bytes.length);
   }
 
+  /**
+   * The lock to hold while loading the specified class.
+   *
+   * @param name The class name.
+   * @return The lock.
+   */
+  protected Object getClassLoadingLock(String name) {
+    Object lock = new Object();
+    Object existing = this.classLoadingLocks.putIfAbsent(name, lock);
+    return existing == null ? lock : existing;
+  }
+
+  /**
+   * Read the (uninstrumented) bytes of the specified class from the parent class loader.
+   *
+   * @param name The class name.
+   * @return The bytes.
+   */
+  protected byte[] readClassBytes(String name) throws IOException {
+    String resource = name.replace('.', '/') + ".class";
+    ClassLoader parent = getParent();
+    InputStream in = parent == null ? ClassLoader.getSystemResourceAsStream(resource) : parent.getResourceAsStream(resource);
+    if (in == null) {
+      throw new IOException("Class not found: " + resource);
+    }
+
+    try {
+      return readFully(in);
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  private byte[] readCachedBytes(File cacheFile) {
+    if (!cacheFile.isFile()) {
+      return null;
+    }
+
+    try {
+      FileInputStream in = new FileInputStream(cacheFile);
+      try {
+        return readFully(in);
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  private void writeCachedBytes(File cacheFile, byte[] bytes) {
+    //write to a temporary file first so a partially-written class is never read.
+    try {
+      this.cacheDirectory.mkdirs();
+      File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", this.cacheDirectory);
+      FileOutputStream out = new FileOutputStream(tempFile);
+      try {
+        out.write(bytes);
+      }
+      finally {
+        out.close();
+      }
+
+      if (!tempFile.renameTo(cacheFile)) {
+        tempFile.delete();
+      }
+    }
+    catch (IOException e) {
+      //fall through; we just won't have it cached.
+    }
+  }
+
+  /**
+   * A hash of the original bytes of a class and the instrumentation info.
+   *
+   * @param original The original bytes.
+   * @return The hash.
+   */
+  private String hash(byte[] original) {
+    MessageDigest digest = newDigest();
+    digest.update(original);
+    digest.update(getInstrumentationHash().getBytes());
+    return toHex(digest.digest());
+  }
+
+  private String getInstrumentationHash() {
+    String instrumentationHash = this.instrumentationHash;
+    if (instrumentationHash == null) {
+      //sort the parameter names so the hash is the same regardless of the order of the map.
+      TreeMap<String, String> entries = new TreeMap<String, String>();
+      for (Map.Entry<MethodKey, String[]> entry : this.instrumentation.getParameterNames().entrySet()) {
+        MethodKey key = entry.getKey();
+        entries.put(key.getClassDescriptor() + '.' + key.getMethodName() + key.getMethodDescriptor(), Arrays.toString(entry.getValue()));
+      }
+
+      MessageDigest digest = newDigest();
+      try {
+        digest.update(entries.toString().getBytes("utf-8"));
+      }
+      catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      instrumentationHash = toHex(digest.digest());
+      this.instrumentationHash = instrumentationHash;
+    }
+    return instrumentationHash;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+    byte[] buffer = new byte[4096];
+    int len;
+    while ((len = in.read(buffer)) >= 0) {
+      bytes.write(buffer, 0, len);
+    }
+    return bytes.toByteArray();
+  }
+
 }
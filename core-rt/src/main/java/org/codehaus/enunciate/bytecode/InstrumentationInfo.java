@@ -7,21 +7,43 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 /**
+ * The information needed to instrument classes: the parameter names of each method. The info is written in a compact
+ * binary format, grouped by class, but can also be read from (and written to) XML.
+ *
  * @author Ryan Heaton
  */
 @XmlRootElement
 @XmlAccessorType( XmlAccessType.FIELD )
 public class InstrumentationInfo {
 
+  /**
+   * The first bytes of the binary format ("ENII").
+   */
+  private static final int BINARY_MAGIC = 0x454E4949;
+  private static final int BINARY_VERSION = 1;
+
   private Map<MethodKey, String[]> parameterNames;
 
+  //indexes, built when first needed.
+  private transient volatile Map<String, Map<MethodKey, String[]>> parameterNamesByClass;
+  private transient volatile Set<String> instrumentedClasses;
+
   protected InstrumentationInfo() {
   }
 
@@ -30,12 +52,33 @@ public class InstrumentationInfo {
   }
 
   /**
-   * Load the instrumentation info from the specified input stream.
+   * Load the instrumentation info from the specified input stream, in either the binary format or XML.
    *
    * @param in The input stream.
    * @return The instrumentation info.
    */
   public static InstrumentationInfo loadFrom(InputStream in) {
+    in = in.markSupported() ? in : new BufferedInputStream(in);
+    try {
+      in.mark(4);
+      DataInputStream data = new DataInputStream(in);
+      int magic;
+      try {
+        magic = data.readInt();
+      }
+      catch (EOFException e) {
+        magic = 0;
+      }
+      in.reset();
+
+      if (magic == BINARY_MAGIC) {
+        return readBinary(data);
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
     try {
       return (InstrumentationInfo) JAXBContext.newInstance(InstrumentationInfo.class).createUnmarshaller().unmarshal(in);
     }
@@ -45,11 +88,48 @@ public class InstrumentationInfo {
   }
 
   /**
-   * Write this instrumentation info to a file.
+   * Write this instrumentation info to a file, in the binary format.
    *
    * @param out The file to which to write this instrumentation info.
    */
   public void writeTo(OutputStream out) {
+    try {
+      DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+      data.writeInt(BINARY_MAGIC);
+      data.writeShort(BINARY_VERSION);
+      Map<String, Map<MethodKey, String[]>> parameterNamesByClass = getParameterNamesByClass();
+      data.writeInt(parameterNamesByClass.size());
+      for (Map.Entry<String, Map<MethodKey, String[]>> classEntry : parameterNamesByClass.entrySet()) {
+        data.writeUTF(classEntry.getKey());
+        data.writeInt(classEntry.getValue().size());
+        for (Map.Entry<MethodKey, String[]> methodEntry : classEntry.getValue().entrySet()) {
+          data.writeUTF(methodEntry.getKey().getMethodName());
+          data.writeUTF(methodEntry.getKey().getMethodDescriptor());
+          String[] names = methodEntry.getValue();
+          data.writeInt(names == null ? -1 : names.length);
+          if (names != null) {
+            for (String name : names) {
+              data.writeBoolean(name != null);
+              if (name != null) {
+                data.writeUTF(name);
+              }
+            }
+          }
+        }
+      }
+      data.flush();
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Write this instrumentation info to a file as XML.
+   *
+   * @param out The file to which to write this instrumentation info.
+   */
+  public void writeXmlTo(OutputStream out) {
     try {
       JAXBContext.newInstance(getClass()).createMarshaller().marshal(this, out);
     }
@@ -58,6 +138,41 @@ public class InstrumentationInfo {
     }
   }
 
+  private static InstrumentationInfo readBinary(DataInputStream data) throws IOException {
+    data.readInt(); //magic
+    int version = data.readUnsignedShort();
+    if (version != BINARY_VERSION) {
+      throw new IOException("Unsupported instrumentation info version: " + version);
+    }
+
+    Map<MethodKey, String[]> parameterNames = new HashMap<MethodKey, String[]>();
+    Map<String, Map<MethodKey, String[]>> parameterNamesByClass = new TreeMap<String, Map<MethodKey, String[]>>();
+    int classCount = data.readInt();
+    for (int i = 0; i < classCount; i++) {
+      String classDescriptor = data.readUTF();
+      int methodCount = data.readInt();
+      Map<MethodKey, String[]> classParameterNames = new HashMap<MethodKey, String[]>(methodCount * 2);
+      for (int j = 0; j < methodCount; j++) {
+        MethodKey key = new MethodKey(classDescriptor, data.readUTF(), data.readUTF());
+        int nameCount = data.readInt();
+        String[] names = null;
+        if (nameCount >= 0) {
+          names = new String[nameCount];
+          for (int k = 0; k < nameCount; k++) {
+            names[k] = data.readBoolean() ? data.readUTF() : null;
+          }
+        }
+        classParameterNames.put(key, names);
+      }
+      parameterNames.putAll(classParameterNames);
+      parameterNamesByClass.put(classDescriptor, Collections.unmodifiableMap(classParameterNames));
+    }
+
+    InstrumentationInfo info = new InstrumentationInfo(parameterNames);
+    info.parameterNamesByClass = Collections.unmodifiableMap(parameterNamesByClass);
+    return info;
+  }
+
   /**
    * Map of methods to parameter names.
    *
@@ -67,16 +182,54 @@ public class InstrumentationInfo {
     return parameterNames;
   }
 
+  /**
+   * The parameter names of the methods of the specified class.
+   *
+   * @param classDescriptor The descriptor (internal name) of the class.
+   * @return The map of method keys to parameter names for the methods of the class, or null if none of its methods are instrumented.
+   */
+  public Map<MethodKey, String[]> getParameterNames(String classDescriptor) {
+    return getParameterNamesByClass().get(classDescriptor);
+  }
+
   /**
    * The class names of all instrumented classes.
    *
    * @return The class names of all instrumented classes.
    */
   public Set<String> getInstrumentedClasses() {
-    TreeSet<String> instrumentedClasses = new TreeSet<String>();
-    for (MethodKey methodKey : this.parameterNames.keySet()) {
-      instrumentedClasses.add(Type.getObjectType(methodKey.getClassDescriptor()).getClassName());
+    Set<String> instrumentedClasses = this.instrumentedClasses;
+    if (instrumentedClasses == null) {
+      TreeSet<String> classNames = new TreeSet<String>();
+      for (String classDescriptor : getParameterNamesByClass().keySet()) {
+        classNames.add(Type.getObjectType(classDescriptor).getClassName());
+      }
+      instrumentedClasses = Collections.unmodifiableSet(classNames);
+      this.instrumentedClasses = instrumentedClasses;
     }
     return instrumentedClasses;
   }
+
+  /**
+   * The parameter names, grouped by the descriptor of the declaring class.
+   *
+   * @return The parameter names, grouped by the descriptor of the declaring class.
+   */
+  private Map<String, Map<MethodKey, String[]>> getParameterNamesByClass() {
+    Map<String, Map<MethodKey, String[]>> parameterNamesByClass = this.parameterNamesByClass;
+    if (parameterNamesByClass == null) {
+      TreeMap<String, Map<MethodKey, String[]>> index = new TreeMap<String, Map<MethodKey, String[]>>();
+      for (Map.Entry<MethodKey, String[]> entry : this.parameterNames.entrySet()) {
+        Map<MethodKey, String[]> classParameterNames = index.get(entry.getKey().getClassDescriptor());
+        if (classParameterNames == null) {
+          classParameterNames = new HashMap<MethodKey, String[]>();
+          index.put(entry.getKey().getClassDescriptor(), classParameterNames);
+        }
+        classParameterNames.put(entry.getKey(), entry.getValue());
+      }
+      parameterNamesByClass = Collections.<String, Map<MethodKey, String[]>>unmodifiableMap(index);
+      this.parameterNamesByClass = parameterNamesByClass;
+    }
+    return parameterNamesByClass;
+  }
 }
@@ -3,6 +3,7 @@ package org.codehaus.enunciate.bytecode;
 import org.objectweb.asm.*;
 
 import javax.jws.WebParam;
+import java.util.Map;
 
 /**
  * Instrumentation for a class that changes the default value of the {@link WebParam @WebParam} annotation
@@ -38,9 +39,9 @@ public class WebParamAnnotationInstrumentation extends ClassAdapter {
 
   @Override
   public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
-    MethodKey mk = new MethodKey(CURRENT_CLASS_DESCRIPTOR.get(), name, desc);
     MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
-    String[] parameterNames = this.instrumentation.getParameterNames().get(mk);
+    Map<MethodKey, String[]> classParameterNames = this.instrumentation.getParameterNames(CURRENT_CLASS_DESCRIPTOR.get());
+    String[] parameterNames = classParameterNames == null ? null : classParameterNames.get(new MethodKey(CURRENT_CLASS_DESCRIPTOR.get(), name, desc));
     if (parameterNames != null) {
       mv = new WebParamAnnotationMethodVisitor(mv, parameterNames);
     }
@@ -16,7 +16,11 @@
 
 package org.codehaus.enunciate.rest;
 
-import java.util.StringTokenizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Helper class for content type.
@@ -25,45 +29,163 @@ import java.util.StringTokenizer;
  */
 public class MimeType implements Comparable<MimeType> {
 
+  /**
+   * The maximum number of parsed specs (and accept headers) to cache. The specs usually come from requests, so this bounds
+   * what a client can fill the caches with.
+   */
+  private static final int MAX_CACHED = 256;
+  private static final ConcurrentMap<String, MimeType> PARSED = new ConcurrentHashMap<String, MimeType>();
+  private static final ConcurrentMap<String, MimeType[]> PARSED_ACCEPTS = new ConcurrentHashMap<String, MimeType[]>();
+  private static final MimeType[] ACCEPT_ALL = new MimeType[]{new MimeType("*", "*")};
+
   private final String type;
   private final String subtype;
   private final float quality;
 
   public static MimeType parse(String spec) {
-    float quality = 1;
-    String type;
-    String subType;
-
-    StringTokenizer params = new StringTokenizer(spec, ";");
-    String typeAndSubtype = params.nextToken();
-    if (params.hasMoreTokens()) {
-      while (params.hasMoreTokens()) {
-        String param = params.nextToken();
-        StringTokenizer paramValueTokens = new StringTokenizer(param, "=");
-        String paramName = paramValueTokens.nextToken();
-        if ("q".equalsIgnoreCase(paramName.trim()) && paramValueTokens.hasMoreTokens()) {
-            quality = Float.parseFloat(paramValueTokens.nextToken().trim());
-            break;
+    MimeType mimeType = PARSED.get(spec);
+    if (mimeType == null) {
+      mimeType = parse(spec, 0, spec.length());
+      cache(PARSED, spec, mimeType);
+    }
+    return mimeType;
+  }
+
+  /**
+   * Parse the content types in an "Accept" header, ordered from most acceptable to least acceptable. Entries that can't be
+   * parsed are ignored. The parsed headers are cached, so the returned array must not be modified.
+   *
+   * @param acceptHeader The accept header (null or empty for "any").
+   * @return The acceptable content types, most acceptable first.
+   */
+  public static MimeType[] parseAccept(String acceptHeader) {
+    if (acceptHeader == null || acceptHeader.trim().length() == 0) {
+      return ACCEPT_ALL;
+    }
+
+    MimeType[] accepted = PARSED_ACCEPTS.get(acceptHeader);
+    if (accepted == null) {
+      List<MimeType> mimeTypes = new ArrayList<MimeType>();
+      int start = 0;
+      int length = acceptHeader.length();
+      while (start < length) {
+        int end = acceptHeader.indexOf(',', start);
+        if (end < 0) {
+          end = length;
         }
+
+        try {
+          mimeTypes.add(parse(acceptHeader, start, end));
+        }
+        catch (IllegalArgumentException e) {
+          //skip it (includes NumberFormatException).
+        }
+        start = end + 1;
       }
+
+      accepted = mimeTypes.toArray(new MimeType[mimeTypes.size()]);
+      Arrays.sort(accepted);
+      cache(PARSED_ACCEPTS, acceptHeader, accepted);
     }
+    return accepted;
+  }
 
-    StringTokenizer typeTokens = new StringTokenizer(typeAndSubtype, "/");
-    type = typeTokens.nextToken().trim();
-    if (!typeTokens.hasMoreTokens()) {
-      throw new IllegalArgumentException("Illegal content type: " + typeAndSubtype);
+  /**
+   * Find the supported content type that best matches an "Accept" header. The quality of each supported type is the
+   * quality of the most specific accepted type that matches it; of the supported types with the highest (non-zero)
+   * quality, the first one is chosen.
+   *
+   * @param acceptHeader The accept header (null or empty for "any").
+   * @param supported The supported content types, in order of preference.
+   * @return The best supported content type, or null if none of the supported types are acceptable.
+   */
+  public static MimeType bestMatch(String acceptHeader, MimeType[] supported) {
+    MimeType[] accepted = parseAccept(acceptHeader);
+    MimeType best = null;
+    float bestQuality = 0;
+    for (MimeType candidate : supported) {
+      float quality = qualityOf(candidate, accepted);
+      if (quality > bestQuality) {
+        best = candidate;
+        bestQuality = quality;
+      }
     }
-    else {
-      subType = typeTokens.nextToken().trim();
+    return best;
+  }
+
+  /**
+   * The quality of a content type, given the accepted content types.
+   *
+   * @param mimeType The content type.
+   * @param accepted The accepted content types.
+   * @return The quality of the most specific accepted type that matches, or 0 if none match.
+   */
+  private static float qualityOf(MimeType mimeType, MimeType[] accepted) {
+    int bestSpecificity = -1;
+    float quality = 0;
+    for (MimeType accept : accepted) {
+      if (accept.isAcceptable(mimeType)) {
+        int specificity = ("*".equals(accept.type) ? 0 : 2) + ("*".equals(accept.subtype) ? 0 : 1);
+        if (specificity > bestSpecificity) {
+          bestSpecificity = specificity;
+          quality = accept.quality;
+        }
+      }
+    }
+    return quality;
+  }
+
+  /**
+   * Parse a content type from a region of a string.
+   *
+   * @param spec The string.
+   * @param start The start of the region.
+   * @param end The end of the region.
+   * @return The content type.
+   */
+  private static MimeType parse(String spec, int start, int end) {
+    int paramsStart = spec.indexOf(';', start);
+    if (paramsStart < 0 || paramsStart > end) {
+      paramsStart = end;
+    }
+
+    float quality = 1;
+    int paramStart = paramsStart + 1;
+    while (paramStart < end) {
+      int paramEnd = spec.indexOf(';', paramStart);
+      if (paramEnd < 0 || paramEnd > end) {
+        paramEnd = end;
+      }
+
+      int equals = spec.indexOf('=', paramStart);
+      if (equals >= 0 && equals < paramEnd && "q".equalsIgnoreCase(spec.substring(paramStart, equals).trim())) {
+        quality = Float.parseFloat(spec.substring(equals + 1, paramEnd).trim());
+        break;
+      }
+      paramStart = paramEnd + 1;
+    }
+
+    int slash = spec.indexOf('/', start);
+    if (slash < 0 || slash >= paramsStart || spec.indexOf('/', slash + 1) >= 0 && spec.indexOf('/', slash + 1) < paramsStart) {
+      throw new IllegalArgumentException("Illegal content type: " + spec.substring(start, paramsStart));
     }
 
-    if (typeTokens.hasMoreTokens()) {
-      throw new IllegalArgumentException("Illegal content type: " + typeAndSubtype);
+    String type = spec.substring(start, slash).trim();
+    String subType = spec.substring(slash + 1, paramsStart).trim();
+    if (type.length() == 0 || subType.length() == 0) {
+      throw new IllegalArgumentException("Illegal content type: " + spec.substring(start, paramsStart));
     }
 
     return new MimeType(type, subType, quality);
   }
 
+  private static <V> void cache(ConcurrentMap<String, V> cache, String key, V value) {
+    if (cache.size() >= MAX_CACHED) {
+      cache.clear();
+    }
+    cache.put(key, value);
+  }
+
   public MimeType(String type, String subtype) {
     this(type, subtype, 1);
   }
@@ -16,16 +16,26 @@
 
 package org.codehaus.enunciate.webapp;
 
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
- * Convenience class for accessing the current HTTP request context.
+ * Convenience class for accessing the current HTTP request context. The context is stored as an attribute of the
+ * request, and is bound to the thread that's servicing the request for fast access. Work that's handed off to other
+ * threads can carry the context along with {@link #wrap(Runnable)}, {@link #wrap(Callable)} or {@link #wrap(Executor)}.
  *
  * @author Ryan Heaton
  */
 public class HTTPRequestContext {
 
+  /**
+   * The name of the request attribute under which the context is stored.
+   */
+  public static final String ATTRIBUTE_NAME = HTTPRequestContext.class.getName();
+
   protected static final ThreadLocal<HTTPRequestContext> TL_CONTEXT = new ThreadLocal<HTTPRequestContext>();
 
   private HttpServletRequest request;
@@ -45,6 +55,113 @@ public class HTTPRequestContext {
     return TL_CONTEXT.get();
   }
 
+  /**
+   * Get the context of the specified request.
+   *
+   * @param request The request.
+   * @return The context of the request, or null if none has been established.
+   */
+  public static HTTPRequestContext get(ServletRequest request) {
+    Object context = request.getAttribute(ATTRIBUTE_NAME);
+    return context instanceof HTTPRequestContext ? (HTTPRequestContext) context : null;
+  }
+
+  /**
+   * Bind the specified context to the current thread.
+   *
+   * @param context The context to bind (null to unbind).
+   * @return The context that was previously bound to the current thread, to be passed to {@link #restore(HTTPRequestContext)}.
+   */
+  protected static HTTPRequestContext bind(HTTPRequestContext context) {
+    HTTPRequestContext previous = TL_CONTEXT.get();
+    if (context == null) {
+      TL_CONTEXT.remove();
+    }
+    else {
+      TL_CONTEXT.set(context);
+    }
+    return previous;
+  }
+
+  /**
+   * Restore the context that was bound to the current thread before a call to {@link #bind(HTTPRequestContext)}.
+   *
+   * @param previous The previously-bound context.
+   */
+  protected static void restore(HTTPRequestContext previous) {
+    if (previous == null) {
+      //remove it instead of setting null so nothing's left behind on pooled (or virtual) threads.
+      TL_CONTEXT.remove();
+    }
+    else {
+      TL_CONTEXT.set(previous);
+    }
+  }
+
+  /**
+   * Wrap a task so that it runs with the current context, wherever it's run.
+   *
+   * @param task The task.
+   * @return The wrapped task, or the task itself if there's no current context.
+   */
+  public static Runnable wrap(final Runnable task) {
+    final HTTPRequestContext context = get();
+    if (context == null) {
+      return task;
+    }
+
+    return new Runnable() {
+      public void run() {
+        HTTPRequestContext previous = bind(context);
+        try {
+          task.run();
+        }
+        finally {
+          restore(previous);
+        }
+      }
+    };
+  }
+
+  /**
+   * Wrap a task so that it's called with the current context, wherever it's called.
+   *
+   * @param task The task.
+   * @return The wrapped task, or the task itself if there's no current context.
+   */
+  public static <T> Callable<T> wrap(final Callable<T> task) {
+    final HTTPRequestContext context = get();
+    if (context == null) {
+      return task;
+    }
+
+    return new Callable<T>() {
+      public T call() throws Exception {
+        HTTPRequestContext previous = bind(context);
+        try {
+          return task.call();
+        }
+        finally {
+          restore(previous);
+        }
+      }
+    };
+  }
+
+  /**
+   * Wrap an executor so that the tasks submitted to it run with the context that's current when they're submitted.
+   *
+   * @param executor The executor.
+   * @return The wrapped executor.
+   */
+  public static Executor wrap(final Executor executor) {
+    return new Executor() {
+      public void execute(Runnable task) {
+        executor.execute(wrap(task));
+      }
+    };
+  }
+
   /**
    * The request.
    *
@@ -22,7 +22,9 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
- * Filter that sets up the request context.
+ * Filter that sets up the request context. The context is stored as a request attribute (so that it's the same
+ * across forwards, includes and async dispatches of the request) and bound to the current thread for the duration
+ * of the filter chain.
  *
  * @author Ryan Heaton
  */
@@ -32,9 +34,24 @@ public class HTTPRequestContextFilter implements Filter {
   }
 
   public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain) throws IOException, ServletException {
-    HTTPRequestContext.TL_CONTEXT.set(new HTTPRequestContext((HttpServletRequest) request, (HttpServletResponse) response));
-    filterChain.doFilter(request, response);
-    HTTPRequestContext.TL_CONTEXT.remove();
+    HTTPRequestContext outer = HTTPRequestContext.get(request);
+    HTTPRequestContext context = outer;
+    if (context == null || context.getRequest() != request || context.getResponse() != response) {
+      //a new request, or a dispatch with a wrapped request or response.
+      context = new HTTPRequestContext((HttpServletRequest) request, (HttpServletResponse) response);
+      request.setAttribute(HTTPRequestContext.ATTRIBUTE_NAME, context);
+    }
+
+    HTTPRequestContext previous = HTTPRequestContext.bind(context);
+    try {
+      filterChain.doFilter(request, response);
+    }
+    finally {
+      HTTPRequestContext.restore(previous);
+      if (outer != context && outer != null) {
+        request.setAttribute(HTTPRequestContext.ATTRIBUTE_NAME, outer);
+      }
+    }
   }
 
   public void destroy() {
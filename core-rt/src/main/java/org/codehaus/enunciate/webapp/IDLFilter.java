@@ -18,9 +18,20 @@ package org.codehaus.enunciate.webapp;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
+ * Filter that serves an IDL (WSDL, WADL) with its assumed base address rewritten to the address of the request. The
+ * rewritten IDL is cached per resource and base address, and served with an ETag and Last-Modified date (gzipped if
+ * the client accepts it).
+ *
  * @author Ryan Heaton
  */
 public class IDLFilter implements Filter {
@@ -29,12 +40,20 @@ public class IDLFilter implements Filter {
   public static final String MATCH_PREFIX_PARAM = "match-prefix";
   public static final String MATCH_SUFFIX_PARAM = "match-suffix";
   public static final String CONTENT_TYPE_PARAM = "content-type";
+  public static final String CACHE_SIZE_PARAM = "cache-size";
 
   private String matchPrefix = "";
   private String matchSuffix = "";
   private String contentType = "application/xml";
   private String assumedBaseAddress = null;
   private ServletContext servletContext = null;
+  private int cacheSize = 32;
+  private final Map<String, RewrittenIDL> cache = new LinkedHashMap<String, RewrittenIDL>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, RewrittenIDL> eldest) {
+      return size() > cacheSize;
+    }
+  };
 
   public void init(FilterConfig filterConfig) throws ServletException {
     this.assumedBaseAddress = filterConfig.getInitParameter(ASSUMED_BASE_ADDRESS_PARAM);
@@ -59,6 +78,11 @@ public class IDLFilter implements Filter {
       this.contentType = contentType;
     }
 
+    String cacheSize = filterConfig.getInitParameter(CACHE_SIZE_PARAM);
+    if (cacheSize != null) {
+      this.cacheSize = Integer.parseInt(cacheSize);
+    }
+
     this.servletContext = filterConfig.getServletContext();
   }
 
@@ -71,20 +95,9 @@ public class IDLFilter implements Filter {
         int splitIndex = requestURI.indexOf(contextPath) + contextPath.length();
         String fullContextPath = requestURI.substring(0, splitIndex);
         String postContextPath = requestURI.substring(splitIndex);
-        InputStream wsdlStream = getServletContext().getResourceAsStream(postContextPath);
-        if (wsdlStream != null) {
-          StringBuffer match = new StringBuffer(matchPrefix).append(assumedBaseAddress).append(matchSuffix);
-          StringBuffer replacement = new StringBuffer(matchPrefix).append(fullContextPath).append(matchSuffix);
-          BufferedReader reader = new BufferedReader(new InputStreamReader(wsdlStream, "utf-8"));
-          String line = reader.readLine();
-          servletResponse.setContentType(this.contentType);
-          PrintWriter out = servletResponse.getWriter();
-          while (line != null) {
-            out.println(line.replace(match, replacement));
-            line = reader.readLine();
-          }
-          out.flush();
-          out.close();
+        RewrittenIDL idl = getRewrittenIDL(postContextPath, fullContextPath);
+        if (idl != null) {
+          writeIDL(idl, request, (HttpServletResponse) servletResponse);
           return;
         }
       }
@@ -93,6 +106,154 @@ public class IDLFilter implements Filter {
     chain.doFilter(servletRequest, servletResponse);
   }
 
+  /**
+   * Get the IDL at the specified path, rewritten for the specified base address.
+   *
+   * @param path The path to the IDL resource.
+   * @param fullContextPath The base address of the request.
+   * @return The rewritten IDL, or null if there is no resource at the specified path.
+   */
+  private RewrittenIDL getRewrittenIDL(String path, String fullContextPath) throws IOException {
+    String key = path + '\n' + fullContextPath;
+    RewrittenIDL idl;
+    synchronized (this.cache) {
+      idl = this.cache.get(key);
+    }
+
+    if (idl == null) {
+      InputStream wsdlStream = getServletContext().getResourceAsStream(path);
+      if (wsdlStream == null) {
+        return null;
+      }
+
+      String match = new StringBuilder(matchPrefix).append(assumedBaseAddress).append(matchSuffix).toString();
+      String replacement = new StringBuilder(matchPrefix).append(fullContextPath).append(matchSuffix).toString();
+      StringBuilder content = new StringBuilder();
+      Reader reader = new InputStreamReader(wsdlStream, "utf-8");
+      try {
+        char[] buffer = new char[4096];
+        int len;
+        while ((len = reader.read(buffer)) >= 0) {
+          content.append(buffer, 0, len);
+        }
+      }
+      finally {
+        reader.close();
+      }
+
+      idl = new RewrittenIDL(content.toString().replace(match, replacement).getBytes("utf-8"));
+      synchronized (this.cache) {
+        this.cache.put(key, idl);
+      }
+    }
+
+    return idl;
+  }
+
+  /**
+   * Write the rewritten IDL to the response, or a 304 if the client already has it. The gzipped and the identity
+   * variants have different ETags, and a conditional request is matched against the variant that would be served.
+   *
+   * @param idl The rewritten IDL.
+   * @param request The request.
+   * @param response The response.
+   */
+  private void writeIDL(RewrittenIDL idl, HttpServletRequest request, HttpServletResponse response) throws IOException {
+    boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = gzip ? idl.gzippedETag : idl.etag;
+    response.addHeader("Vary", "Accept-Encoding");
+
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    boolean notModified = ifNoneMatch != null ? matchesETag(ifNoneMatch, etag) : isNotModifiedSince(request, idl.lastModified);
+    if (notModified) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      response.setHeader("ETag", etag);
+      return;
+    }
+
+    response.setContentType(this.contentType);
+    response.setHeader("ETag", etag);
+    response.setDateHeader("Last-Modified", idl.lastModified);
+    byte[] bytes = idl.bytes;
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+      bytes = idl.gzipped;
+    }
+    response.setContentLength(bytes.length);
+    OutputStream out = response.getOutputStream();
+    out.write(bytes);
+    out.flush();
+  }
+
+  /**
+   * Whether the If-Modified-Since header of the request is at or after the specified time. A malformed date is ignored,
+   * so the full response is served.
+   *
+   * @param request The request.
+   * @param lastModified The time the content was last modified.
+   * @return Whether the client's copy is current.
+   */
+  private boolean isNotModifiedSince(HttpServletRequest request, long lastModified) {
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader("If-Modified-Since");
+    }
+    catch (IllegalArgumentException e) {
+      return false;
+    }
+    return ifModifiedSince >= lastModified;
+  }
+
+  /**
+   * Whether the value of an If-None-Match header matches the specified ETag.
+   *
+   * @param ifNoneMatch The value of the If-None-Match header.
+   * @param etag The ETag.
+   * @return Whether it matches.
+   */
+  private boolean matchesETag(String ifNoneMatch, String etag) {
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+
+      if ("*".equals(candidate) || etag.equals(candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the value of an Accept-Encoding header accepts gzip.
+   *
+   * @param acceptEncoding The value of the Accept-Encoding header.
+   * @return Whether gzip is accepted.
+   */
+  private boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding != null) {
+      for (String coding : acceptEncoding.split(",")) {
+        String[] params = coding.split(";");
+        if ("gzip".equalsIgnoreCase(params[0].trim())) {
+          for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+              try {
+                return Double.parseDouble(param.substring(2).trim()) > 0;
+              }
+              catch (NumberFormatException e) {
+                return false;
+              }
+            }
+          }
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   public void destroy() {
   }
 
@@ -135,4 +296,49 @@ public class IDLFilter implements Filter {
   public void setContentType(String contentType) {
     this.contentType = contentType;
   }
+
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  public void setCacheSize(int cacheSize) {
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * An IDL rewritten for a specific base address.
+   */
+  private static final class RewrittenIDL {
+
+    final byte[] bytes;
+    final byte[] gzipped;
+    final String etag;
+    final String gzippedETag;
+    final long lastModified;
+
+    RewrittenIDL(byte[] bytes) throws IOException {
+      this.bytes = bytes;
+
+      ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+      GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+      gzip.write(bytes);
+      gzip.close();
+      this.gzipped = gzipped.toByteArray();
+
+      StringBuilder etag = new StringBuilder("\"");
+      try {
+        for (byte b : MessageDigest.getInstance("MD5").digest(bytes)) {
+          etag.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+      }
+      catch (NoSuchAlgorithmException e) {
+        etag.append(Integer.toHexString(Arrays.hashCode(bytes)));
+      }
+      this.gzippedETag = new StringBuilder(etag).append("-gz\"").toString();
+      this.etag = etag.append('"').toString();
+
+      //HTTP dates only have a resolution of seconds.
+      this.lastModified = (System.currentTimeMillis() / 1000) * 1000;
+    }
+  }
 }
@@ -5,6 +5,10 @@ import junit.framework.TestCase;
 import javax.xml.namespace.QName;
 import java.lang.annotation.RetentionPolicy;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
 
 /**
  * @author Ryan Heaton
@@ -88,4 +92,83 @@ public class TestXmlQNameEnumUtil extends TestCase {
     catch (IllegalArgumentException e) {}
   }
 
+  /**
+   * tests that the lookup table for an enum is built once and reused.
+   */
+  public void testLookupTableIsCached() throws Exception {
+    Object table = XmlQNameEnumUtil.getTable(SpecialQNameEnum.class);
+    assertSame(table, XmlQNameEnumUtil.getTable(SpecialQNameEnum.class));
+
+    QName qname = new QName("urn:definite", "unique");
+    assertSame(SpecialQNameEnum.certain, XmlQNameEnumUtil.fromQName(qname, SpecialQNameEnum.class));
+    assertEquals(qname, XmlQNameEnumUtil.toQName(SpecialQNameEnum.certain));
+    assertSame(SpecialURIEnum.chief, XmlQNameEnumUtil.fromURIValue("urn:definite#chief", SpecialURIEnum.class, null));
+    assertEquals("urn:definite#chief", XmlQNameEnumUtil.toURIValue(SpecialURIEnum.chief, null));
+
+    //the tables of other enums don't replace it.
+    XmlQNameEnumUtil.getTable(AnotherSpecialQNameEnum.class);
+    assertSame(table, XmlQNameEnumUtil.getTable(SpecialQNameEnum.class));
+    assertNotSame(table, XmlQNameEnumUtil.getTable(SpecialURIEnum.class));
+  }
+
+  /**
+   * tests that tables built concurrently for different enums are all kept.
+   */
+  public void testConcurrentLookups() throws Exception {
+    final CyclicBarrier barrier = new CyclicBarrier(3);
+    final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    Thread[] threads = {
+      new Thread() {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+            for (int i = 0; i < 1000; i++) {
+              assertEquals(new QName("urn:definite", "unique"), XmlQNameEnumUtil.toQName(SpecialQNameEnum.certain));
+            }
+          }
+          catch (Throwable e) {
+            errors.add(e);
+          }
+        }
+      },
+      new Thread() {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+            for (int i = 0; i < 1000; i++) {
+              assertEquals(new QName("urn:enunciate", "unusual"), XmlQNameEnumUtil.toQName(AnotherSpecialQNameEnum.unusual));
+            }
+          }
+          catch (Throwable e) {
+            errors.add(e);
+          }
+        }
+      },
+      new Thread() {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+            for (int i = 0; i < 1000; i++) {
+              assertEquals("urn:definite#chief", XmlQNameEnumUtil.toURIValue(SpecialURIEnum.chief, null));
+            }
+          }
+          catch (Throwable e) {
+            errors.add(e);
+          }
+        }
+      }
+    };
+
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(String.valueOf(errors), errors.isEmpty());
+  }
+
 }
@@ -20,6 +20,7 @@ import junit.framework.TestCase;
 import org.objectweb.asm.Type;
 
 import javax.jws.WebParam;
+import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.HashMap;
@@ -61,6 +62,45 @@ public class TestEnunciateInstrumentedClassLoader extends TestCase {
     assertEquals("param5", ((WebParam) param5Annotations[0]).name());
   }
 
+  /**
+   * tests that classes are instrumented when they're loaded, and that the instrumented classes are cached.
+   */
+  public void testLazyCachedInstrumentation() throws Exception {
+    final HashMap<MethodKey, String[]> parameterNames = new HashMap<MethodKey, String[]>();
+    Class clazz = EIExample.class;
+    Method exampleOneMethod = clazz.getMethod("exampleOne", Object.class, String.class, Float.TYPE);
+    parameterNames.put(new MethodKey(Type.getInternalName(clazz), "exampleOne", Type.getMethodDescriptor(exampleOneMethod)), new String[]{"param1", "param2", "param3"});
+    InstrumentationInfo inst = new InstrumentationInfo(parameterNames);
+
+    File cacheDir = File.createTempFile("enunciate", "");
+    assertTrue(cacheDir.delete());
+    try {
+      EnunciateInstrumentedClassLoader cl = new EnunciateInstrumentedClassLoader(Thread.currentThread().getContextClassLoader(), inst, cacheDir);
+      assertFalse(cacheDir.exists());
+      assertSame(TestCase.class, cl.loadClass(TestCase.class.getName()));
+      Class instrumented = cl.loadClass(clazz.getName());
+      assertSame(cl, instrumented.getClassLoader());
+      assertSame(instrumented, cl.loadClass(clazz.getName()));
+      assertEquals(1, cacheDir.list().length);
+
+      EnunciateInstrumentedClassLoader cl2 = new EnunciateInstrumentedClassLoader(Thread.currentThread().getContextClassLoader(), inst, cacheDir);
+      instrumented = cl2.loadClass(clazz.getName());
+      assertSame(cl2, instrumented.getClassLoader());
+      assertEquals(1, cacheDir.list().length);
+      exampleOneMethod = instrumented.getMethod("exampleOne", Object.class, String.class, Float.TYPE);
+      assertEquals("param1", ((WebParam) exampleOneMethod.getParameterAnnotations()[0][0]).name());
+    }
+    finally {
+      File[] cached = cacheDir.listFiles();
+      if (cached != null) {
+        for (File file : cached) {
+          file.delete();
+        }
+      }
+      cacheDir.delete();
+    }
+  }
+
   public static abstract class EIExample {
 
     public String exampleOne(Object param1, @WebParam String param2, float param3) {
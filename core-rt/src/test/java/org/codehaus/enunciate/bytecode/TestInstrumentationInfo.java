@@ -2,7 +2,11 @@ package org.codehaus.enunciate.bytecode;
 
 import junit.framework.TestCase;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 import java.io.ByteArrayOutputStream;
 import java.io.ByteArrayInputStream;
 
@@ -31,4 +35,46 @@ public class TestInstrumentationInfo extends TestCase {
     assertEquals(2, from.getParameterNames().get(key2).length);
   }
 
+  /**
+   * tests reading instrumentation info written as XML.
+   */
+  public void testWriteReadXml() throws Exception {
+    HashMap<MethodKey, String[]> parameterNames = new HashMap<MethodKey, String[]>();
+    MethodKey key1 = new MethodKey("a/B", "2", "3");
+    parameterNames.put(key1, new String[]{"4", "5"});
+    InstrumentationInfo info = new InstrumentationInfo(parameterNames);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    info.writeXmlTo(bytes);
+    InstrumentationInfo from = InstrumentationInfo.loadFrom(new ByteArrayInputStream(bytes.toByteArray()));
+    assertEquals(1, from.getParameterNames().size());
+    assertEquals("5", from.getParameterNames().get(key1)[1]);
+    assertEquals(Collections.singleton("a.B"), from.getInstrumentedClasses());
+  }
+
+  /**
+   * tests the per-class index.
+   */
+  public void testParameterNamesByClass() throws Exception {
+    HashMap<MethodKey, String[]> parameterNames = new HashMap<MethodKey, String[]>();
+    MethodKey key1 = new MethodKey("a/B", "m1", "()V");
+    parameterNames.put(key1, new String[]{"x"});
+    MethodKey key2 = new MethodKey("a/B", "m2", "()V");
+    parameterNames.put(key2, new String[]{null, "y"});
+    MethodKey key3 = new MethodKey("c/D", "m1", "()V");
+    parameterNames.put(key3, new String[0]);
+    InstrumentationInfo info = new InstrumentationInfo(parameterNames);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    info.writeTo(bytes);
+
+    for (InstrumentationInfo from : Arrays.asList(info, InstrumentationInfo.loadFrom(new ByteArrayInputStream(bytes.toByteArray())))) {
+      assertEquals(Arrays.asList("a.B", "c.D"), new ArrayList<String>(from.getInstrumentedClasses()));
+      Map<MethodKey, String[]> classParameterNames = from.getParameterNames("a/B");
+      assertEquals(2, classParameterNames.size());
+      assertNull(classParameterNames.get(key2)[0]);
+      assertEquals("y", classParameterNames.get(key2)[1]);
+      assertEquals(0, from.getParameterNames("c/D").get(key3).length);
+      assertNull(from.getParameterNames("e/F"));
+    }
+  }
+
 }
@@ -0,0 +1,69 @@
+package org.codehaus.enunciate.rest;
+
+import junit.framework.TestCase;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestMimeType extends TestCase {
+
+  /**
+   * tests parsing a content type.
+   */
+  public void testParse() throws Exception {
+    MimeType mimeType = MimeType.parse(" application/xml ; charset=utf-8; Q=0.5");
+    assertEquals("application", mimeType.getType());
+    assertEquals("xml", mimeType.getSubtype());
+    assertEquals(0.5F, mimeType.getQuality());
+    assertSame(mimeType, MimeType.parse(" application/xml ; charset=utf-8; Q=0.5"));
+    assertEquals(1.0F, MimeType.parse("text/plain").getQuality());
+
+    for (String illegal : new String[]{"text", "text/", "/xml", "text/xml/plain", "text;q=1/xml"}) {
+      try {
+        MimeType.parse(illegal);
+        fail("should have failed: " + illegal);
+      }
+      catch (IllegalArgumentException e) {
+        //fall through...
+      }
+    }
+  }
+
+  /**
+   * tests parsing an accept header.
+   */
+  public void testParseAccept() throws Exception {
+    MimeType[] accepted = MimeType.parseAccept("text/*;q=0.3, text/html;q=0.7, text/html;level=1, bogus, */*;q=0.5, application/json");
+    assertEquals(5, accepted.length);
+    assertEquals("application/json", accepted[0].toString());
+    assertEquals("text/html", accepted[1].toString());
+    assertEquals(1.0F, accepted[1].getQuality());
+    assertEquals("text/html", accepted[2].toString());
+    assertEquals(0.7F, accepted[2].getQuality());
+    assertEquals("*/*", accepted[3].toString());
+    assertEquals("text/*", accepted[4].toString());
+    assertSame(accepted, MimeType.parseAccept("text/*;q=0.3, text/html;q=0.7, text/html;level=1, bogus, */*;q=0.5, application/json"));
+
+    assertEquals("*/*", MimeType.parseAccept(null)[0].toString());
+    assertEquals("*/*", MimeType.parseAccept(" ")[0].toString());
+  }
+
+  /**
+   * tests finding the best match for an accept header.
+   */
+  public void testBestMatch() throws Exception {
+    MimeType xml = MimeType.parse("application/xml");
+    MimeType json = MimeType.parse("application/json");
+    MimeType html = MimeType.parse("text/html");
+    MimeType[] supported = new MimeType[]{xml, json, html};
+
+    assertSame(xml, MimeType.bestMatch(null, supported));
+    assertSame(xml, MimeType.bestMatch("*/*", supported));
+    assertSame(json, MimeType.bestMatch("application/json, application/*;q=0.5", supported));
+    assertSame(html, MimeType.bestMatch("text/*, application/*;q=0.5", supported));
+    assertSame(json, MimeType.bestMatch("application/*, application/xml;q=0", supported));
+    assertSame(html, MimeType.bestMatch("*/*;q=0.1, text/html", supported));
+    assertNull(MimeType.bestMatch("image/png", supported));
+    assertNull(MimeType.bestMatch("*/*;q=0", supported));
+  }
+}
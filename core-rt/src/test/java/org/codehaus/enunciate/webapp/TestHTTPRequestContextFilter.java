@@ -0,0 +1,123 @@
+package org.codehaus.enunciate.webapp;
+
+import static org.easymock.EasyMock.*;
+
+import junit.framework.TestCase;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestHTTPRequestContextFilter extends TestCase {
+
+  /**
+   * tests that the context is bound for the chain and cleared even if the chain fails.
+   */
+  public void testContextClearedOnFailure() throws Exception {
+    final HttpServletRequest req = createMock(HttpServletRequest.class);
+    final HttpServletResponse res = createMock(HttpServletResponse.class);
+    expect(req.getAttribute(HTTPRequestContext.ATTRIBUTE_NAME)).andReturn(null);
+    req.setAttribute(eq(HTTPRequestContext.ATTRIBUTE_NAME), isA(HTTPRequestContext.class));
+    replay(req, res);
+
+    final HTTPRequestContext[] bound = new HTTPRequestContext[1];
+    try {
+      new HTTPRequestContextFilter().doFilter(req, res, new FilterChain() {
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+          bound[0] = HTTPRequestContext.get();
+          throw new ServletException();
+        }
+      });
+      fail();
+    }
+    catch (ServletException e) {
+      //fall through...
+    }
+
+    verify(req, res);
+    assertNotNull(bound[0]);
+    assertSame(req, bound[0].getRequest());
+    assertSame(res, bound[0].getResponse());
+    assertNull(HTTPRequestContext.get());
+  }
+
+  /**
+   * tests that a context already stored on the request is reused.
+   */
+  public void testContextReused() throws Exception {
+    HttpServletRequest req = createMock(HttpServletRequest.class);
+    HttpServletResponse res = createMock(HttpServletResponse.class);
+    final HTTPRequestContext context = new HTTPRequestContext(req, res);
+    expect(req.getAttribute(HTTPRequestContext.ATTRIBUTE_NAME)).andReturn(context);
+    replay(req, res);
+
+    new HTTPRequestContextFilter().doFilter(req, res, new FilterChain() {
+      public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+        assertSame(context, HTTPRequestContext.get());
+      }
+    });
+
+    verify(req, res);
+    assertNull(HTTPRequestContext.get());
+  }
+
+  /**
+   * tests carrying the context into tasks.
+   */
+  public void testWrap() throws Exception {
+    final HTTPRequestContext context = new HTTPRequestContext(null, null);
+    final HTTPRequestContext[] seen = new HTTPRequestContext[2];
+    Runnable runnable = new Runnable() {
+      public void run() {
+        seen[0] = HTTPRequestContext.get();
+      }
+    };
+    Callable<HTTPRequestContext> callable = new Callable<HTTPRequestContext>() {
+      public HTTPRequestContext call() throws Exception {
+        return HTTPRequestContext.get();
+      }
+    };
+    assertSame(runnable, HTTPRequestContext.wrap(runnable));
+
+    HTTPRequestContext previous = HTTPRequestContext.bind(context);
+    Runnable wrappedRunnable;
+    Callable<HTTPRequestContext> wrappedCallable;
+    Executor executor;
+    try {
+      wrappedRunnable = HTTPRequestContext.wrap(runnable);
+      wrappedCallable = HTTPRequestContext.wrap(callable);
+      final Runnable[] submitted = new Runnable[1];
+      executor = HTTPRequestContext.wrap(new Executor() {
+        public void execute(Runnable command) {
+          submitted[0] = command;
+        }
+      });
+      executor.execute(new Runnable() {
+        public void run() {
+          seen[1] = HTTPRequestContext.get();
+        }
+      });
+      HTTPRequestContext.restore(previous);
+
+      submitted[0].run();
+    }
+    finally {
+      HTTPRequestContext.restore(previous);
+    }
+
+    wrappedRunnable.run();
+    assertSame(context, seen[0]);
+    assertSame(context, wrappedCallable.call());
+    assertSame(context, seen[1]);
+    assertNull(HTTPRequestContext.get());
+  }
+}
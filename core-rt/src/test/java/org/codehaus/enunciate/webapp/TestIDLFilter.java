@@ -24,9 +24,12 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.zip.GZIPInputStream;
 
 /**
  * @author Ryan Heaton
@@ -59,36 +62,206 @@ public class TestIDLFilter extends TestCase {
     expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
     expect(req.getContextPath()).andReturn("/mycontext");
     expect(context.getResourceAsStream("/something/test.wsdl")).andReturn(new ByteArrayInputStream(WSDL_HEADER.getBytes("utf-8")));
-    StringWriter writer = new StringWriter();
+    expect(req.getHeader("If-None-Match")).andReturn(null);
+    expect(req.getDateHeader("If-Modified-Since")).andReturn(-1L);
+    expect(req.getHeader("Accept-Encoding")).andReturn(null);
     res.setContentType("application/xml");
-    expect(res.getWriter()).andReturn(new PrintWriter(writer));
+    res.setHeader(eq("ETag"), (String) notNull());
+    res.setDateHeader(eq("Last-Modified"), anyLong());
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setContentLength(anyInt());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    expect(res.getOutputStream()).andReturn(new ByteArrayServletOutputStream(bytes));
     replay(context, req, res, chain);
     filter.doFilter(req, res, chain);
     verify(context, req, res, chain);
     reset(context, req, res, chain);
 
+    assertEquals(EXPECTED_HEADER_LINE_1 + "\n" + EXPECTED_HEADER_LINE_2, new String(bytes.toByteArray(), "utf-8"));
 
-    String actualHeader = writer.toString().trim();
-    String expectedOut = buildExpectedOut();
-    assertEquals(expectedOut, actualHeader);
+    //the rewritten wsdl is cached, so a conditional request for it shouldn't hit the servlet context.
+    expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    expect(req.getContextPath()).andReturn("/mycontext");
+    expect(req.getHeader("If-None-Match")).andReturn("*");
+    expect(req.getHeader("Accept-Encoding")).andReturn(null);
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    res.setHeader(eq("ETag"), (String) notNull());
+    replay(context, req, res, chain);
+    filter.doFilter(req, res, chain);
+    verify(context, req, res, chain);
+    reset(context, req, res, chain);
+
+    //the gzipped variant.
+    expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    expect(req.getContextPath()).andReturn("/mycontext");
+    expect(req.getHeader("If-None-Match")).andReturn(null);
+    expect(req.getDateHeader("If-Modified-Since")).andReturn(-1L);
+    expect(req.getHeader("Accept-Encoding")).andReturn("deflate, gzip");
+    res.setContentType("application/xml");
+    res.setHeader(eq("ETag"), endsWith("-gz\""));
+    res.setDateHeader(eq("Last-Modified"), anyLong());
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setHeader("Content-Encoding", "gzip");
+    res.setContentLength(anyInt());
+    bytes = new ByteArrayOutputStream();
+    expect(res.getOutputStream()).andReturn(new ByteArrayServletOutputStream(bytes));
+    replay(context, req, res, chain);
+    filter.doFilter(req, res, chain);
+    verify(context, req, res, chain);
+    reset(context, req, res, chain);
+
+    ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+    GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    byte[] buffer = new byte[1024];
+    int len;
+    while ((len = in.read(buffer)) >= 0) {
+      unzipped.write(buffer, 0, len);
+    }
+    assertEquals(EXPECTED_HEADER_LINE_1 + "\n" + EXPECTED_HEADER_LINE_2, new String(unzipped.toByteArray(), "utf-8"));
   }
 
   /**
-   * Windows uses /r/n instead of only /n to write new lines.
-   * This builds the expected string so it works right across systems.
-   * Or so I hope i didn't break anything
-   *
-   * @return the expected output using PrintWriter, like the filter does it
+   * tests that the gzipped and identity variants have different ETags, and that a conditional request is matched
+   * against the variant being served.
    */
-  private String buildExpectedOut() {
-    StringWriter expectedStringWriter = new StringWriter();
-    PrintWriter expectedWriter = new PrintWriter(expectedStringWriter);
+  public void testVariantETags() throws Exception {
+    final ServletContext context = createMock(ServletContext.class);
+    IDLFilter filter = new IDLFilter() {
+      @Override
+      public ServletContext getServletContext() {
+        return context;
+      }
+    };
+
+    filter.setAssumedBaseAddress("http://localhost:8080/full");
+    filter.setMatchPrefix(":address location=\"");
+    HttpServletRequest req = createMock(HttpServletRequest.class);
+    HttpServletResponse res = createMock(HttpServletResponse.class);
+    FilterChain chain = createMock(FilterChain.class);
+    String etag = etagOf(EXPECTED_HEADER_LINE_1 + "\n" + EXPECTED_HEADER_LINE_2);
+    String gzippedETag = etag.substring(0, etag.length() - 1) + "-gz\"";
+
+    expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    expect(req.getContextPath()).andReturn("/mycontext");
+    expect(context.getResourceAsStream("/something/test.wsdl")).andReturn(new ByteArrayInputStream(WSDL_HEADER.getBytes("utf-8")));
+    expect(req.getHeader("If-None-Match")).andReturn(null);
+    expect(req.getDateHeader("If-Modified-Since")).andReturn(-1L);
+    expect(req.getHeader("Accept-Encoding")).andReturn(null);
+    res.setContentType("application/xml");
+    res.setHeader("ETag", etag);
+    res.setDateHeader(eq("Last-Modified"), anyLong());
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setContentLength(anyInt());
+    expect(res.getOutputStream()).andReturn(new ByteArrayServletOutputStream(new ByteArrayOutputStream()));
+    replay(context, req, res, chain);
+    filter.doFilter(req, res, chain);
+    verify(context, req, res, chain);
+    reset(context, req, res, chain);
+
+    //the identity ETag doesn't validate the gzipped variant.
+    expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    expect(req.getContextPath()).andReturn("/mycontext");
+    expect(req.getHeader("If-None-Match")).andReturn(etag);
+    expect(req.getHeader("Accept-Encoding")).andReturn("gzip");
+    res.setContentType("application/xml");
+    res.setHeader("ETag", gzippedETag);
+    res.setDateHeader(eq("Last-Modified"), anyLong());
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setHeader("Content-Encoding", "gzip");
+    res.setContentLength(anyInt());
+    expect(res.getOutputStream()).andReturn(new ByteArrayServletOutputStream(new ByteArrayOutputStream()));
+    replay(context, req, res, chain);
+    filter.doFilter(req, res, chain);
+    verify(context, req, res, chain);
+    reset(context, req, res, chain);
+
+    //the gzipped ETag does.
+    expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    expect(req.getContextPath()).andReturn("/mycontext");
+    expect(req.getHeader("If-None-Match")).andReturn(gzippedETag);
+    expect(req.getHeader("Accept-Encoding")).andReturn("gzip");
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    res.setHeader("ETag", gzippedETag);
+    replay(context, req, res, chain);
+    filter.doFilter(req, res, chain);
+    verify(context, req, res, chain);
+    reset(context, req, res, chain);
+
+    //but not the identity variant.
+    expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    expect(req.getContextPath()).andReturn("/mycontext");
+    expect(req.getHeader("If-None-Match")).andReturn(gzippedETag);
+    expect(req.getHeader("Accept-Encoding")).andReturn(null);
+    res.setContentType("application/xml");
+    res.setHeader("ETag", etag);
+    res.setDateHeader(eq("Last-Modified"), anyLong());
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setContentLength(anyInt());
+    expect(res.getOutputStream()).andReturn(new ByteArrayServletOutputStream(new ByteArrayOutputStream()));
+    replay(context, req, res, chain);
+    filter.doFilter(req, res, chain);
+    verify(context, req, res, chain);
+  }
+
+  /**
+   * tests that a malformed If-Modified-Since header gets the full response.
+   */
+  public void testMalformedIfModifiedSince() throws Exception {
+    final ServletContext context = createMock(ServletContext.class);
+    IDLFilter filter = new IDLFilter() {
+      @Override
+      public ServletContext getServletContext() {
+        return context;
+      }
+    };
+
+    filter.setAssumedBaseAddress("http://localhost:8080/full");
+    filter.setMatchPrefix(":address location=\"");
+    HttpServletRequest req = createMock(HttpServletRequest.class);
+    HttpServletResponse res = createMock(HttpServletResponse.class);
+    FilterChain chain = createMock(FilterChain.class);
+    expect(req.getRequestURL()).andReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    expect(req.getContextPath()).andReturn("/mycontext");
+    expect(context.getResourceAsStream("/something/test.wsdl")).andReturn(new ByteArrayInputStream(WSDL_HEADER.getBytes("utf-8")));
+    expect(req.getHeader("If-None-Match")).andReturn(null);
+    expect(req.getDateHeader("If-Modified-Since")).andThrow(new IllegalArgumentException("not a date"));
+    expect(req.getHeader("Accept-Encoding")).andReturn(null);
+    res.setContentType("application/xml");
+    res.setHeader(eq("ETag"), (String) notNull());
+    res.setDateHeader(eq("Last-Modified"), anyLong());
+    res.addHeader("Vary", "Accept-Encoding");
+    res.setContentLength(anyInt());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    expect(res.getOutputStream()).andReturn(new ByteArrayServletOutputStream(bytes));
+    replay(context, req, res, chain);
+    filter.doFilter(req, res, chain);
+    verify(context, req, res, chain);
+
+    assertEquals(EXPECTED_HEADER_LINE_1 + "\n" + EXPECTED_HEADER_LINE_2, new String(bytes.toByteArray(), "utf-8"));
+  }
+
+  private static String etagOf(String content) throws Exception {
+    StringBuilder etag = new StringBuilder("\"");
+    for (byte b : MessageDigest.getInstance("MD5").digest(content.getBytes("utf-8"))) {
+      etag.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return etag.append('"').toString();
+  }
+
+  private static class ByteArrayServletOutputStream extends ServletOutputStream {
+
+    private final ByteArrayOutputStream bytes;
 
-    expectedWriter.println(EXPECTED_HEADER_LINE_1);
-    expectedWriter.println(EXPECTED_HEADER_LINE_2);
-    String expectedHeader = expectedStringWriter.toString().trim();
+    private ByteArrayServletOutputStream(ByteArrayOutputStream bytes) {
+      this.bytes = bytes;
+    }
 
-    return expectedHeader;
+    @Override
+    public void write(int b) throws IOException {
+      this.bytes.write(b);
+    }
   }
 
 }
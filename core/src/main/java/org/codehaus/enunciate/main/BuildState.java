@@ -0,0 +1,552 @@
+package org.codehaus.enunciate.main;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The state of the build, kept between runs so that the modules can tell whether an output is up-to-date by comparing
+ * a {@link Fingerprint fingerprint} of its inputs with the fingerprint recorded when the output was last produced,
+ * rather than comparing the timestamps of the source files with those of every file in the output.
+ * <p/>
+ * The state also keeps the content hashes of the files that were fingerprinted, so a file that hasn't changed size or
+ * last-modified time isn't hashed again, and a file that was only touched doesn't change the fingerprint.
+ *
+ * @author Ryan Heaton
+ */
+public class BuildState {
+
+  private static final int MAGIC = 0x454E4253;
+  private static final short VERSION = 2;
+
+  private final Map<String, String> fingerprints = new HashMap<String, String>();
+  private final Map<String, FileHash> fileHashes = new HashMap<String, FileHash>();
+  private final Map<String, Map<String, String>> inputHashes = new HashMap<String, Map<String, String>>();
+  private boolean modified = false;
+
+  /**
+   * Load the build state from the specified file. A state that can't be read is treated as empty.
+   *
+   * @param file The file.
+   * @return The build state.
+   */
+  public static BuildState load(File file) {
+    BuildState state = new BuildState();
+    if (file.isFile()) {
+      try {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+        try {
+          state.read(in);
+        }
+        finally {
+          in.close();
+        }
+      }
+      catch (IOException e) {
+        //fall through; everything will just be regenerated.
+        state.fingerprints.clear();
+        state.fileHashes.clear();
+        state.inputHashes.clear();
+      }
+    }
+    return state;
+  }
+
+  /**
+   * Whether the state has been modified since it was loaded or stored.
+   *
+   * @return Whether the state has been modified.
+   */
+  public synchronized boolean isModified() {
+    return modified;
+  }
+
+  /**
+   * Store the state to the specified file.
+   *
+   * @param file The file.
+   */
+  public synchronized void store(File file) throws IOException {
+    file.getParentFile().mkdirs();
+    File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))));
+    try {
+      write(out);
+    }
+    finally {
+      out.close();
+    }
+
+    //replace the old state in one step, so a partially-written state is never read.
+    if (!tempFile.renameTo(file)) {
+      file.delete();
+      if (!tempFile.renameTo(file)) {
+        tempFile.delete();
+        throw new IOException("Unable to write " + file);
+      }
+    }
+    this.modified = false;
+  }
+
+  /**
+   * Start a new fingerprint.
+   *
+   * @return The new fingerprint.
+   */
+  public Fingerprint newFingerprint() {
+    return new Fingerprint(this);
+  }
+
+  /**
+   * Whether the specified output is up-to-date, i.e. whether it exists and was last produced from inputs with the
+   * specified fingerprint. If it isn't, the fingerprint recorded for it is forgotten, so that an output that fails to be
+   * produced isn't later taken to be up-to-date.
+   *
+   * @param output The output (file or directory).
+   * @param inputs The fingerprint of the inputs of the output.
+   * @return Whether the output is up-to-date.
+   */
+  public synchronized boolean isUpToDate(File output, Fingerprint inputs) {
+    String key = output.getAbsolutePath();
+    String recorded = this.fingerprints.get(key);
+    boolean exists = output.isDirectory() ? output.list() != null && output.list().length > 0 : output.exists();
+    if (exists && recorded != null && recorded.equals(inputs.getValue())) {
+      return true;
+    }
+
+    if (recorded != null) {
+      this.fingerprints.remove(key);
+      this.modified = true;
+    }
+    return false;
+  }
+
+  /**
+   * Record that the specified output was produced from inputs with the specified fingerprint.
+   *
+   * @param output The output (file or directory).
+   * @param inputs The fingerprint of the inputs of the output.
+   */
+  public synchronized void setUpToDate(File output, Fingerprint inputs) {
+    String value = inputs.getValue();
+    if (value != null) {
+      this.fingerprints.put(output.getAbsolutePath(), value);
+      this.modified = true;
+    }
+  }
+
+  /**
+   * The hashes of the individual inputs (e.g. source files) the specified output was last produced from, for outputs
+   * that can be brought up-to-date by only reprocessing the inputs that changed.
+   *
+   * @param output The output (file or directory).
+   * @return The hashes of the inputs, keyed by input, or null if none have been recorded.
+   */
+  public synchronized Map<String, String> getInputHashes(File output) {
+    Map<String, String> hashes = this.inputHashes.get(output.getAbsolutePath());
+    return hashes == null ? null : new HashMap<String, String>(hashes);
+  }
+
+  /**
+   * Record the hashes of the individual inputs the specified output was produced from.
+   *
+   * @param output The output (file or directory).
+   * @param hashes The hashes of the inputs, keyed by input, or null to forget them.
+   */
+  public synchronized void setInputHashes(File output, Map<String, String> hashes) {
+    String key = output.getAbsolutePath();
+    if (hashes == null) {
+      this.modified |= this.inputHashes.remove(key) != null;
+    }
+    else {
+      this.inputHashes.put(key, new HashMap<String, String>(hashes));
+      this.modified = true;
+    }
+  }
+
+  /**
+   * The hash of the contents of the specified file. The hash is only computed if the file has changed size or
+   * last-modified time since it was last hashed.
+   *
+   * @param file The file.
+   * @return The hash of the contents of the file.
+   */
+  public String hash(File file) throws IOException {
+    String key = file.getAbsolutePath();
+    long size = file.length();
+    long lastModified = file.lastModified();
+    synchronized (this) {
+      FileHash hash = this.fileHashes.get(key);
+      if (hash != null && hash.size == size && hash.lastModified == lastModified) {
+        return hash.hash;
+      }
+    }
+
+    InputStream in = new FileInputStream(file);
+    String hash;
+    try {
+      hash = hash(in);
+    }
+    finally {
+      in.close();
+    }
+
+    synchronized (this) {
+      this.fileHashes.put(key, new FileHash(size, lastModified, hash));
+      this.modified = true;
+    }
+    return hash;
+  }
+
+  /**
+   * The hash of the specified stream.
+   *
+   * @param in The stream.
+   * @return The hash.
+   */
+  static String hash(InputStream in) throws IOException {
+    MessageDigest digest = newDigest();
+    byte[] buffer = new byte[8192];
+    int len;
+    while ((len = in.read(buffer)) >= 0) {
+      digest.update(buffer, 0, len);
+    }
+    return toHex(digest.digest());
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  private void read(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+      throw new IOException("Unsupported build state.");
+    }
+
+    int fingerprintCount = in.readInt();
+    for (int i = 0; i < fingerprintCount; i++) {
+      this.fingerprints.put(in.readUTF(), in.readUTF());
+    }
+
+    int hashCount = in.readInt();
+    for (int i = 0; i < hashCount; i++) {
+      this.fileHashes.put(in.readUTF(), new FileHash(in.readLong(), in.readLong(), in.readUTF()));
+    }
+
+    int outputCount = in.readInt();
+    for (int i = 0; i < outputCount; i++) {
+      String output = in.readUTF();
+      int inputCount = in.readInt();
+      Map<String, String> hashes = new HashMap<String, String>();
+      for (int j = 0; j < inputCount; j++) {
+        hashes.put(in.readUTF(), in.readUTF());
+      }
+      this.inputHashes.put(output, hashes);
+    }
+  }
+
+  private void write(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+
+    //the state of outputs (and the hashes of files) that no longer exist is dropped.
+    List<Map.Entry<String, String>> fingerprints = new ArrayList<Map.Entry<String, String>>();
+    for (Map.Entry<String, String> fingerprint : this.fingerprints.entrySet()) {
+      if (new File(fingerprint.getKey()).exists()) {
+        fingerprints.add(fingerprint);
+      }
+    }
+    out.writeInt(fingerprints.size());
+    for (Map.Entry<String, String> fingerprint : fingerprints) {
+      out.writeUTF(fingerprint.getKey());
+      out.writeUTF(fingerprint.getValue());
+    }
+
+    List<Map.Entry<String, FileHash>> hashes = new ArrayList<Map.Entry<String, FileHash>>();
+    for (Map.Entry<String, FileHash> hash : this.fileHashes.entrySet()) {
+      if (new File(hash.getKey()).exists()) {
+        hashes.add(hash);
+      }
+    }
+    out.writeInt(hashes.size());
+    for (Map.Entry<String, FileHash> hash : hashes) {
+      out.writeUTF(hash.getKey());
+      out.writeLong(hash.getValue().size);
+      out.writeLong(hash.getValue().lastModified);
+      out.writeUTF(hash.getValue().hash);
+    }
+
+    List<Map.Entry<String, Map<String, String>>> inputHashes = new ArrayList<Map.Entry<String, Map<String, String>>>();
+    for (Map.Entry<String, Map<String, String>> output : this.inputHashes.entrySet()) {
+      if (new File(output.getKey()).exists()) {
+        inputHashes.add(output);
+      }
+    }
+    out.writeInt(inputHashes.size());
+    for (Map.Entry<String, Map<String, String>> output : inputHashes) {
+      out.writeUTF(output.getKey());
+      out.writeInt(output.getValue().size());
+      for (Map.Entry<String, String> hash : output.getValue().entrySet()) {
+        out.writeUTF(hash.getKey());
+        out.writeUTF(hash.getValue());
+      }
+    }
+  }
+
+  /**
+   * The recorded hash of a file.
+   */
+  private static final class FileHash {
+
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+
+    private FileHash(long size, long lastModified, String hash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+  }
+
+  /**
+   * A fingerprint of the inputs of an output, e.g. the sources of the API, the configuration and the templates that
+   * produce the output. Inputs are added in order; the same inputs added in the same order give the same fingerprint.
+   * A fingerprint to which an unknown input has been added never matches, so its output is never up-to-date.
+   */
+  public static final class Fingerprint {
+
+    private static final Pattern TEMPLATE_IMPORT = Pattern.compile("[\\[<]#(?:import|include)\\s+(?:\"([^\"]*)\"|'([^']*)')");
+
+    private final BuildState state;
+    private final MessageDigest digest = newDigest();
+    private boolean unknown = false;
+    private String value;
+
+    private Fingerprint(BuildState state) {
+      this.state = state;
+    }
+
+    /**
+     * Add a string to the fingerprint.
+     *
+     * @param input The string, or null for an unknown input.
+     * @return This fingerprint.
+     */
+    public Fingerprint add(String input) {
+      if (input == null) {
+        return addUnknown();
+      }
+
+      try {
+        update(input.getBytes("utf-8"));
+      }
+      catch (UnsupportedEncodingException e) {
+        throw new IllegalStateException(e);
+      }
+      return this;
+    }
+
+    /**
+     * Add some strings to the fingerprint. The strings are added in the order they're iterated.
+     *
+     * @param inputs The strings.
+     * @return This fingerprint.
+     */
+    public Fingerprint add(Collection<String> inputs) {
+      if (inputs == null) {
+        return add((String) null);
+      }
+
+      add(String.valueOf(inputs.size()));
+      for (String input : inputs) {
+        add(input);
+      }
+      return this;
+    }
+
+    /**
+     * Add the contents of a file to the fingerprint. A file that doesn't exist (or can't be read) is an unknown input.
+     *
+     * @param input The file.
+     * @return This fingerprint.
+     */
+    public Fingerprint add(File input) {
+      try {
+        return input != null && input.isFile() ? add(this.state.hash(input)) : addUnknown();
+      }
+      catch (IOException e) {
+        return addUnknown();
+      }
+    }
+
+    /**
+     * Add the contents of a resource (e.g. a template) to the fingerprint. A resource that doesn't exist (or can't be
+     * read) is an unknown input.
+     *
+     * @param input The resource.
+     * @return This fingerprint.
+     */
+    public Fingerprint add(URL input) {
+      if (input == null) {
+        return addUnknown();
+      }
+
+      if ("file".equals(input.getProtocol())) {
+        try {
+          return add(new File(input.toURI()));
+        }
+        catch (Exception e) {
+          //fall through; read it as a stream.
+        }
+      }
+
+      try {
+        InputStream in = input.openStream();
+        try {
+          return add(hash(in));
+        }
+        finally {
+          in.close();
+        }
+      }
+      catch (IOException e) {
+        return addUnknown();
+      }
+    }
+
+    /**
+     * Add a FreeMarker template to the fingerprint, along with the templates it imports or includes, transitively. If a
+     * template is read from a jar, the contents of the jar are added too, so that a jar upgraded in place (e.g. a
+     * snapshot) is noticed. A template that doesn't exist (or can't be read), or that imports a template whose name is
+     * computed, is an unknown input.
+     *
+     * @param template The template.
+     * @return This fingerprint.
+     */
+    public Fingerprint addTemplate(URL template) {
+      return addTemplate(template, new HashSet<String>());
+    }
+
+    private Fingerprint addTemplate(URL template, Set<String> added) {
+      if (template == null) {
+        return addUnknown();
+      }
+      else if (!added.add(template.toString())) {
+        return this;
+      }
+
+      String content;
+      try {
+        if ("jar".equals(template.getProtocol())) {
+          add(((JarURLConnection) template.openConnection()).getJarFileURL());
+        }
+
+        InputStream in = template.openStream();
+        try {
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          byte[] buffer = new byte[8192];
+          int len;
+          while ((len = in.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, len);
+          }
+          update(bytes.toByteArray());
+          content = bytes.toString("utf-8");
+        }
+        finally {
+          in.close();
+        }
+      }
+      catch (IOException e) {
+        return addUnknown();
+      }
+
+      Matcher imports = TEMPLATE_IMPORT.matcher(content);
+      while (imports.find()) {
+        String name = imports.group(1) != null ? imports.group(1) : imports.group(2);
+        if (name.contains("${")) {
+          addUnknown();
+        }
+        else {
+          try {
+            //relative names are resolved against the importing template, as the URL template loader does.
+            addTemplate(new URL(template, name), added);
+          }
+          catch (MalformedURLException e) {
+            addUnknown();
+          }
+        }
+      }
+      return this;
+    }
+
+    /**
+     * Add an unknown input to the fingerprint, so that it never matches.
+     *
+     * @return This fingerprint.
+     */
+    public Fingerprint addUnknown() {
+      synchronized (this.digest) {
+        this.unknown = true;
+      }
+      return this;
+    }
+
+    private void update(byte[] bytes) {
+      synchronized (this.digest) {
+        if (this.value != null) {
+          throw new IllegalStateException("The fingerprint has already been computed.");
+        }
+
+        //each input is length-prefixed so the boundaries between inputs are part of the fingerprint.
+        int length = bytes.length;
+        this.digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        this.digest.update(bytes);
+      }
+    }
+
+    /**
+     * The value of the fingerprint. No more inputs can be added once the value has been computed.
+     *
+     * @return The value of the fingerprint, or null if any of its inputs are unknown.
+     */
+    public String getValue() {
+      synchronized (this.digest) {
+        if (this.unknown) {
+          return null;
+        }
+
+        if (this.value == null) {
+          this.value = toHex(this.digest.digest());
+        }
+        return this.value;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(getValue());
+    }
+  }
+}
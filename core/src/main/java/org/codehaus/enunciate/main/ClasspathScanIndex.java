@@ -0,0 +1,439 @@
+package org.codehaus.enunciate.main;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An index of the jars on the classpath that have been scanned, so that a jar that hasn't changed since the last scan
+ * doesn't have to be opened and walked again. For each jar, the index records the names of its entries and the
+ * contents of the small entries that the {@link ClasspathHandler classpath handlers} typically read (package-info
+ * files, GWT module files and everything under META-INF, e.g. META-INF/enunciate/api-exports). The scan of an indexed
+ * jar is then replayed to the handlers from the index, and the jar is only opened if a handler reads an entry whose
+ * contents aren't in the index (e.g. a source file).
+ * <p/>
+ * A jar is identified by its path, size and last-modified time. If only the last-modified time changed, a hash of the
+ * contents of the jar is used to tell whether the index entry can still be used. Jars can be {@link #scan scanned}
+ * concurrently, and their scans then replayed to the handlers in classpath order.
+ *
+ * @author Ryan Heaton
+ */
+public class ClasspathScanIndex {
+
+  private static final int MAGIC = 0x454E4349;
+  private static final short VERSION = 1;
+
+  /**
+   * The maximum size of an entry whose contents are kept in the index.
+   */
+  private static final int MAX_INDEXED_CONTENT_SIZE = 64 * 1024;
+
+  private final Map<String, IndexedJar> jars = new HashMap<String, IndexedJar>();
+  private final Set<String> used = new HashSet<String>();
+  private boolean modified = false;
+
+  /**
+   * Load the index from the specified file. An index that can't be read is treated as empty.
+   *
+   * @param file The file.
+   * @return The index.
+   */
+  public static ClasspathScanIndex load(File file) {
+    ClasspathScanIndex index = new ClasspathScanIndex();
+    if (file.isFile()) {
+      try {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+        try {
+          index.read(in);
+        }
+        finally {
+          in.close();
+        }
+      }
+      catch (IOException e) {
+        //fall through; we'll just rescan.
+        index.jars.clear();
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Whether the index has been modified since it was loaded (i.e. whether it needs to be stored).
+   *
+   * @return Whether the index has been modified.
+   */
+  public boolean isModified() {
+    return modified || used.size() != jars.size();
+  }
+
+  /**
+   * Store the index to the specified file. Only the jars that were looked up or recorded since the index was loaded are
+   * stored, so jars that are no longer on the classpath drop out of the index.
+   *
+   * @param file The file.
+   */
+  public void store(File file) throws IOException {
+    file.getParentFile().mkdirs();
+    File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))));
+    try {
+      write(out);
+    }
+    finally {
+      out.close();
+    }
+
+    //replace the old index in one step, so a partially-written index is never read.
+    if (!tempFile.renameTo(file)) {
+      file.delete();
+      if (!tempFile.renameTo(file)) {
+        tempFile.delete();
+        throw new IOException("Unable to write " + file);
+      }
+    }
+    this.modified = false;
+  }
+
+  /**
+   * Look up the indexed scan of the specified jar.
+   *
+   * @param jar The jar.
+   * @return The indexed scan, or null if the jar isn't indexed or has changed since it was indexed.
+   */
+  public IndexedJar lookup(File jar) throws IOException {
+    String path = jar.getAbsolutePath();
+    IndexedJar indexed = this.jars.get(path);
+    if (indexed == null || indexed.size != jar.length()) {
+      return null;
+    }
+
+    if (indexed.lastModified != jar.lastModified()) {
+      if (indexed.hash == null || !indexed.hash.equals(hash(jar))) {
+        return null;
+      }
+
+      //same contents, just touched.
+      indexed.lastModified = jar.lastModified();
+      this.modified = true;
+    }
+
+    this.used.add(path);
+    return indexed;
+  }
+
+  /**
+   * Add the scan of a jar to the index.
+   *
+   * @param jar The scan of the jar.
+   */
+  public void add(IndexedJar jar) {
+    this.jars.put(jar.path, jar);
+    this.used.add(jar.path);
+    this.modified = true;
+  }
+
+  /**
+   * Scan the specified jar, reading the names of its entries and the contents of the entries that are
+   * {@link #isContentIndexed(String, long) indexed}. The SDK runtime isn't scanned. This doesn't touch the index, so
+   * jars can be scanned concurrently.
+   *
+   * @param jar The jar.
+   * @param hash Whether to hash the contents of the jar (needed if the scan is to be stored).
+   * @return The scan of the jar.
+   * @throws IOException If the file isn't a jar or couldn't be read.
+   */
+  public static IndexedJar scan(File jar, boolean hash) throws IOException {
+    long size = jar.length();
+    long lastModified = jar.lastModified();
+    JarFile jarFile = new JarFile(jar);
+    try {
+      boolean runtime = false;
+      Manifest manifest = jarFile.getManifest();
+      if (manifest != null && manifest.getMainAttributes() != null) {
+        String specTitle = manifest.getMainAttributes().getValue(Attributes.Name.SPECIFICATION_TITLE);
+        runtime = "Java Platform API Specification".equalsIgnoreCase(String.valueOf(specTitle).trim());
+      }
+
+      IndexedJar indexed = new IndexedJar(jar.getAbsolutePath(), size, lastModified, hash ? hash(jar) : null, runtime);
+      if (!runtime) {
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+          JarEntry entry = entries.nextElement();
+          byte[] content = null;
+          if (isContentIndexed(entry.getName(), entry.getSize())) {
+            InputStream in = jarFile.getInputStream(entry);
+            try {
+              content = readFully(in);
+            }
+            finally {
+              in.close();
+            }
+          }
+          indexed.addEntry(entry.getName(), content);
+        }
+      }
+      return indexed;
+    }
+    finally {
+      jarFile.close();
+    }
+  }
+
+  /**
+   * Whether the contents of the specified entry are kept in the index.
+   *
+   * @param name The name of the entry.
+   * @param size The size of the entry (-1 if unknown).
+   * @return Whether the contents of the entry are kept in the index.
+   */
+  public static boolean isContentIndexed(String name, long size) {
+    return size >= 0 && size <= MAX_INDEXED_CONTENT_SIZE && !name.endsWith("/")
+      && (name.startsWith("META-INF/") || name.endsWith("package-info.class") || name.endsWith("package-info.java") || name.endsWith(".gwt.xml"));
+  }
+
+  private void read(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+      throw new IOException("Unsupported classpath scan index.");
+    }
+
+    int jarCount = in.readInt();
+    for (int i = 0; i < jarCount; i++) {
+      IndexedJar jar = new IndexedJar(in.readUTF(), in.readLong(), in.readLong(), in.readUTF(), in.readBoolean());
+      int entryCount = in.readInt();
+      for (int j = 0; j < entryCount; j++) {
+        String name = in.readUTF();
+        byte[] content = null;
+        int length = in.readInt();
+        if (length >= 0) {
+          content = new byte[length];
+          in.readFully(content);
+        }
+        jar.addEntry(name, content);
+      }
+      this.jars.put(jar.path, jar);
+    }
+  }
+
+  private void write(DataOutputStream out) throws IOException {
+    List<IndexedJar> jars = new ArrayList<IndexedJar>();
+    for (IndexedJar jar : this.jars.values()) {
+      if (this.used.contains(jar.path)) {
+        jars.add(jar);
+      }
+    }
+
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+    out.writeInt(jars.size());
+    for (IndexedJar jar : jars) {
+      out.writeUTF(jar.path);
+      out.writeLong(jar.size);
+      out.writeLong(jar.lastModified);
+      out.writeUTF(jar.hash == null ? "" : jar.hash);
+      out.writeBoolean(jar.runtime);
+      out.writeInt(jar.names.size());
+      for (int i = 0; i < jar.names.size(); i++) {
+        out.writeUTF(jar.names.get(i));
+        byte[] content = jar.contents.get(i);
+        if (content == null) {
+          out.writeInt(-1);
+        }
+        else {
+          out.writeInt(content.length);
+          out.write(content);
+        }
+      }
+    }
+  }
+
+  /**
+   * Read the specified stream fully.
+   *
+   * @param in The stream.
+   * @return The bytes.
+   */
+  static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int len;
+    while ((len = in.read(buffer)) >= 0) {
+      bytes.write(buffer, 0, len);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static String hash(File file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[8192];
+      int len;
+      while ((len = in.read(buffer)) >= 0) {
+        digest.update(buffer, 0, len);
+      }
+    }
+    finally {
+      in.close();
+    }
+
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * The indexed scan of a jar.
+   */
+  public static final class IndexedJar {
+
+    private final String path;
+    private final long size;
+    private long lastModified;
+    private final String hash;
+    private final boolean runtime;
+    private final List<String> names = new ArrayList<String>();
+    private final List<byte[]> contents = new ArrayList<byte[]>();
+
+    private IndexedJar(String path, long size, long lastModified, String hash, boolean runtime) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.runtime = runtime;
+    }
+
+    /**
+     * Whether the jar is the SDK runtime (and therefore isn't scanned).
+     *
+     * @return Whether the jar is the SDK runtime.
+     */
+    public boolean isRuntime() {
+      return runtime;
+    }
+
+    /**
+     * Add an entry of the jar.
+     *
+     * @param name The name of the entry.
+     * @param content The contents of the entry, or null if they're not indexed.
+     */
+    void addEntry(String name, byte[] content) {
+      this.names.add(name);
+      this.contents.add(content);
+    }
+
+    /**
+     * Replay the scan of the jar to the specified handlers.
+     *
+     * @param jar The jar.
+     * @param handlers The handlers.
+     * @return Whether any of the handlers asked for the sources of the jar to be looked up.
+     */
+    public boolean replay(File jar, Collection<ClasspathHandler> handlers) throws IOException {
+      LazyJarFile jarFile = new LazyJarFile(jar);
+      try {
+        for (ClasspathHandler handler : handlers) {
+          handler.startPathEntry(jar);
+        }
+
+        for (int i = 0; i < this.names.size(); i++) {
+          IndexedClasspathResource resource = new IndexedClasspathResource(jarFile, this.names.get(i), this.contents.get(i));
+          for (ClasspathHandler handler : handlers) {
+            handler.handleResource(resource);
+          }
+        }
+
+        //the jar stays open (if it was opened) until the handlers are ended, since they might read resources then.
+        boolean lookupSourceEntry = false;
+        for (ClasspathHandler handler : handlers) {
+          lookupSourceEntry |= handler.endPathEntry(jar);
+        }
+        return lookupSourceEntry;
+      }
+      finally {
+        jarFile.close();
+      }
+    }
+  }
+
+  /**
+   * A resource of a jar as recorded in the index. Its contents are read from the index if they were indexed, otherwise
+   * from the jar.
+   */
+  static final class IndexedClasspathResource extends JarClasspathResource {
+
+    private final LazyJarFile jarFile;
+    private final String path;
+    private final byte[] content;
+
+    IndexedClasspathResource(LazyJarFile jarFile, String path, byte[] content) {
+      super(null, null);
+      this.jarFile = jarFile;
+      this.path = path;
+      this.content = content;
+    }
+
+    @Override
+    public String getPath() {
+      return this.path;
+    }
+
+    @Override
+    public InputStream read() throws IOException {
+      if (this.content != null) {
+        return new ByteArrayInputStream(this.content);
+      }
+
+      JarFile jarFile = this.jarFile.open();
+      JarEntry entry = jarFile.getJarEntry(this.path);
+      if (entry == null) {
+        throw new FileNotFoundException(this.path + " not found in " + this.jarFile.file);
+      }
+      return jarFile.getInputStream(entry);
+    }
+  }
+
+  /**
+   * A jar file that's only opened if it's needed.
+   */
+  static final class LazyJarFile {
+
+    private final File file;
+    private JarFile jarFile;
+
+    LazyJarFile(File file) {
+      this.file = file;
+    }
+
+    JarFile open() throws IOException {
+      if (this.jarFile == null) {
+        this.jarFile = new JarFile(this.file);
+      }
+      return this.jarFile;
+    }
+
+    void close() throws IOException {
+      if (this.jarFile != null) {
+        this.jarFile.close();
+        this.jarFile = null;
+      }
+    }
+  }
+}
@@ -35,10 +35,7 @@ import java.net.URI;
 import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.util.*;
-import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.jar.Manifest;
+import java.util.concurrent.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -80,6 +77,8 @@ public class Enunciate {
   private boolean debug = false;
   private boolean javacCheck = false;
   private boolean compileDebugInfo = true;
+  private boolean compileIncrementally = false;
+  private int moduleThreads = 1;
   private String encoding;
 
   private File configFile;
@@ -100,6 +99,10 @@ public class Enunciate {
   private final Set<WebAppFragment> webAppFragments = new TreeSet<WebAppFragment>(new WebAppFragmentComparator());
   private final List<ClasspathHandler> classpathHandlers = new ArrayList<ClasspathHandler>();
   private final List<String> configuredJavacArguments = new ArrayList<String>();
+  private BuildState buildState;
+  private String inputsFingerprint;
+  private InProcessJavac inProcessJavac;
+  private boolean inProcessJavacCreated = false;
 
   public static void main(String[] args) throws Exception {
     Main.main(args);
@@ -188,6 +191,14 @@ public class Enunciate {
       deploymentModule.close();
     }
 
+    synchronized (this) {
+      if (this.inProcessJavac != null) {
+        this.inProcessJavac.close();
+        this.inProcessJavac = null;
+        this.inProcessJavacCreated = false;
+      }
+    }
+
     HashSet<String> exportedArtifacts = new HashSet<String>();
     for (Artifact artifact : artifacts) {
       String artifactId = artifact.getId();
@@ -229,19 +240,7 @@ public class Enunciate {
         "(BTW, if you don't specify a package output directory, a suitable temp directory wil be created for you.)");
     }
 
-    for (DeploymentModule deploymentModule : this.config.getAllModules()) {
-      if (!deploymentModule.isDisabled()) {
-        debug("Invoking %s step for module %s", Target.PACKAGE, deploymentModule.getName());
-        if (deploymentModule instanceof FacetAware) {
-          setupFacetFilter((FacetAware) deploymentModule);
-        }
-        deploymentModule.step(Target.PACKAGE);
-        FacetFilter.clear();
-      }
-      else {
-        debug("Not invoking %s step for module %s (module is disabled).", Target.PACKAGE, deploymentModule.getName());
-      }
-    }
+    stepModules(Target.PACKAGE);
   }
 
   /**
@@ -260,19 +259,7 @@ public class Enunciate {
         "(BTW, if you don't specify a build output directory, a suitable temp directory wil be created for you.)");
     }
 
-    for (DeploymentModule deploymentModule : this.config.getAllModules()) {
-      if (!deploymentModule.isDisabled()) {
-        debug("Invoking %s step for module %s", Target.BUILD, deploymentModule.getName());
-        if (deploymentModule instanceof FacetAware) {
-          setupFacetFilter((FacetAware) deploymentModule);
-        }
-        deploymentModule.step(Target.BUILD);
-        FacetFilter.clear();
-      }
-      else {
-        debug("Not invoking %s step for module %s (module is disabled).", Target.BUILD, deploymentModule.getName());
-      }
-    }
+    stepModules(Target.BUILD);
   }
 
   /**
@@ -291,21 +278,50 @@ public class Enunciate {
         "(BTW, if you don't specify a compile output directory, a suitable temp directory wil be created for you.)");
     }
 
+    stepModules(Target.COMPILE);
+  }
+
+  /**
+   * Step the enabled modules to the specified target, in parallel if there's more than one {@link #getModuleThreads() module thread}.
+   *
+   * @param target The target.
+   */
+  protected void stepModules(Target target) throws IOException, EnunciateException {
+    if (getModuleThreads() > 1) {
+      new ParallelModuleStepper(this, target, getModuleThreads()).step(this.config.getAllModules());
+      return;
+    }
+
     for (DeploymentModule deploymentModule : this.config.getAllModules()) {
       if (!deploymentModule.isDisabled()) {
-        debug("Invoking %s step for module %s", Target.COMPILE, deploymentModule.getName());
-        if (deploymentModule instanceof FacetAware) {
-          setupFacetFilter((FacetAware) deploymentModule);
-        }
-        deploymentModule.step(Target.COMPILE);
-        FacetFilter.clear();
+        stepModule(deploymentModule, target);
       }
       else {
-        debug("Not invoking %s step for module %s (module is disabled).", Target.COMPILE, deploymentModule.getName());
+        debug("Not invoking %s step for module %s (module is disabled).", target, deploymentModule.getName());
       }
     }
   }
 
+  /**
+   * Step a module to the specified target, with the facet filter of the module set up on the current thread.
+   *
+   * @param deploymentModule The module.
+   * @param target The target.
+   */
+  protected void stepModule(DeploymentModule deploymentModule, Target target) throws IOException, EnunciateException {
+    debug("Invoking %s step for module %s", target, deploymentModule.getName());
+    if (deploymentModule instanceof FacetAware) {
+      setupFacetFilter((FacetAware) deploymentModule);
+    }
+
+    try {
+      deploymentModule.step(target);
+    }
+    finally {
+      FacetFilter.clear();
+    }
+  }
+
   public void setupFacetFilter(FacetAware facetAware) {
     Set<String> includes = new TreeSet<String>();
     if (getConfig() != null) {
@@ -383,6 +399,8 @@ public class Enunciate {
       sourceFiles.add(packageInfoFile.getAbsolutePath());
     }
 
+    this.inputsFingerprint = fingerprintInputs(sourceFiles, importClasses);
+
     if (sourceFiles.isEmpty()) {
       //no source files (all imports are on the classpath).  Since APT requires at least one, we'll write it out ourselves....
       File tempSource = createTempFile("EnunciateMockClass", ".java");
@@ -397,10 +415,171 @@ public class Enunciate {
   }
 
   /**
-   * Scans the Enunciate classpath, handling each entry according to each {@link ClasspathHandler}.
+   * Fingerprint the inputs of the model: the source files, the classes imported from the classpath, the classpath, the
+   * configuration and the version of Enunciate.
+   *
+   * @param sourceFiles The source files.
+   * @param importClasses The classes imported without their sources.
+   * @return The fingerprint, or null if the source files couldn't be read.
+   */
+  protected String fingerprintInputs(List<String> sourceFiles, List<String> importClasses) {
+    BuildState state = getBuildState();
+    Set<String> projectSources = new HashSet<String>(Arrays.asList(getSourceFiles()));
+    List<String> sourceHashes = new ArrayList<String>();
+    try {
+      for (String sourceFile : sourceFiles) {
+        File file = new File(sourceFile);
+        if (projectSources.contains(sourceFile)) {
+          sourceHashes.add(state.hash(file));
+        }
+        else {
+          //extracted to a temp directory; not worth keeping in the build state.
+          InputStream in = new FileInputStream(file);
+          try {
+            sourceHashes.add(BuildState.hash(in));
+          }
+          finally {
+            in.close();
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      debug("Unable to fingerprint the source files: %s", e.getMessage());
+      return null;
+    }
+
+    //the temp paths of the extracted sources change from run to run, so only their contents count.
+    Collections.sort(sourceHashes);
+    BuildState.Fingerprint fingerprint = state.newFingerprint();
+    fingerprint.add(getVersion());
+    fingerprint.add(sourceHashes);
+    fingerprint.add(new TreeSet<String>(importClasses));
+    fingerprint.add(getEnunciateRuntimeClasspath());
+    if (this.configFile != null) {
+      fingerprint.add(this.configFile);
+    }
+    if (this.config != null) {
+      fingerprint.add(new TreeSet<String>(this.config.getFacetIncludes()));
+      fingerprint.add(new TreeSet<String>(this.config.getFacetExcludes()));
+    }
+    return fingerprint.getValue();
+  }
+
+  /**
+   * Start a fingerprint of the inputs of an output of the specified module. The fingerprint includes the inputs of the
+   * model (source files, imported classes, classpath and configuration) and the facets of the module. The module adds
+   * whatever else its output depends on (e.g. its templates) before checking whether the output is
+   * {@link #isUpToDateWithInputs(File, BuildState.Fingerprint) up-to-date}. Until the generate step has fingerprinted
+   * the inputs of the model, no output is up-to-date.
+   *
+   * @param module The module.
+   * @return The fingerprint.
+   */
+  public BuildState.Fingerprint newFingerprint(DeploymentModule module) {
+    BuildState.Fingerprint fingerprint = getBuildState().newFingerprint();
+    fingerprint.add(this.inputsFingerprint);
+    fingerprint.add(module.getName());
+    if (module instanceof FacetAware) {
+      fingerprint.add(new TreeSet<String>(((FacetAware) module).getFacetIncludes()));
+      fingerprint.add(new TreeSet<String>(((FacetAware) module).getFacetExcludes()));
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Whether the specified output was last produced from inputs with the specified fingerprint. Unlike
+   * {@link #isUpToDateWithSources(File)}, this doesn't compare timestamps, so touching a source file doesn't invalidate
+   * the output, and the output directory isn't walked.
+   *
+   * @param destFile The output (file or directory).
+   * @param inputs The fingerprint of the inputs of the output.
+   * @return Whether the output is up-to-date.
+   * @see #setUpToDateWithInputs(File, BuildState.Fingerprint)
+   */
+  public boolean isUpToDateWithInputs(File destFile, BuildState.Fingerprint inputs) {
+    if (destFile == null) {
+      return false;
+    }
+    else if (getBuildState().isUpToDate(destFile, inputs)) {
+      debug("%s is up-to-date because its inputs haven't changed since it was produced.", destFile);
+      return true;
+    }
+    else {
+      debug("%s is NOT up-to-date because it doesn't exist or its inputs have changed since it was produced.", destFile);
+      return false;
+    }
+  }
+
+  /**
+   * Record that the specified output has been produced from inputs with the specified fingerprint.
+   *
+   * @param destFile The output (file or directory).
+   * @param inputs The fingerprint of the inputs of the output.
+   * @see #isUpToDateWithInputs(File, BuildState.Fingerprint)
+   */
+  public void setUpToDateWithInputs(File destFile, BuildState.Fingerprint inputs) {
+    if (destFile != null) {
+      getBuildState().setUpToDate(destFile, inputs);
+    }
+  }
+
+  /**
+   * The build state, loaded from the {@link #getBuildStateFile() build state file} if there is one.
+   *
+   * @return The build state.
+   */
+  protected synchronized BuildState getBuildState() {
+    if (this.buildState == null) {
+      File stateFile = getBuildStateFile();
+      this.buildState = stateFile == null ? new BuildState() : BuildState.load(stateFile);
+    }
+    return this.buildState;
+  }
+
+  /**
+   * The file in which to keep the build state between runs. Default is a file in the build directory, or null (the
+   * state isn't kept) if there's no build directory.
+   *
+   * @return The file in which to keep the build state, or null if the state isn't to be kept.
+   */
+  protected File getBuildStateFile() {
+    File buildDir = getBuildDir();
+    return buildDir == null ? null : new File(buildDir, ".build-state");
+  }
+
+  /**
+   * Store the build state, if it's been modified.
+   */
+  protected void storeBuildState() {
+    BuildState state;
+    synchronized (this) {
+      state = this.buildState;
+    }
+
+    File stateFile = getBuildStateFile();
+    if (state != null && stateFile != null && state.isModified()) {
+      try {
+        state.store(stateFile);
+      }
+      catch (IOException e) {
+        warn("Unable to store the build state %s: %s", stateFile, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Scans the Enunciate classpath, handling each entry according to each {@link ClasspathHandler}. The jars on the
+   * classpath are read concurrently, then their scans are replayed to the handlers one entry at a time in classpath
+   * order. If there's a {@link #getClasspathScanIndexFile() classpath scan index}, the jars that haven't changed since
+   * they were indexed aren't read at all.
    */
   protected void scanClasspath(final Collection<ClasspathHandler> classpathHandlers) throws IOException {
+    File indexFile = getClasspathScanIndexFile();
+    ClasspathScanIndex index = indexFile == null ? new ClasspathScanIndex() : ClasspathScanIndex.load(indexFile);
+
     LinkedList<String> classpathToScan = new LinkedList<String>(Arrays.asList(getEnunciateRuntimeClasspath().split(File.pathSeparator)));
+    Map<File, Future<ClasspathScanIndex.IndexedJar>> jarScans = scanJars(classpathToScan, index, indexFile != null);
     while (!classpathToScan.isEmpty()) {
       String pathItem = classpathToScan.removeFirst();
       final File pathFile = new File(pathItem);
@@ -428,39 +607,36 @@ public class Enunciate {
         }
         else {
           //assume it's a jar file.
-          JarFile jarFile;
-          try {
-            jarFile = new JarFile(pathFile);
-          }
-          catch (IOException e) {
-            warn("%s doesn't appear to be a jar file, so it will be ignored on the classpath.", pathFile);
-            continue;
-          }
-
-          Manifest manifest = jarFile.getManifest();
-          if (manifest != null && manifest.getMainAttributes() != null) {
-            String specTitle = manifest.getMainAttributes().getValue(Attributes.Name.SPECIFICATION_TITLE);
-            if ("Java Platform API Specification".equalsIgnoreCase(String.valueOf(specTitle).trim())) {
-              debug("Not going to scan %s as it appears to be the SDK runtime.", pathFile);
+          ClasspathScanIndex.IndexedJar jar = index.lookup(pathFile);
+          if (jar == null) {
+            try {
+              Future<ClasspathScanIndex.IndexedJar> jarScan = jarScans.remove(pathFile);
+              jar = jarScan != null ? jarScan.get() : ClasspathScanIndex.scan(pathFile, indexFile != null);
+            }
+            catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new InterruptedIOException("Interrupted while scanning " + pathFile);
+            }
+            catch (ExecutionException e) {
+              warn("%s doesn't appear to be a jar file, so it will be ignored on the classpath.", pathFile);
+              continue;
+            }
+            catch (IOException e) {
+              warn("%s doesn't appear to be a jar file, so it will be ignored on the classpath.", pathFile);
               continue;
             }
+            index.add(jar);
           }
-
-          for (ClasspathHandler handler : classpathHandlers) {
-            handler.startPathEntry(pathFile);
+          else {
+            debug("Replaying the scan of %s from the classpath scan index.", pathFile);
           }
 
-          Enumeration<JarEntry> entries = jarFile.entries();
-          while (entries.hasMoreElements()) {
-            JarClasspathResource entry = new JarClasspathResource(jarFile, entries.nextElement());
-            for (ClasspathHandler handler : classpathHandlers) {
-              handler.handleResource(entry);
-            }
+          if (jar.isRuntime()) {
+            debug("Not going to scan %s as it appears to be the SDK runtime.", pathFile);
+            continue;
           }
 
-          for (ClasspathHandler handler : classpathHandlers) {
-            lookupSourceEntry |= handler.endPathEntry(pathFile);
-          }
+          lookupSourceEntry = jar.replay(pathFile, classpathHandlers);
         }
 
         if (lookupSourceEntry) {
@@ -474,6 +650,79 @@ public class Enunciate {
         debug("Classpath entry %s cannot be scanned because it doesn't exist on the filesystem.", pathItem);
       }
     }
+
+    if (indexFile != null && index.isModified()) {
+      try {
+        index.store(indexFile);
+      }
+      catch (IOException e) {
+        warn("Unable to store the classpath scan index %s: %s", indexFile, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Start reading the jars on the classpath that aren't in the index, on the {@link #getClasspathScanThreads() classpath scan threads}.
+   *
+   * @param classpath The classpath.
+   * @param index The classpath scan index.
+   * @param hash Whether to hash the jars (for storing in the index).
+   * @return The (future) scans of the jars that aren't in the index.
+   */
+  private Map<File, Future<ClasspathScanIndex.IndexedJar>> scanJars(List<String> classpath, ClasspathScanIndex index, final boolean hash) {
+    Map<File, Future<ClasspathScanIndex.IndexedJar>> jarScans = new HashMap<File, Future<ClasspathScanIndex.IndexedJar>>();
+    int threads = getClasspathScanThreads();
+    if (threads <= 1) {
+      return jarScans;
+    }
+
+    ExecutorService executor = null;
+    for (String pathItem : classpath) {
+      final File pathFile = new File(pathItem);
+      if (pathFile.isFile() && !jarScans.containsKey(pathFile) && index.lookup(pathFile) == null) {
+        if (executor == null) {
+          executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "enunciate-classpath-scan");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+        }
+
+        jarScans.put(pathFile, executor.submit(new Callable<ClasspathScanIndex.IndexedJar>() {
+          public ClasspathScanIndex.IndexedJar call() throws Exception {
+            return ClasspathScanIndex.scan(pathFile, hash);
+          }
+        }));
+      }
+    }
+
+    if (executor != null) {
+      //no more tasks; the threads go away when the submitted scans are done.
+      executor.shutdown();
+    }
+    return jarScans;
+  }
+
+  /**
+   * The number of threads on which to read the jars on the classpath. Default is the number of available processors.
+   *
+   * @return The number of threads on which to read the jars on the classpath.
+   */
+  protected int getClasspathScanThreads() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * The file in which to keep the index of the scanned classpath, so that unchanged jars don't have to be scanned
+   * again. Default is a file in the build directory, or null (no index) if there's no build directory.
+   *
+   * @return The file in which to keep the index of the scanned classpath, or null for no index.
+   */
+  protected File getClasspathScanIndexFile() {
+    File buildDir = getBuildDir();
+    return buildDir == null ? null : new File(buildDir, ".classpath-scan-index");
   }
 
   /**
@@ -856,7 +1105,9 @@ public class Enunciate {
   }
 
   /**
-   * Invokes javac on the specified source files.
+   * Invokes javac on the specified source files. If there's a system Java compiler, the sources are compiled in-process
+   * and, if {@link #isCompileIncrementally() compiling incrementally}, only the sources that changed since the last
+   * compile to the same directory are compiled. Otherwise, Javac is invoked on all of them.
    *
    * @param classpath      The classpath.
    * @param version        The Java version to compile to.
@@ -870,49 +1121,89 @@ public class Enunciate {
       return;
     }
 
-    List<String> args = new ArrayList<String>();
-
-    args.add("-cp");
-    args.add(classpath);
+    List<String> options = new ArrayList<String>();
 
-    args.add("-source");
-    args.add(version);
-    args.add("-target");
-    args.add(version);
+    options.add("-source");
+    options.add(version);
+    options.add("-target");
+    options.add(version);
 
     if (isCompileDebugInfo()) {
-      args.add("-g");
+      options.add("-g");
     }
 
     if (isDebug()) {
-      args.add("-verbose");
+      options.add("-verbose");
     }
 
     if (getEncoding() != null) {
-    	args.add("-encoding");
-      args.add(getEncoding());
+      options.add("-encoding");
+      options.add(getEncoding());
     }
-    
-    args.add("-d");
-    args.add(compileDir.getAbsolutePath());
-    args.addAll(additionalArgs);
-    args.addAll(this.configuredJavacArguments);
-    args.addAll(Arrays.asList(sourceFiles));
 
-    if (isDebug()) {
-      StringBuilder message = new StringBuilder("Invoking Javac with arguments:");
-      for (String arg : args) {
-        message.append(' ');
-        message.append(arg);
+    options.addAll(additionalArgs);
+    options.addAll(this.configuredJavacArguments);
+
+    compileDir.mkdirs();
+    long start = System.currentTimeMillis();
+    int compiled = sourceFiles.length;
+    InProcessJavac javac = getInProcessJavac();
+    boolean inProcess = false;
+    if (javac != null) {
+      if (isDebug()) {
+        debug("Invoking in-process Javac with classpath %s, compile directory %s and options %s.", classpath, compileDir, options);
+      }
+
+      try {
+        compiled = javac.compile(classpath, compileDir, options, sourceFiles, isCompileIncrementally());
+        inProcess = true;
+      }
+      catch (IllegalArgumentException e) {
+        warn("Unable to compile in-process (%s); invoking Javac instead.", e.getMessage());
       }
-      debug(message.toString());
     }
 
-    compileDir.mkdirs();
-    int procCode = com.sun.tools.javac.Main.compile(args.toArray(new String[args.size()]));
-    if (procCode != 0) {
-      throw new EnunciateException("compile failed.");
+    if (!inProcess) {
+      List<String> args = new ArrayList<String>();
+      args.add("-cp");
+      args.add(classpath);
+      args.add("-d");
+      args.add(compileDir.getAbsolutePath());
+      args.addAll(options);
+      args.addAll(Arrays.asList(sourceFiles));
+
+      if (isDebug()) {
+        StringBuilder message = new StringBuilder("Invoking Javac with arguments:");
+        for (String arg : args) {
+          message.append(' ');
+          message.append(arg);
+        }
+        debug(message.toString());
+      }
+
+      int procCode = com.sun.tools.javac.Main.compile(args.toArray(new String[args.size()]));
+      if (procCode != 0) {
+        throw new EnunciateException("compile failed.");
+      }
     }
+
+    info("Compiled %s of %s source files to %s in %s ms.", compiled, sourceFiles.length, compileDir, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * The in-process compiler, shared by all the compiles.
+   *
+   * @return The in-process compiler, or null if there's no system Java compiler.
+   */
+  synchronized InProcessJavac getInProcessJavac() {
+    if (!this.inProcessJavacCreated) {
+      this.inProcessJavac = InProcessJavac.create(this);
+      this.inProcessJavacCreated = true;
+      if (this.inProcessJavac == null) {
+        debug("No system Java compiler is available; Javac will be invoked for each compile.");
+      }
+    }
+    return this.inProcessJavac;
   }
 
   /**
@@ -1382,6 +1673,45 @@ public class Enunciate {
     this.compileDebugInfo = compileDebugInfo;
   }
 
+  /**
+   * Whether to compile incrementally, i.e. to only compile the sources that changed since the last compile to the
+   * same directory. Everything is still recompiled when the signatures declared by a changed source change. Only applies
+   * when compiling in-process. Off by default.
+   *
+   * @return Whether to compile incrementally.
+   */
+  public boolean isCompileIncrementally() {
+    return compileIncrementally;
+  }
+
+  /**
+   * Whether to compile incrementally.
+   *
+   * @param compileIncrementally Whether to compile incrementally.
+   */
+  public void setCompileIncrementally(boolean compileIncrementally) {
+    this.compileIncrementally = compileIncrementally;
+  }
+
+  /**
+   * The number of threads on which to step the modules in the compile, build and package steps.
+   *
+   * @return The number of threads on which to step the modules.
+   */
+  public int getModuleThreads() {
+    return moduleThreads;
+  }
+
+  /**
+   * The number of threads on which to step the modules in the compile, build and package steps. If more than one, the
+   * steps of {@link org.codehaus.enunciate.modules.DependencyAwareModule dependency-aware} modules are run concurrently.
+   *
+   * @param moduleThreads The number of threads on which to step the modules.
+   */
+  public void setModuleThreads(int moduleThreads) {
+    this.moduleThreads = moduleThreads;
+  }
+
   /**
    * The enunciate config file.
    *
@@ -1553,7 +1883,9 @@ public class Enunciate {
    * @param value    The value.
    */
   public void setProperty(String property, Object value) {
-    this.properties.put(property, value);
+    synchronized (this.properties) {
+      this.properties.put(property, value);
+    }
   }
 
   /**
@@ -1562,7 +1894,10 @@ public class Enunciate {
    * @return The artifacts exportable by enunciate.
    */
   public Set<Artifact> getArtifacts() {
-    return Collections.unmodifiableSet(artifacts);
+    //a copy, since modules may be adding artifacts concurrently.
+    synchronized (this.artifacts) {
+      return Collections.unmodifiableSet(new TreeSet<Artifact>(this.artifacts));
+    }
   }
 
   /**
@@ -1573,9 +1908,11 @@ public class Enunciate {
    */
   public Artifact findArtifact(String artifactId) {
     if (artifactId != null) {
-      for (Artifact artifact : artifacts) {
-        if (artifactId.equals(artifact.getId()) || artifact.getAliases().contains(artifactId)) {
-          return artifact;
+      synchronized (this.artifacts) {
+        for (Artifact artifact : artifacts) {
+          if (artifactId.equals(artifact.getId()) || artifact.getAliases().contains(artifactId)) {
+            return artifact;
+          }
         }
       }
     }
@@ -1591,7 +1928,9 @@ public class Enunciate {
    */
   public boolean addArtifact(Artifact artifact) {
     debug("Artifact %s added for module %s.", artifact.getId(), artifact.getModule());
-    return this.artifacts.add(artifact);
+    synchronized (this.artifacts) {
+      return this.artifacts.add(artifact);
+    }
   }
 
   /**
@@ -1600,7 +1939,9 @@ public class Enunciate {
    * @param fragment The fragment.
    */
   public void addWebAppFragment(WebAppFragment fragment) {
-    this.webAppFragments.add(fragment);
+    synchronized (this.webAppFragments) {
+      this.webAppFragments.add(fragment);
+    }
   }
 
   /**
@@ -1618,7 +1959,11 @@ public class Enunciate {
    * @return The webapp fragments.
    */
   public Set<WebAppFragment> getWebAppFragments() {
-    return Collections.unmodifiableSet(webAppFragments);
+    synchronized (this.webAppFragments) {
+      TreeSet<WebAppFragment> webAppFragments = new TreeSet<WebAppFragment>(new WebAppFragmentComparator());
+      webAppFragments.addAll(this.webAppFragments);
+      return Collections.unmodifiableSet(webAppFragments);
+    }
   }
 
   /**
@@ -1657,7 +2002,9 @@ public class Enunciate {
    * @return The property value.
    */
   public Object getProperty(String property) {
-    return this.properties.get(property);
+    synchronized (this.properties) {
+      return this.properties.get(property);
+    }
   }
 
   /**
@@ -1789,6 +2136,9 @@ public class Enunciate {
           throw new IllegalStateException("Unknown next step: " + this.nextTarget);
       }
 
+      //the outputs recorded as up-to-date are only kept once the whole step has succeeded.
+      storeBuildState();
+
     }
 
     /**
@@ -47,6 +47,7 @@ public class EnunciateTask extends MatchingTask {
   private boolean verbose = false;
   private boolean debug = false;
   private boolean compileDebugInfo = true;
+  private boolean compileIncrementally = false;
   private File configFile;
   private File basedir;
   private Path classpath;
@@ -155,6 +156,7 @@ public class EnunciateTask extends MatchingTask {
         proxy.getConfiguredJavacArguments().add(javacArgument.getArgument());
       }
 
+      proxy.setCompileIncrementally(compileIncrementally);
       proxy.setVerbose(verbose);
       proxy.setDebug(debug);
       proxy.execute();
@@ -305,6 +307,24 @@ public class EnunciateTask extends MatchingTask {
     this.compileDebugInfo = compileDebugInfo;
   }
 
+  /**
+   * Whether to compile incrementally.
+   *
+   * @return Whether to compile incrementally.
+   */
+  public boolean isCompileIncrementally() {
+    return compileIncrementally;
+  }
+
+  /**
+   * Whether to compile incrementally, i.e. to only compile the sources that changed since the last compile.
+   *
+   * @param compileIncrementally Whether to compile incrementally.
+   */
+  public void setCompileIncrementally(boolean compileIncrementally) {
+    this.compileIncrementally = compileIncrementally;
+  }
+
   /**
    * The classpath to use to enunciate.
    *
@@ -24,6 +24,15 @@ public class FileClasspathResource implements ClasspathResource {
     return this.path;
   }
 
+  /**
+   * The file of the classpath entry.
+   *
+   * @return The file of the classpath entry.
+   */
+  public File getFile() {
+    return this.file;
+  }
+
   public InputStream read() throws IOException {
     return new FileInputStream(this.file);
   }
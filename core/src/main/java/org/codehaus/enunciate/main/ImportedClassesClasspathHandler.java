@@ -6,6 +6,9 @@ import org.codehaus.enunciate.modules.DeploymentModule;
 import org.codehaus.enunciate.util.AntPatternMatcher;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -22,6 +25,7 @@ public class ImportedClassesClasspathHandler implements ClasspathHandler {
 
   private File currentEntry;
   private Map<String, File> currentEntryClassesToSources;
+  private Map<String, ClasspathResource> currentEntrySources;
   private boolean classesImportedFromCurrentEntry;
 
   public ImportedClassesClasspathHandler(Enunciate enunciate) throws IOException {
@@ -36,6 +40,7 @@ public class ImportedClassesClasspathHandler implements ClasspathHandler {
   public void startPathEntry(File pathEntry) {
     this.currentEntry = pathEntry;
     this.currentEntryClassesToSources = new HashMap<String, File>();
+    this.currentEntrySources = new HashMap<String, ClasspathResource>();
     this.classesImportedFromCurrentEntry = false;
   }
 
@@ -51,25 +56,11 @@ public class ImportedClassesClasspathHandler implements ClasspathHandler {
     else if (path.endsWith(".java")) {
       String classname = path.substring(0, path.length() - 5).replace('/', '.');
       if (!classname.endsWith(".package-info")) {
+        //the source is only extracted if the class is imported (see endPathEntry).
         File sourcesFile = new File(tempSourcesDir, path);
-        enunciate.debug("Noticed the source for class %s in %s, extracting to %s.", classname, currentEntry, sourcesFile);
-        try {
-          InputStream in = resource.read();
-          sourcesFile.getParentFile().mkdirs();
-          FileOutputStream out = new FileOutputStream(sourcesFile);
-          byte[] buffer = new byte[1024 * 2]; //2 kb buffer should suffice.
-          int len;
-          while ((len = in.read(buffer)) > 0) {
-            out.write(buffer, 0, len);
-          }
-          out.flush();
-          out.close();
-          in.close();
-          currentEntryClassesToSources.put(classname, sourcesFile);
-        }
-        catch (IOException e) {
-          enunciate.warn("Unable to extract source file %s (%s).", sourcesFile, e.getMessage());
-        }
+        enunciate.debug("Noticed the source for class %s in %s.", classname, currentEntry);
+        currentEntryClassesToSources.put(classname, sourcesFile);
+        currentEntrySources.put(classname, resource);
       }
     }
     else if ("META-INF/enunciate/api-exports".equals(path)) {
@@ -100,12 +91,76 @@ public class ImportedClassesClasspathHandler implements ClasspathHandler {
     }
 
     this.classesImportedFromCurrentEntry = copyImportedClasses(this.currentEntryClassesToSources, this.classesToSources) || this.classesImportedFromCurrentEntry;
+    extractImportedSources();
 
     this.currentEntry = null;
     this.currentEntryClassesToSources = null;
+    this.currentEntrySources = null;
     return this.classesImportedFromCurrentEntry;
   }
 
+  /**
+   * Extract the sources found in the current entry of the classes that were imported with their sources.
+   */
+  private void extractImportedSources() {
+    for (Map.Entry<String, ClasspathResource> source : this.currentEntrySources.entrySet()) {
+      String classname = source.getKey();
+      File sourcesFile = this.currentEntryClassesToSources.get(classname);
+      if (sourcesFile != null && sourcesFile.equals(this.classesToSources.get(classname))) {
+        enunciate.debug("Extracting the source for class %s from %s to %s.", classname, currentEntry, sourcesFile);
+        try {
+          extract(source.getValue(), sourcesFile);
+        }
+        catch (IOException e) {
+          enunciate.warn("Unable to extract source file %s (%s).", sourcesFile, e.getMessage());
+          this.classesToSources.put(classname, null);
+        }
+      }
+    }
+  }
+
+  /**
+   * Extract the specified resource to the specified file.
+   *
+   * @param resource The resource.
+   * @param file The file.
+   */
+  private void extract(ClasspathResource resource, File file) throws IOException {
+    file.getParentFile().mkdirs();
+    FileChannel out = new FileOutputStream(file).getChannel();
+    try {
+      if (resource instanceof FileClasspathResource) {
+        FileChannel in = new FileInputStream(((FileClasspathResource) resource).getFile()).getChannel();
+        try {
+          long size = in.size();
+          long position = 0;
+          while (position < size) {
+            position += in.transferTo(position, size - position, out);
+          }
+        }
+        finally {
+          in.close();
+        }
+      }
+      else {
+        ReadableByteChannel in = Channels.newChannel(resource.read());
+        try {
+          long position = 0;
+          long len;
+          while ((len = out.transferFrom(in, position, 8 * 1024)) > 0) {
+            position += len;
+          }
+        }
+        finally {
+          in.close();
+        }
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
   /**
    * Read the set of auto-imports from the input stream.
    *
@@ -0,0 +1,334 @@
+package org.codehaus.enunciate.main;
+
+import org.codehaus.enunciate.EnunciateException;
+
+import com.sun.source.tree.*;
+import com.sun.source.util.JavacTask;
+
+import javax.lang.model.element.Modifier;
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compiles Java sources in-process with the system {@link JavaCompiler}. One file manager is shared by all the
+ * compiles, so the jars on the classpath are opened and indexed once rather than once per module. The compiles are
+ * serialized, since the file manager isn't thread-safe.
+ * <p/>
+ * The hashes of the sources compiled to each compile directory are kept in the {@link BuildState build state}. When a
+ * directory is compiled to again with the same options, only the sources that changed are compiled, against the classes
+ * already in the directory. Since the classes compiled from the other sources may depend on anything a changed source
+ * declares (without naming it, even), everything is recompiled if the signatures declared by a changed source changed,
+ * i.e. its imports, its non-private types and members or its constants. Everything is also recompiled if a source was
+ * removed, the options or the classpath changed or the previous compile failed.
+ *
+ * @author Ryan Heaton
+ */
+class InProcessJavac {
+
+  /**
+   * The key of the options in the input hashes of a compile directory.
+   */
+  private static final String OPTIONS_KEY = "";
+
+  /**
+   * The prefix of the key of the signatures of a source in the input hashes of a compile directory.
+   */
+  private static final String SIGNATURES_KEY_PREFIX = "signatures:";
+
+  private final Enunciate enunciate;
+  private final JavaCompiler compiler;
+  private StandardJavaFileManager fileManager;
+
+  private InProcessJavac(Enunciate enunciate, JavaCompiler compiler) {
+    this.enunciate = enunciate;
+    this.compiler = compiler;
+  }
+
+  /**
+   * Create the in-process compiler.
+   *
+   * @param enunciate The enunciate mechanism.
+   * @return The in-process compiler, or null if there's no system Java compiler (e.g. running on a JRE).
+   */
+  static InProcessJavac create(Enunciate enunciate) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    return compiler == null ? null : new InProcessJavac(enunciate, compiler);
+  }
+
+  /**
+   * Compile the specified sources.
+   *
+   * @param classpath The classpath.
+   * @param compileDir The compile directory.
+   * @param options The compiler options, other than the classpath and the compile directory.
+   * @param sourceFiles The source files.
+   * @param incremental Whether to only compile the sources that changed since the last compile to the directory.
+   * @return The number of source files that were compiled.
+   * @throws EnunciateException If the compile fails.
+   * @throws IllegalArgumentException If the compiler doesn't support one of the options.
+   */
+  synchronized int compile(String classpath, File compileDir, List<String> options, String[] sourceFiles, boolean incremental) throws EnunciateException {
+    BuildState state = this.enunciate.getBuildState();
+    Map<String, String> hashes = new HashMap<String, String>();
+    try {
+      hashes.put(OPTIONS_KEY, fingerprintOptions(state, classpath, options));
+      for (String sourceFile : sourceFiles) {
+        hashes.put(new File(sourceFile).getAbsolutePath(), state.hash(new File(sourceFile)));
+      }
+    }
+    catch (IOException e) {
+      throw new EnunciateException("Unable to read source or classpath file: " + e.getMessage(), e);
+    }
+
+    Map<String, String> previous = incremental ? state.getInputHashes(compileDir) : null;
+    List<File> sources = new ArrayList<File>();
+    Map<String, String> signatures = null;
+    if (previous != null && hashes.keySet().containsAll(keysOfSources(previous)) && hashes.get(OPTIONS_KEY).equals(previous.get(OPTIONS_KEY))) {
+      for (String sourceFile : sourceFiles) {
+        File file = new File(sourceFile);
+        //new sources count as changed.
+        if (!hashes.get(file.getAbsolutePath()).equals(previous.get(file.getAbsolutePath()))) {
+          sources.add(file);
+        }
+      }
+
+      if (sources.isEmpty()) {
+        this.enunciate.debug("No sources compiled to %s have changed.", compileDir);
+        return 0;
+      }
+
+      signatures = hashSignatures(state, options, sources);
+      for (File source : sources) {
+        String key = SIGNATURES_KEY_PREFIX + source.getAbsolutePath();
+        if (previous.containsKey(source.getAbsolutePath()) && (previous.get(key) == null || !previous.get(key).equals(signatures.get(key)))) {
+          this.enunciate.debug("All the sources compiled to %s will be recompiled because the signatures declared in %s changed.", compileDir, source);
+          sources.clear();
+          signatures = null;
+          break;
+        }
+      }
+
+      if (signatures != null) {
+        //the unchanged sources keep their signatures.
+        for (String key : previous.keySet()) {
+          if (key.startsWith(SIGNATURES_KEY_PREFIX) && !signatures.containsKey(key) && hashes.containsKey(key.substring(SIGNATURES_KEY_PREFIX.length()))) {
+            signatures.put(key, previous.get(key));
+          }
+        }
+      }
+    }
+
+    if (sources.isEmpty()) {
+      for (String sourceFile : sourceFiles) {
+        sources.add(new File(sourceFile));
+      }
+    }
+
+    if (incremental) {
+      hashes.putAll(signatures != null ? signatures : hashSignatures(state, options, sources));
+    }
+
+    //forget the previous compile until this one succeeds.
+    state.setInputHashes(compileDir, null);
+
+    List<File> classpathFiles = new ArrayList<File>();
+    if (sources.size() < sourceFiles.length) {
+      //the unchanged sources are compiled against their previous output.
+      classpathFiles.add(compileDir);
+    }
+    for (String pathItem : classpath.split(File.pathSeparator)) {
+      if (pathItem.length() > 0) {
+        classpathFiles.add(new File(pathItem));
+      }
+    }
+
+    StandardJavaFileManager fileManager = getFileManager();
+    boolean success;
+    try {
+      fileManager.setLocation(StandardLocation.CLASS_PATH, classpathFiles);
+      fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(compileDir));
+      Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sources);
+      success = this.compiler.getTask(null, fileManager, null, options, null, units).call();
+    }
+    catch (IOException e) {
+      throw new EnunciateException(e);
+    }
+
+    if (!success) {
+      throw new EnunciateException("compile failed.");
+    }
+
+    state.setInputHashes(compileDir, hashes);
+    return sources.size();
+  }
+
+  /**
+   * The fingerprint of the classpath and the options of a compile. The jars on the classpath are fingerprinted by their
+   * contents and the directories by the path, size and last-modified time of each of their files, so a change to
+   * either recompiles everything.
+   *
+   * @param state The build state.
+   * @param classpath The classpath.
+   * @param options The options.
+   * @return The fingerprint.
+   */
+  private String fingerprintOptions(BuildState state, String classpath, List<String> options) throws IOException {
+    BuildState.Fingerprint fingerprint = state.newFingerprint().add(classpath).add(options);
+    for (String pathItem : classpath.split(File.pathSeparator)) {
+      if (pathItem.length() > 0) {
+        File entry = new File(pathItem);
+        if (entry.isFile()) {
+          fingerprint.add(state.hash(entry));
+        }
+        else if (entry.isDirectory()) {
+          addDirectory(fingerprint, entry, "");
+        }
+        else {
+          fingerprint.add("missing");
+        }
+      }
+    }
+    return fingerprint.getValue();
+  }
+
+  private void addDirectory(BuildState.Fingerprint fingerprint, File dir, String path) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    Arrays.sort(files);
+    for (File file : files) {
+      String filePath = path + "/" + file.getName();
+      if (file.isDirectory()) {
+        addDirectory(fingerprint, file, filePath);
+      }
+      else {
+        fingerprint.add(filePath + ":" + file.length() + ":" + file.lastModified());
+      }
+    }
+  }
+
+  /**
+   * The keys of the sources (and the options) in the specified input hashes.
+   *
+   * @param hashes The input hashes.
+   * @return The keys of the sources.
+   */
+  private Set<String> keysOfSources(Map<String, String> hashes) {
+    Set<String> keys = new HashSet<String>();
+    for (String key : hashes.keySet()) {
+      if (!key.startsWith(SIGNATURES_KEY_PREFIX)) {
+        keys.add(key);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * The hashes of the signatures declared by each of the specified sources, keyed by {@link #SIGNATURES_KEY_PREFIX} and
+   * the path of the source. The signatures of a source that can't be parsed aren't hashed, so it counts as changed.
+   *
+   * @param state The build state.
+   * @param options The compiler options.
+   * @param sources The sources.
+   * @return The hashes of the signatures.
+   */
+  private Map<String, String> hashSignatures(BuildState state, List<String> options, List<File> sources) {
+    Map<String, String> signatures = new HashMap<String, String>();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    Iterable<? extends CompilationUnitTree> units;
+    try {
+      JavacTask task = (JavacTask) this.compiler.getTask(null, getFileManager(), diagnostics, options, null, getFileManager().getJavaFileObjectsFromFiles(sources));
+      units = task.parse();
+    }
+    catch (IOException e) {
+      return signatures;
+    }
+
+    Set<JavaFileObject> unparseable = new HashSet<JavaFileObject>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        unparseable.add(diagnostic.getSource());
+      }
+    }
+
+    for (CompilationUnitTree unit : units) {
+      if (!unparseable.contains(unit.getSourceFile())) {
+        StringBuilder declared = new StringBuilder();
+        declared.append("package ").append(unit.getPackageName()).append(';');
+        for (ImportTree importTree : unit.getImports()) {
+          declared.append(importTree);
+        }
+        for (Tree type : unit.getTypeDecls()) {
+          if (type instanceof ClassTree) {
+            appendSignatures(declared, (ClassTree) type);
+          }
+        }
+        File source = new File(unit.getSourceFile().toUri());
+        signatures.put(SIGNATURES_KEY_PREFIX + source.getAbsolutePath(), state.newFingerprint().add(declared.toString()).getValue());
+      }
+    }
+    return signatures;
+  }
+
+  /**
+   * Append the signatures declared by a type, i.e. the type itself and its non-private members, with the values of its
+   * constants (which are inlined by the classes that refer to them).
+   *
+   * @param declared The signatures declared so far.
+   * @param type The type.
+   */
+  private void appendSignatures(StringBuilder declared, ClassTree type) {
+    if (type.getModifiers().getFlags().contains(Modifier.PRIVATE)) {
+      return;
+    }
+
+    boolean interfaceType = type.getKind() == Tree.Kind.INTERFACE || type.getKind() == Tree.Kind.ANNOTATION_TYPE;
+    declared.append(type.getModifiers()).append(type.getKind()).append(' ').append(type.getSimpleName()).append(type.getTypeParameters());
+    declared.append(" extends ").append(type.getExtendsClause()).append(" implements ").append(type.getImplementsClause()).append(" {");
+    for (Tree member : type.getMembers()) {
+      if (member instanceof ClassTree) {
+        appendSignatures(declared, (ClassTree) member);
+      }
+      else if (member instanceof MethodTree) {
+        MethodTree method = (MethodTree) member;
+        if (!method.getModifiers().getFlags().contains(Modifier.PRIVATE)) {
+          declared.append(method.getModifiers()).append(method.getTypeParameters()).append(method.getReturnType()).append(' ').append(method.getName());
+          declared.append(method.getParameters()).append(" throws ").append(method.getThrows()).append(" default ").append(method.getDefaultValue()).append(';');
+        }
+      }
+      else if (member instanceof VariableTree) {
+        VariableTree field = (VariableTree) member;
+        Set<Modifier> modifiers = field.getModifiers().getFlags();
+        if (!modifiers.contains(Modifier.PRIVATE)) {
+          declared.append(field.getModifiers()).append(field.getType()).append(' ').append(field.getName());
+          if ((interfaceType || modifiers.contains(Modifier.FINAL)) && field.getInitializer() != null) {
+            declared.append(" = ").append(field.getInitializer());
+          }
+          declared.append(';');
+        }
+      }
+    }
+    declared.append('}');
+  }
+
+  private StandardJavaFileManager getFileManager() {
+    if (this.fileManager == null) {
+      this.fileManager = this.compiler.getStandardFileManager(null, null, null);
+    }
+    return this.fileManager;
+  }
+
+  /**
+   * Close the shared file manager.
+   */
+  synchronized void close() throws IOException {
+    if (this.fileManager != null) {
+      this.fileManager.close();
+      this.fileManager = null;
+    }
+  }
+}
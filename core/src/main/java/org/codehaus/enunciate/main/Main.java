@@ -99,6 +99,7 @@ public class Main {
     verbose("v", "Print verbose output to the console."),
     debug("vv", "Print debug-level output to the console."),
     disableDebugInfo("xg", "Disable compilation with debug info."),
+    incrementalCompile("Xi", "Compile incrementally (only compile the sources that changed since the last compile)."),
     javacCheck("Xc", "Do a javac check before invoking Enunciate."),
     javacArguments("Xa", "argument", "Extra arguments to pass to javac.  May be repeated."),
     configFile("f", "file", "The enunciate xml config file."),
@@ -108,6 +109,7 @@ public class Main {
     packageDir("p", "dir", "The output directory for the \"package\" step."),
     classpath("cp", "path", "The classpath to use (defaults to the system classpath)."),
     target("t", "target", "The target step (defaults to \"package\"). Possible values: \"generate\", \"compile\", \"build\", \"package\"."),
+    moduleThreads("mt", "threads", "The number of threads on which to step the modules (defaults to 1)."),
     export("E[artifactId]", "file or dir", "The file (or directory) to which to export the artifact identified by [artifactId]");
 
     private final String id;
@@ -203,6 +205,9 @@ public class Main {
         case disableDebugInfo:
           enunciate.setCompileDebugInfo(false);
           return true;
+        case incrementalCompile:
+          enunciate.setCompileIncrementally(true);
+          return true;
         default:
           return false;
       }
@@ -288,6 +293,15 @@ public class Main {
           }
           return true;
 
+        case moduleThreads:
+          try {
+            enunciate.setModuleThreads(Integer.parseInt(value));
+          }
+          catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal number of module threads: " + value);
+          }
+          return true;
+
         case export:
           if (!option.startsWith("E")) {
             return false;
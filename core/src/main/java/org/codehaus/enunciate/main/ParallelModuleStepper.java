@@ -0,0 +1,294 @@
+package org.codehaus.enunciate.main;
+
+import org.codehaus.enunciate.EnunciateException;
+import org.codehaus.enunciate.modules.BasicDeploymentModule;
+import org.codehaus.enunciate.modules.DependencyAwareModule;
+import org.codehaus.enunciate.modules.DeploymentModule;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Steps the deployment modules to a target on a bounded pool of threads. The steps of consecutive
+ * {@link DependencyAwareModule dependency-aware} modules are run concurrently, each as soon as the steps it depends on
+ * have finished. Any other module is stepped by itself on the calling thread, after all the modules before it and
+ * before any of the modules after it. Modules that don't implement the step at all (e.g. a module that only generates)
+ * are skipped, so they don't hold up the modules around them.
+ *
+ * @author Ryan Heaton
+ */
+class ParallelModuleStepper {
+
+  private final Enunciate enunciate;
+  private final Enunciate.Target target;
+  private final int threads;
+
+  ParallelModuleStepper(Enunciate enunciate, Enunciate.Target target, int threads) {
+    this.enunciate = enunciate;
+    this.target = target;
+    this.threads = threads;
+  }
+
+  /**
+   * Step the specified modules.
+   *
+   * @param modules The modules, in order.
+   */
+  void step(Collection<DeploymentModule> modules) throws EnunciateException, IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(this.threads, new ModuleThreadFactory(this.target));
+    try {
+      List<DeploymentModule> previous = new ArrayList<DeploymentModule>();
+      Map<DeploymentModule, Set<String>> concurrent = new LinkedHashMap<DeploymentModule, Set<String>>();
+      for (DeploymentModule module : modules) {
+        Set<String> dependencies = module instanceof DependencyAwareModule ? ((DependencyAwareModule) module).getStepDependencies(this.target) : null;
+        if (module.isDisabled()) {
+          this.enunciate.debug("Not invoking %s step for module %s (module is disabled).", this.target, module.getName());
+        }
+        else if (!implementsStep(module, this.target)) {
+          //a no-op step doesn't need to hold up the modules around it.
+          this.enunciate.debug("Not invoking %s step for module %s (module doesn't implement it).", this.target, module.getName());
+        }
+        else if (dependencies == null) {
+          stepConcurrently(concurrent, previous, executor);
+          concurrent.clear();
+          this.enunciate.stepModule(module, this.target);
+        }
+        else {
+          concurrent.put(module, dependencies);
+          continue;
+        }
+
+        previous.add(module);
+      }
+
+      stepConcurrently(concurrent, previous, executor);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Step the specified modules concurrently.
+   *
+   * @param modules The modules to step, in order, with their declared dependencies.
+   * @param previous The modules before them, which have already been stepped.
+   * @param executor The executor.
+   */
+  private void stepConcurrently(Map<DeploymentModule, Set<String>> modules, List<DeploymentModule> previous, ExecutorService executor) throws EnunciateException, IOException {
+    if (modules.isEmpty()) {
+      return;
+    }
+    else if (modules.size() == 1) {
+      DeploymentModule module = modules.keySet().iterator().next();
+      this.enunciate.stepModule(module, this.target);
+      previous.add(module);
+      return;
+    }
+
+    //resolve the dependencies before anything's stepped, so the artifacts are the ones from the previous steps.
+    Map<DeploymentModule, Set<DeploymentModule>> pending = new LinkedHashMap<DeploymentModule, Set<DeploymentModule>>();
+    List<DeploymentModule> before = new ArrayList<DeploymentModule>();
+    for (Map.Entry<DeploymentModule, Set<String>> entry : modules.entrySet()) {
+      DeploymentModule module = entry.getKey();
+      Set<DeploymentModule> waitFor = new HashSet<DeploymentModule>();
+      for (String dependency : entry.getValue()) {
+        DeploymentModule resolved = resolve(dependency, before, previous);
+        if (resolved == null) {
+          this.enunciate.debug("Unable to resolve dependency %s of module %s to a module before it; the %s step will wait for all modules before it.", dependency, module.getName(), this.target);
+          waitFor.addAll(before);
+          break;
+        }
+        else if (before.contains(resolved)) {
+          waitFor.add(resolved);
+        }
+      }
+      pending.put(module, waitFor);
+      before.add(module);
+    }
+
+    CompletionService<DeploymentModule> completion = new ExecutorCompletionService<DeploymentModule>(executor);
+    Set<DeploymentModule> finished = new HashSet<DeploymentModule>();
+    Throwable failure = null;
+    int running = 0;
+    while (true) {
+      if (failure == null) {
+        Iterator<Map.Entry<DeploymentModule, Set<DeploymentModule>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+          Map.Entry<DeploymentModule, Set<DeploymentModule>> entry = it.next();
+          if (finished.containsAll(entry.getValue())) {
+            it.remove();
+            completion.submit(new ModuleStep(entry.getKey()));
+            running++;
+          }
+        }
+      }
+
+      if (running == 0) {
+        break;
+      }
+
+      try {
+        Future<DeploymentModule> step = completion.take();
+        running--;
+        try {
+          finished.add(step.get());
+        }
+        catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new EnunciateException("Interrupted while waiting for the " + this.target + " step of the modules.");
+      }
+    }
+
+    previous.addAll(modules.keySet());
+
+    if (failure instanceof EnunciateException) {
+      throw (EnunciateException) failure;
+    }
+    else if (failure instanceof IOException) {
+      throw (IOException) failure;
+    }
+    else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    else if (failure != null) {
+      throw new EnunciateException(failure);
+    }
+  }
+
+  /**
+   * Resolve a dependency to a module.
+   *
+   * @param dependency The dependency (module name or alias, or artifact id or alias).
+   * @param before The modules being stepped concurrently that are ordered before the dependent module.
+   * @param previous The modules that have already been stepped.
+   * @return The module, or null if the dependency couldn't be resolved to a module ordered before the dependent module.
+   */
+  private DeploymentModule resolve(String dependency, List<DeploymentModule> before, List<DeploymentModule> previous) {
+    DeploymentModule module = findModule(dependency, before);
+    if (module == null) {
+      module = findModule(dependency, previous);
+    }
+
+    if (module == null) {
+      Artifact artifact = this.enunciate.findArtifact(dependency);
+      if (artifact != null && artifact.getModule() != null) {
+        module = findModule(artifact.getModule(), before);
+        if (module == null) {
+          module = findModule(artifact.getModule(), previous);
+        }
+      }
+    }
+
+    return module;
+  }
+
+  /**
+   * Whether the specified module implements the step to the specified target. A {@link BasicDeploymentModule} that
+   * overrides neither {@link BasicDeploymentModule#step(Enunciate.Target) step} nor the method for the target (e.g.
+   * <code>doCompile</code>) doesn't; any other module is assumed to.
+   *
+   * @param module The module.
+   * @param target The target.
+   * @return Whether the module implements the step.
+   */
+  static boolean implementsStep(DeploymentModule module, Enunciate.Target target) {
+    if (!(module instanceof BasicDeploymentModule)) {
+      return true;
+    }
+
+    String stepMethod;
+    switch (target) {
+      case GENERATE:
+        stepMethod = "doGenerate";
+        break;
+      case COMPILE:
+        stepMethod = "doCompile";
+        break;
+      case BUILD:
+        stepMethod = "doBuild";
+        break;
+      case PACKAGE:
+        stepMethod = "doPackage";
+        break;
+      default:
+        return true;
+    }
+
+    for (Class<?> clazz = module.getClass(); clazz != BasicDeploymentModule.class; clazz = clazz.getSuperclass()) {
+      try {
+        clazz.getDeclaredMethod(stepMethod);
+        return true;
+      }
+      catch (NoSuchMethodException e) {
+        //fall through...
+      }
+
+      try {
+        clazz.getDeclaredMethod("step", Enunciate.Target.class);
+        return true;
+      }
+      catch (NoSuchMethodException e) {
+        //fall through...
+      }
+    }
+
+    return false;
+  }
+
+  private static DeploymentModule findModule(String name, List<DeploymentModule> modules) {
+    for (DeploymentModule module : modules) {
+      if (name.equals(module.getName()) || (module.getAliases() != null && module.getAliases().contains(name))) {
+        return module;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The step of a single module.
+   */
+  private final class ModuleStep implements Callable<DeploymentModule> {
+
+    private final DeploymentModule module;
+
+    private ModuleStep(DeploymentModule module) {
+      this.module = module;
+    }
+
+    public DeploymentModule call() throws Exception {
+      enunciate.stepModule(this.module, target);
+      return this.module;
+    }
+  }
+
+  /**
+   * Creates the (daemon) threads for the module steps.
+   */
+  private static final class ModuleThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private ModuleThreadFactory(Enunciate.Target target) {
+      this.prefix = "enunciate-" + target.toString().toLowerCase() + "-";
+    }
+
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, this.prefix + this.count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package org.codehaus.enunciate.modules;
+
+import org.codehaus.enunciate.main.Enunciate;
+
+import java.util.Set;
+
+/**
+ * A deployment module that declares what its steps depend on, so that its steps can be run concurrently with the steps
+ * of other modules when Enunciate is configured to {@link Enunciate#setModuleThreads(int) step modules in parallel}.
+ * Modules that don't implement this interface are always stepped by themselves, after the modules before them and
+ * before the modules after them.
+ *
+ * @author Ryan Heaton
+ */
+public interface DependencyAwareModule extends DeploymentModule {
+
+  /**
+   * The dependencies of the specified step of this module. Each dependency is either the name (or alias) of a module
+   * whose step must finish first, or the id (or alias) of an artifact this step consumes, in which case the step waits
+   * for the module that produced the artifact. Only modules ordered before this one can be dependencies; a dependency
+   * that can't be resolved to one of them makes the step wait for all of them.
+   *
+   * @param target The target being stepped to.
+   * @return The dependencies of the step, or null if the step can't be run concurrently with the steps of other modules.
+   */
+  Set<String> getStepDependencies(Enunciate.Target target);
+}
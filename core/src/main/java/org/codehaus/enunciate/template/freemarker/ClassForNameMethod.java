@@ -47,32 +47,41 @@ public class ClassForNameMethod implements TemplateMethodModelEx {
     TemplateModel from = (TemplateModel) list.get(0);
     Object unwrapped = BeansWrapper.getDefaultInstance().unwrap(from);
     if (unwrapped instanceof TypeDeclaration) {
-      TypeDeclaration typeDecl = (TypeDeclaration) unwrapped;
-      StringBuilder builder = new StringBuilder();
-      if (typeDecl.getPackage() != null) {
-        builder.append(typeDecl.getPackage().getQualifiedName());
-      }
-      LinkedList<String> innerClassStack = new LinkedList<String>();
-      innerClassStack.addFirst(typeDecl.getSimpleName());
-      while (typeDecl.getDeclaringType() != null) {
-        typeDecl = typeDecl.getDeclaringType();
-        innerClassStack.addFirst(typeDecl.getSimpleName());
-      }
-
-      builder.append('.');
-      Iterator<String> it = innerClassStack.iterator();
-      while (it.hasNext()) {
-        builder.append(it.next());
-        if (it.hasNext()) {
-          builder.append('$');
-        }
-      }
-      
-      return builder.toString();
+      return forName((TypeDeclaration) unwrapped);
     }
     else {
       throw new TemplateModelException("The ClassForNameMethod method must have a type definition as a parameter.");
     }
   }
 
+  /**
+   * The name of the specified type that can be loaded by Class.forName.
+   *
+   * @param typeDecl The type.
+   * @return The name.
+   */
+  public static String forName(TypeDeclaration typeDecl) {
+    StringBuilder builder = new StringBuilder();
+    if (typeDecl.getPackage() != null) {
+      builder.append(typeDecl.getPackage().getQualifiedName());
+    }
+    LinkedList<String> innerClassStack = new LinkedList<String>();
+    innerClassStack.addFirst(typeDecl.getSimpleName());
+    while (typeDecl.getDeclaringType() != null) {
+      typeDecl = typeDecl.getDeclaringType();
+      innerClassStack.addFirst(typeDecl.getSimpleName());
+    }
+
+    builder.append('.');
+    Iterator<String> it = innerClassStack.iterator();
+    while (it.hasNext()) {
+      builder.append(it.next());
+      if (it.hasNext()) {
+        builder.append('$');
+      }
+    }
+
+    return builder.toString();
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package org.codehaus.enunciate.main;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestBuildState extends TestCase {
+
+  /**
+   * tests the up-to-date checks against the fingerprints of the inputs.
+   */
+  public void testUpToDate() throws Exception {
+    File dir = File.createTempFile("enunciate", "");
+    dir.delete();
+    dir.mkdirs();
+    File source = new File(dir, "Source.java");
+    writeFile(source, "class Source {}");
+    File output = new File(dir, "output");
+    output.mkdirs();
+
+    BuildState state = new BuildState();
+    assertFalse(state.isUpToDate(output, state.newFingerprint().add(source).add("template")));
+
+    //an empty output directory isn't up-to-date.
+    state.setUpToDate(output, state.newFingerprint().add(source).add("template"));
+    assertFalse(state.isUpToDate(output, state.newFingerprint().add(source).add("template")));
+
+    writeFile(new File(output, "generated.xml"), "<generated/>");
+    state.setUpToDate(output, state.newFingerprint().add(source).add("template"));
+    assertTrue(state.isUpToDate(output, state.newFingerprint().add(source).add("template")));
+    assertFalse(state.isUpToDate(output, state.newFingerprint().add(source).add("other template")));
+
+    //a check that fails forgets the recorded fingerprint.
+    assertFalse(state.isUpToDate(output, state.newFingerprint().add(source).add("template")));
+    state.setUpToDate(output, state.newFingerprint().add(source).add("template"));
+
+    state.setInputHashes(output, Collections.singletonMap(source.getAbsolutePath(), state.hash(source)));
+
+    File stateFile = new File(dir, "state");
+    state.store(stateFile);
+    assertFalse(state.isModified());
+    state = BuildState.load(stateFile);
+    assertTrue(state.isUpToDate(output, state.newFingerprint().add(source).add("template")));
+    assertEquals(Collections.singletonMap(source.getAbsolutePath(), state.hash(source)), state.getInputHashes(output));
+    assertFalse(state.isModified());
+
+    //touching the source doesn't change the fingerprint.
+    source.setLastModified(source.lastModified() - 10000);
+    assertTrue(state.isUpToDate(output, state.newFingerprint().add(source).add("template")));
+
+    //changing it does.
+    writeFile(source, "class Source { int changed; }");
+    assertFalse(state.isUpToDate(output, state.newFingerprint().add(source).add("template")));
+  }
+
+  /**
+   * tests that a fingerprint with an unknown input is never up-to-date.
+   */
+  public void testUnknownInput() throws Exception {
+    File output = File.createTempFile("enunciate", ".xml");
+    BuildState state = new BuildState();
+    BuildState.Fingerprint inputs = state.newFingerprint().add("template").add(new File(output.getParentFile(), "nonexistent-" + System.nanoTime()));
+    assertNull(inputs.getValue());
+    state.setUpToDate(output, inputs);
+    assertFalse(state.isModified());
+    assertFalse(state.isUpToDate(output, inputs));
+  }
+
+  /**
+   * tests that the boundaries between inputs are part of the fingerprint.
+   */
+  public void testInputBoundaries() throws Exception {
+    BuildState state = new BuildState();
+    assertEquals(state.newFingerprint().add("ab").add("c").getValue(), state.newFingerprint().add("ab").add("c").getValue());
+    assertFalse(state.newFingerprint().add("ab").add("c").getValue().equals(state.newFingerprint().add("a").add("bc").getValue()));
+  }
+
+  /**
+   * tests that the templates imported by a template, and the jar it's read from, are part of the fingerprint.
+   */
+  public void testTemplates() throws Exception {
+    File dir = File.createTempFile("enunciate", "");
+    dir.delete();
+    dir.mkdirs();
+    File template = new File(dir, "api.fmt");
+    writeFile(template, "[#ftl]\n[#import \"lib.fmt\" as lib/]\n[@lib.write/]");
+    File lib = new File(dir, "lib.fmt");
+    writeFile(lib, "[#macro write]one[/#macro]");
+    File other = new File(dir, "other.fmt");
+    writeFile(other, "unrelated");
+
+    BuildState state = new BuildState();
+    String value = state.newFingerprint().addTemplate(template.toURI().toURL()).getValue();
+    assertNotNull(value);
+    writeFile(other, "still unrelated");
+    assertEquals(value, state.newFingerprint().addTemplate(template.toURI().toURL()).getValue());
+    writeFile(lib, "[#macro write]two[/#macro]");
+    assertFalse(value.equals(state.newFingerprint().addTemplate(template.toURI().toURL()).getValue()));
+
+    //an imported template that doesn't exist is unknown.
+    lib.delete();
+    assertNull(state.newFingerprint().addTemplate(template.toURI().toURL()).getValue());
+
+    File jar = new File(dir, "templates.jar");
+    writeJar(jar, "[#ftl]\n[#include 'lib.fmt']", "[#macro write]one[/#macro]", "1");
+    URL jarTemplate = new URL("jar:" + jar.toURI().toURL() + "!/api.fmt");
+    value = state.newFingerprint().addTemplate(jarTemplate).getValue();
+    assertNotNull(value);
+
+    //the same templates in an upgraded jar.
+    writeJar(jar, "[#ftl]\n[#include 'lib.fmt']", "[#macro write]one[/#macro]", "2");
+    jar.setLastModified(jar.lastModified() + 10000);
+    assertFalse(value.equals(state.newFingerprint().addTemplate(jarTemplate).getValue()));
+  }
+
+  /**
+   * tests that an unreadable state is treated as empty.
+   */
+  public void testCorruptState() throws Exception {
+    File stateFile = File.createTempFile("enunciate", ".state");
+    writeFile(stateFile, "not a build state");
+    BuildState state = BuildState.load(stateFile);
+    assertFalse(state.isModified());
+    assertFalse(state.isUpToDate(stateFile, state.newFingerprint().add("template")));
+  }
+
+  private void writeJar(File file, String template, String lib, String version) throws IOException {
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+    out.putNextEntry(new JarEntry("api.fmt"));
+    out.write(template.getBytes("utf-8"));
+    out.putNextEntry(new JarEntry("lib.fmt"));
+    out.write(lib.getBytes("utf-8"));
+    out.putNextEntry(new JarEntry("version.properties"));
+    out.write(("version=" + version).getBytes("utf-8"));
+    out.close();
+  }
+
+  private void writeFile(File file, String content) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(content.getBytes("utf-8"));
+    out.close();
+  }
+}
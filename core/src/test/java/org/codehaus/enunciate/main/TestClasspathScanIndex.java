@@ -0,0 +1,125 @@
+package org.codehaus.enunciate.main;
+
+import junit.framework.TestCase;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestClasspathScanIndex extends TestCase {
+
+  /**
+   * tests storing, loading and replaying the index.
+   */
+  public void testReplay() throws Exception {
+    File dir = File.createTempFile("enunciate", "");
+    dir.delete();
+    dir.mkdirs();
+    File jar = new File(dir, "test.jar");
+    writeJar(jar, "org/example/Sample.class", "bytecode", "org/example/Sample.java", "source", "META-INF/enunciate/api-exports", "org.example.Sample");
+
+    ClasspathScanIndex index = new ClasspathScanIndex();
+    assertNull(index.lookup(jar));
+    assertFalse(ClasspathScanIndex.isContentIndexed("org/example/Sample.class", 8));
+    assertFalse(ClasspathScanIndex.isContentIndexed("org/example/Sample.java", 6));
+    assertTrue(ClasspathScanIndex.isContentIndexed("META-INF/enunciate/api-exports", 18));
+    index.add(ClasspathScanIndex.scan(jar, true));
+    assertTrue(index.isModified());
+
+    File indexFile = new File(dir, "index");
+    index.store(indexFile);
+    assertFalse(index.isModified());
+
+    index = ClasspathScanIndex.load(indexFile);
+    ClasspathScanIndex.IndexedJar indexed = index.lookup(jar);
+    assertNotNull(indexed);
+    assertFalse(indexed.isRuntime());
+    assertFalse(index.isModified());
+
+    final Map<String, String> contents = new LinkedHashMap<String, String>();
+    final List<String> events = new ArrayList<String>();
+    boolean lookupSourceEntry = indexed.replay(jar, Arrays.<ClasspathHandler>asList(new ClasspathHandler() {
+      public void startPathEntry(File pathEntry) {
+        events.add("start");
+      }
+
+      public void handleResource(ClasspathResource resource) {
+        assertTrue(resource instanceof JarClasspathResource);
+        try {
+          String path = resource.getPath();
+          contents.put(path, path.endsWith(".class") ? null : new String(ClasspathScanIndex.readFully(resource.read()), "utf-8"));
+        }
+        catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+
+      public boolean endPathEntry(File pathEntry) {
+        events.add("end");
+        return true;
+      }
+    }));
+
+    assertTrue(lookupSourceEntry);
+    assertEquals(Arrays.asList("start", "end"), events);
+
+    assertEquals(Arrays.asList("org/example/Sample.class", "org/example/Sample.java", "META-INF/enunciate/api-exports"), new ArrayList<String>(contents.keySet()));
+    assertEquals("source", contents.get("org/example/Sample.java"));
+    assertEquals("org.example.Sample", contents.get("META-INF/enunciate/api-exports"));
+
+    //touching the jar doesn't invalidate the index.
+    jar.setLastModified(jar.lastModified() - 10000);
+    assertNotNull(index.lookup(jar));
+    assertTrue(index.isModified());
+
+    //changing it does.
+    writeJar(jar, "org/example/Sample.class", "changed bytecode");
+    assertNull(index.lookup(jar));
+  }
+
+  /**
+   * tests that a file that isn't a jar can't be scanned.
+   */
+  public void testScanNotAJar() throws Exception {
+    File notAJar = File.createTempFile("enunciate", ".jar");
+    FileOutputStream out = new FileOutputStream(notAJar);
+    out.write("not a jar".getBytes("utf-8"));
+    out.close();
+
+    try {
+      ClasspathScanIndex.scan(notAJar, false);
+      fail();
+    }
+    catch (IOException e) {
+      //fall through...
+    }
+  }
+
+  /**
+   * tests that an unreadable index is treated as empty.
+   */
+  public void testCorruptIndex() throws Exception {
+    File indexFile = File.createTempFile("enunciate", ".index");
+    FileOutputStream out = new FileOutputStream(indexFile);
+    out.write("not an index".getBytes("utf-8"));
+    out.close();
+
+    ClasspathScanIndex index = ClasspathScanIndex.load(indexFile);
+    assertNull(index.lookup(indexFile));
+    assertFalse(index.isModified());
+  }
+
+  private void writeJar(File jar, String... namesAndContents) throws IOException {
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    for (int i = 0; i < namesAndContents.length; i += 2) {
+      out.putNextEntry(new JarEntry(namesAndContents[i]));
+      out.write(namesAndContents[i + 1].getBytes("utf-8"));
+      out.closeEntry();
+    }
+    out.close();
+  }
+}
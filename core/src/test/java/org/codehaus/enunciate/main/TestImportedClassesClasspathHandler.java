@@ -93,6 +93,14 @@ public class TestImportedClassesClasspathHandler extends TestCase {
     assertFalse(classes2Import.containsKey("org.codehaus.enunciate.pckg2.SampleClassEight$SomeInner"));
     assertNotNull(classes2Import.get("org.codehaus.enunciate.pckg3.SampleClassNine"));
     assertFalse(classes2Import.containsKey("org.codehaus.enunciate.pckg3.SampleClassTen"));
+
+    //only the sources of the imported classes are extracted.
+    File fiveSource = classes2Import.get("org.codehaus.enunciate.pckg2.SampleClassFive");
+    assertTrue(fiveSource.exists());
+    assertFalse(new File(fiveSource.getParentFile(), "with/nested/pckg/SampleClassSix.java").exists());
+    File nineSource = classes2Import.get("org.codehaus.enunciate.pckg3.SampleClassNine");
+    assertTrue(nineSource.exists());
+    assertFalse(new File(nineSource.getParentFile(), "SampleClassTen.java").exists());
   }
 
   private void createClassFile(String classname, File dir) throws IOException {
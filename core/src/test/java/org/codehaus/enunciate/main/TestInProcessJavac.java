@@ -0,0 +1,214 @@
+package org.codehaus.enunciate.main;
+
+import junit.framework.TestCase;
+import org.codehaus.enunciate.EnunciateException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestInProcessJavac extends TestCase {
+
+  /**
+   * The last-modified time of the next file written, advanced on each write so each change is noticed even if the
+   * timestamp resolution is coarse.
+   */
+  private long nextLastModified = 1300000000000L;
+
+  /**
+   * tests that only the changed sources are recompiled, unless the signatures they declare changed.
+   */
+  public void testIncrementalCompile() throws Exception {
+    Enunciate enunciate = new Enunciate();
+    InProcessJavac javac = InProcessJavac.create(enunciate);
+    if (javac == null) {
+      //no system compiler; nothing to test.
+      return;
+    }
+
+    File sourceDir = enunciate.createTempDir();
+    File compileDir = enunciate.createTempDir();
+    File a = writeSource(sourceDir, "A", "public class A { public int value() { return 1; } }");
+    File b = writeSource(sourceDir, "B", "public class B { public int value() { return new A().value(); } }");
+    File c = writeSource(sourceDir, "C", "public class C { }");
+    List<String> options = newOptions();
+    String[] sources = {a.getAbsolutePath(), b.getAbsolutePath(), c.getAbsolutePath()};
+
+    try {
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+      assertTrue(new File(compileDir, "C.class").exists());
+      assertEquals(0, javac.compile("", compileDir, options, sources, true));
+
+      //a change to the body of A only recompiles A, against the previous output.
+      writeSource(sourceDir, "A", "public class A { public int value() { return 2; } private int other() { return 0; } }");
+      assertEquals(1, javac.compile("", compileDir, options, sources, true));
+
+      //a change to a signature declared by A recompiles everything.
+      writeSource(sourceDir, "A", "public class A { public int value() { return 2; } public int other() { return 0; } }");
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+
+      //so does a change to a constant.
+      writeSource(sourceDir, "C", "public class C { public static final int VALUE = 1; }");
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+      writeSource(sourceDir, "C", "public class C { public static final int VALUE = 2; }");
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+      writeSource(sourceDir, "C", "public class C { }");
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+
+      //a new source is compiled by itself.
+      File d = writeSource(sourceDir, "D", "public class D { }");
+      String[] moreSources = {a.getAbsolutePath(), b.getAbsolutePath(), c.getAbsolutePath(), d.getAbsolutePath()};
+      assertEquals(1, javac.compile("", compileDir, options, moreSources, true));
+
+      //a removed source recompiles everything.
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+
+      //so do different options.
+      options.add("-g");
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+
+      //a failed compile is forgotten.
+      writeSource(sourceDir, "C", "public class C { not java }");
+      try {
+        javac.compile("", compileDir, options, sources, true);
+        fail();
+      }
+      catch (EnunciateException e) {
+        //fall through...
+      }
+      writeSource(sourceDir, "C", "public class C { }");
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+
+      //not incrementally, everything's compiled.
+      assertEquals(3, javac.compile("", compileDir, options, sources, false));
+    }
+    finally {
+      javac.close();
+    }
+  }
+
+  /**
+   * tests that a source that uses a changed type without naming it is recompiled.
+   */
+  public void testUnnamedDependency() throws Exception {
+    Enunciate enunciate = new Enunciate();
+    InProcessJavac javac = InProcessJavac.create(enunciate);
+    if (javac == null) {
+      //no system compiler; nothing to test.
+      return;
+    }
+
+    File sourceDir = enunciate.createTempDir();
+    File compileDir = enunciate.createTempDir();
+    File a = writeSource(sourceDir, "A", "public class A { public int value() { return 1; } }");
+    File b = writeSource(sourceDir, "B", "public class B { public A getA() { return new A(); } }");
+    File c = writeSource(sourceDir, "C", "public class C { public int value() { return new B().getA().value(); } }");
+    List<String> options = newOptions();
+    String[] sources = {a.getAbsolutePath(), b.getAbsolutePath(), c.getAbsolutePath()};
+
+    try {
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+
+      //C doesn't name A, but has to be recompiled against its new signature.
+      writeSource(sourceDir, "A", "public class A { public String value() { return \"1\"; } }");
+      writeSource(sourceDir, "C", "public class C { public int value() { return new B().getA().value().length(); } }");
+      assertEquals(3, javac.compile("", compileDir, options, sources, true));
+
+      //and a change to A alone that C can't compile against fails the compile.
+      writeSource(sourceDir, "A", "public class A { public void value() { } }");
+      try {
+        javac.compile("", compileDir, options, sources, true);
+        fail();
+      }
+      catch (EnunciateException e) {
+        //fall through...
+      }
+    }
+    finally {
+      javac.close();
+    }
+  }
+
+  /**
+   * tests that a change to the classpath recompiles everything.
+   */
+  public void testClasspathChange() throws Exception {
+    Enunciate enunciate = new Enunciate();
+    InProcessJavac javac = InProcessJavac.create(enunciate);
+    if (javac == null) {
+      //no system compiler; nothing to test.
+      return;
+    }
+
+    File sourceDir = enunciate.createTempDir();
+    File compileDir = enunciate.createTempDir();
+    File libDir = enunciate.createTempDir();
+    File jar = new File(enunciate.createTempDir(), "lib.jar");
+    writeFile(new File(libDir, "lib.properties"), "version=1");
+    writeJar(jar, "version=1");
+    String classpath = libDir.getAbsolutePath() + File.pathSeparator + jar.getAbsolutePath();
+    File a = writeSource(sourceDir, "A", "public class A { }");
+    File b = writeSource(sourceDir, "B", "public class B { }");
+    List<String> options = newOptions();
+    String[] sources = {a.getAbsolutePath(), b.getAbsolutePath()};
+
+    try {
+      assertEquals(2, javac.compile(classpath, compileDir, options, sources, true));
+      assertEquals(0, javac.compile(classpath, compileDir, options, sources, true));
+
+      //a changed file in a classpath directory.
+      writeFile(new File(libDir, "lib.properties"), "version=2");
+      assertEquals(2, javac.compile(classpath, compileDir, options, sources, true));
+      assertEquals(0, javac.compile(classpath, compileDir, options, sources, true));
+
+      //a changed jar.
+      writeJar(jar, "version=2");
+      assertEquals(2, javac.compile(classpath, compileDir, options, sources, true));
+      assertEquals(0, javac.compile(classpath, compileDir, options, sources, true));
+    }
+    finally {
+      javac.close();
+    }
+  }
+
+  /**
+   * Compiler options for the version of the running JDK, which may not support older source levels.
+   *
+   * @return The compiler options.
+   */
+  private List<String> newOptions() {
+    String version = System.getProperty("java.specification.version");
+    return new ArrayList<String>(Arrays.asList("-source", version, "-target", version, "-nowarn"));
+  }
+
+  private File writeSource(File dir, String className, String source) throws IOException {
+    File file = new File(dir, className + ".java");
+    writeFile(file, source);
+    return file;
+  }
+
+  private void writeJar(File file, String content) throws IOException {
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+    out.putNextEntry(new JarEntry("lib.properties"));
+    out.write(content.getBytes("utf-8"));
+    out.close();
+    file.setLastModified(this.nextLastModified);
+    this.nextLastModified += 10000;
+  }
+
+  private void writeFile(File file, String content) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(content.getBytes("utf-8"));
+    out.close();
+    file.setLastModified(this.nextLastModified);
+    this.nextLastModified += 10000;
+  }
+}
@@ -0,0 +1,208 @@
+package org.codehaus.enunciate.main;
+
+import junit.framework.TestCase;
+import org.codehaus.enunciate.EnunciateException;
+import org.codehaus.enunciate.modules.BasicDeploymentModule;
+import org.codehaus.enunciate.modules.DependencyAwareModule;
+import org.codehaus.enunciate.modules.DeploymentModule;
+import org.codehaus.enunciate.modules.FacetAware;
+import org.codehaus.enunciate.util.FacetFilter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestParallelModuleStepper extends TestCase {
+
+  /**
+   * tests that dependencies are stepped first and that the non-dependency-aware modules are stepped by themselves.
+   */
+  public void testStepOrder() throws Exception {
+    List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    TestModule first = new TestModule("first", null, events);
+    TestModule a = new TestModule("a", Collections.<String>emptySet(), events);
+    TestModule b = new TestModule("b", Collections.singleton("a"), events);
+    TestModule c = new TestModule("c", Collections.<String>emptySet(), events);
+    TestModule last = new TestModule("last", null, events);
+
+    new ParallelModuleStepper(new Enunciate(), Enunciate.Target.COMPILE, 4).step(Arrays.<DeploymentModule>asList(first, a, b, c, last));
+
+    assertEquals(10, events.size());
+    assertEquals("start first", events.get(0));
+    assertEquals("end first", events.get(1));
+    assertTrue(events.indexOf("end a") < events.indexOf("start b"));
+    assertEquals("start last", events.get(8));
+    assertEquals("end last", events.get(9));
+    assertNotSame(Thread.currentThread(), a.thread);
+    assertSame(Thread.currentThread(), first.thread);
+    assertSame(Thread.currentThread(), last.thread);
+  }
+
+  /**
+   * tests that the facet filter is set up for each concurrent step.
+   */
+  public void testFacetFilterPerStep() throws Exception {
+    List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    TestModule a = new TestModule("a", Collections.<String>emptySet(), events);
+    a.facetIncludes.add("a-facet");
+    TestModule b = new TestModule("b", Collections.<String>emptySet(), events);
+
+    new ParallelModuleStepper(new Enunciate(), Enunciate.Target.BUILD, 2).step(Arrays.<DeploymentModule>asList(a, b));
+
+    assertNotNull(a.facetFilter);
+    assertNull(b.facetFilter);
+    assertNull(FacetFilter.get());
+  }
+
+  /**
+   * tests that a failed step fails the stepping and that its dependents aren't stepped.
+   */
+  public void testFailure() throws Exception {
+    List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    TestModule a = new TestModule("a", Collections.<String>emptySet(), events);
+    a.fail = true;
+    TestModule b = new TestModule("b", Collections.singleton("a"), events);
+    TestModule c = new TestModule("c", Collections.<String>emptySet(), events);
+
+    try {
+      new ParallelModuleStepper(new Enunciate(), Enunciate.Target.PACKAGE, 2).step(Arrays.<DeploymentModule>asList(a, b, c));
+      fail();
+    }
+    catch (EnunciateException e) {
+      //fall through...
+    }
+
+    assertFalse(events.contains("start b"));
+  }
+
+  /**
+   * tests that modules that don't implement a step don't keep the modules around them from being stepped concurrently
+   * (e.g. "c" between "amf" and "csharp" in the compile step).
+   */
+  public void testNoOpStepsAreSkipped() throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    CompilingModule amf = new CompilingModule("amf", barrier);
+    GeneratingModule c = new GeneratingModule("c");
+    CompilingModule csharp = new CompilingModule("csharp", barrier);
+
+    assertFalse(ParallelModuleStepper.implementsStep(c, Enunciate.Target.COMPILE));
+    assertTrue(ParallelModuleStepper.implementsStep(c, Enunciate.Target.GENERATE));
+    assertTrue(ParallelModuleStepper.implementsStep(amf, Enunciate.Target.COMPILE));
+    assertFalse(ParallelModuleStepper.implementsStep(amf, Enunciate.Target.PACKAGE));
+
+    //each compile waits for the other one, so this only finishes if they run at the same time.
+    new ParallelModuleStepper(new Enunciate(), Enunciate.Target.COMPILE, 2).step(Arrays.<DeploymentModule>asList(amf, c, csharp));
+
+    assertTrue(amf.compiled);
+    assertTrue(csharp.compiled);
+    assertFalse(c.generated);
+  }
+
+  private static class CompilingModule extends BasicDeploymentModule implements DependencyAwareModule {
+
+    private final String name;
+    private final CyclicBarrier barrier;
+    private volatile boolean compiled = false;
+
+    private CompilingModule(String name, CyclicBarrier barrier) {
+      this.name = name;
+      this.barrier = barrier;
+    }
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    public Set<String> getStepDependencies(Enunciate.Target target) {
+      return target == Enunciate.Target.COMPILE ? Collections.<String>emptySet() : null;
+    }
+
+    @Override
+    protected void doCompile() throws EnunciateException, IOException {
+      try {
+        this.barrier.await(10, TimeUnit.SECONDS);
+      }
+      catch (Exception e) {
+        throw new EnunciateException("Compile of " + this.name + " didn't run concurrently.", e);
+      }
+      this.compiled = true;
+    }
+  }
+
+  private static class GeneratingModule extends BasicDeploymentModule {
+
+    private final String name;
+    private boolean generated = false;
+
+    private GeneratingModule(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    @Override
+    protected void doGenerate() throws EnunciateException, IOException {
+      this.generated = true;
+    }
+  }
+
+  private static class TestModule extends BasicDeploymentModule implements DependencyAwareModule, FacetAware {
+
+    private final String name;
+    private final Set<String> dependencies;
+    private final List<String> events;
+    private final Set<String> facetIncludes = new TreeSet<String>();
+    private boolean fail = false;
+    private volatile Thread thread;
+    private volatile FacetFilter facetFilter;
+
+    private TestModule(String name, Set<String> dependencies, List<String> events) {
+      this.name = name;
+      this.dependencies = dependencies;
+      this.events = events;
+    }
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    public Set<String> getStepDependencies(Enunciate.Target target) {
+      return this.dependencies;
+    }
+
+    public Set<String> getFacetIncludes() {
+      return this.facetIncludes;
+    }
+
+    public Set<String> getFacetExcludes() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public void step(Enunciate.Target target) throws EnunciateException, IOException {
+      this.events.add("start " + this.name);
+      this.thread = Thread.currentThread();
+      this.facetFilter = FacetFilter.get();
+      try {
+        Thread.sleep(50);
+      }
+      catch (InterruptedException e) {
+        throw new EnunciateException(e);
+      }
+
+      if (this.fail) {
+        throw new EnunciateException("Step failed: " + this.name);
+      }
+      this.events.add("end " + this.name);
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.codehaus.enunciate.contract.jaxws.WebFault;
 import org.codehaus.enunciate.contract.jaxws.WebMethod;
 import org.codehaus.enunciate.contract.validation.Validator;
 import org.codehaus.enunciate.main.*;
+import org.codehaus.enunciate.modules.DependencyAwareModule;
 import org.codehaus.enunciate.modules.FacetAware;
 import org.codehaus.enunciate.modules.FreemarkerDeploymentModule;
 import org.codehaus.enunciate.modules.csharp.config.CSharpRuleSet;
@@ -97,7 +98,7 @@ import java.util.*;
  * @author Ryan Heaton
  * @docFileName module_csharp.html
  */
-public class CSharpDeploymentModule extends FreemarkerDeploymentModule implements FacetAware {
+public class CSharpDeploymentModule extends FreemarkerDeploymentModule implements FacetAware, DependencyAwareModule {
 
   private boolean require = false;
   private boolean disableCompile = true;
@@ -124,6 +125,17 @@ public class CSharpDeploymentModule extends FreemarkerDeploymentModule implement
     return "csharp";
   }
 
+  /**
+   * The C# compile only uses files generated by this module, so it can run concurrently with the other modules. The
+   * build step isn't run concurrently, since the library description it bundles is rendered from the shared model.
+   *
+   * @param target The target.
+   * @return No dependencies for the compile step, null otherwise.
+   */
+  public Set<String> getStepDependencies(Enunciate.Target target) {
+    return target == Enunciate.Target.COMPILE ? Collections.<String>emptySet() : null;
+  }
+
   @Override
   public void init(Enunciate enunciate) throws EnunciateException {
     super.init(enunciate);
@@ -261,7 +273,9 @@ public class CSharpDeploymentModule extends FreemarkerDeploymentModule implement
   @Override
   public void doFreemarkerGenerate() throws IOException, TemplateException {
     File genDir = getGenerateDir();
-    if (!enunciate.isUpToDateWithSources(genDir)) {
+    URL apiTemplate = isSingleFilePerClass() ? getTemplateURL("api-multiple-files.fmt") : getTemplateURL("api.fmt");
+    BuildState.Fingerprint inputs = enunciate.newFingerprint(this).addTemplate(apiTemplate);
+    if (!enunciate.isUpToDateWithInputs(genDir, inputs)) {
       EnunciateFreemarkerModel model = getModel();
       ClientPackageForMethod namespaceFor = new ClientPackageForMethod(this.packageToNamespaceConversions);
       namespaceFor.setUseClientNameConversions(true);
@@ -278,8 +292,8 @@ public class CSharpDeploymentModule extends FreemarkerDeploymentModule implement
       model.put("accessorOverridesAnother", new AccessorOverridesAnotherMethod());
 
       debug("Generating the C# client classes...");
-      URL apiTemplate = isSingleFilePerClass() ? getTemplateURL("api-multiple-files.fmt") : getTemplateURL("api.fmt");
       processTemplate(apiTemplate, model);
+      enunciate.setUpToDateWithInputs(genDir, inputs);
     }
     else {
       info("Skipping C# code generation because everything appears up-to-date.");
@@ -31,6 +31,7 @@ import org.codehaus.enunciate.apt.EnunciateFreemarkerModel;
 import org.codehaus.enunciate.config.SchemaInfo;
 import org.codehaus.enunciate.config.WsdlInfo;
 import org.codehaus.enunciate.main.Artifact;
+import org.codehaus.enunciate.main.BuildState;
 import org.codehaus.enunciate.main.Enunciate;
 import org.codehaus.enunciate.main.FileArtifact;
 import org.codehaus.enunciate.main.NamedArtifact;
@@ -726,7 +727,8 @@ public class DocumentationDeploymentModule extends FreemarkerDeploymentModule im
    * The generate logic builds the XML documentation structure for the enunciated API.
    */
   public void doFreemarkerGenerate() throws EnunciateException, IOException, TemplateException {
-    if (!getEnunciate().isUpToDateWithSources(getGenerateDir())) {
+    BuildState.Fingerprint inputs = getEnunciate().newFingerprint(this).addTemplate(getDocsTemplateURL());
+    if (!getEnunciate().isUpToDateWithInputs(getGenerateDir(), inputs)) {
       EnunciateFreemarkerModel model = getModel();
       if (this.splashPackage != null) {
         PackageDeclaration packageDeclaration = Context.getCurrentEnvironment().getPackage(this.splashPackage);
@@ -762,6 +764,7 @@ public class DocumentationDeploymentModule extends FreemarkerDeploymentModule im
       model.put("includeExampleJson", (forceExampleJson || (jacksonXcAvailable && isIncludeExampleJson())));
       model.put("generateExampleJson", new GenerateExampleJsonMethod(model));
       processTemplate(getDocsTemplateURL(), model);
+      getEnunciate().setUpToDateWithInputs(getGenerateDir(), inputs);
     }
     else {
       info("Skipping documentation source generation as everything appears up-to-date...");
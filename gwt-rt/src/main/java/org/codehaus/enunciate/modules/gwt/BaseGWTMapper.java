@@ -24,6 +24,8 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
 
 /**
  * Base implementation of an GWTMapper. If a custom mapper exists for a certain JAXB class, it is assumed to
@@ -37,7 +39,7 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
   private final Class<J> jaxbClass;
   private final Class<G> gwtClass;
   private final String[] properties;
-  private final PropertyDescriptor[][] jaxbProperties2gwtProperties;
+  private final PropertyPlan[] propertyPlans;
 
   /**
    * Construct a base GWT mapper.
@@ -54,7 +56,7 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
     }
 
     this.properties = properties;
-    this.jaxbProperties2gwtProperties = new PropertyDescriptor[this.properties.length][];
+    this.propertyPlans = new PropertyPlan[this.properties.length];
     for (int i = 0; i < properties.length; i++) {
       String property = properties[i];
       PropertyDescriptor jaxbProperty = findProperty(jaxbClass, property);
@@ -67,7 +69,7 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
         throw new IllegalStateException("Unknown property '" + property + "' on class " + gwtClass.getName() + ".");
       }
 
-      this.jaxbProperties2gwtProperties[i] = new PropertyDescriptor[]{jaxbProperty, gwtProperty};
+      this.propertyPlans[i] = new PropertyPlan(jaxbProperty, gwtProperty, findTypeAdapter(jaxbProperty), findXmlElement(jaxbProperty));
     }
   }
 
@@ -113,8 +115,9 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
       return null;
     }
 
-    if (context.getMappedObjects().containsKey(jaxbObject)) {
-      return (G) context.getMappedObjects().get(jaxbObject);
+    Object mapped = context.lookup(jaxbObject);
+    if (mapped != null) {
+      return (G) mapped;
     }
 
     G gwtObject;
@@ -126,13 +129,11 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
     }
 
     context.objectMapped(jaxbObject, gwtObject);
-    for (PropertyDescriptor[] pds : this.jaxbProperties2gwtProperties) {
-      PropertyDescriptor jaxbProperty = pds[0];
-      PropertyDescriptor gwtProperty = pds[1];
-      Method getter = jaxbProperty.getReadMethod();
+    for (PropertyPlan plan : this.propertyPlans) {
+      Method getter = plan.jaxbGetter;
       if (getter == null) {
         throw new GWTMappingException("In order to convert from JAXB classes to GWT, you must provide a getter for property '"
-          + jaxbProperty.getName() + "' on class " + jaxbProperty.getWriteMethod().getDeclaringClass());
+          + plan.name + "' on class " + plan.jaxbSetter.getDeclaringClass());
       }
 
       Object propertyValue;
@@ -140,20 +141,19 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
         propertyValue = getter.invoke(jaxbObject);
       }
       catch (Exception e) {
-        throw new GWTMappingException("Unable to read property '" + jaxbProperty.getName() + "' on " + jaxbObject, e);
+        throw new GWTMappingException("Unable to read property '" + plan.name + "' on " + jaxbObject, e);
       }
 
       if (propertyValue == null) {
         continue;
       }
 
-      GWTMapper mapper = GWTMapperIntrospector.getGWTMapper(propertyValue.getClass(), getter.getGenericReturnType(),
-                                                            findTypeAdapter(jaxbProperty), findXmlElement(jaxbProperty));
+      GWTMapper mapper = plan.getGWTMapper(propertyValue.getClass());
       try {
-        gwtProperty.getWriteMethod().invoke(gwtObject, mapper.toGWT(propertyValue, context));
+        plan.gwtSetter.invoke(gwtObject, mapper.toGWT(propertyValue, context));
       }
       catch (Exception e) {
-        throw new GWTMappingException("Unable to set property " + jaxbProperty.getName() + " for the gwt bean " + gwtClass.getName(), e);
+        throw new GWTMappingException("Unable to set property " + plan.name + " for the gwt bean " + gwtClass.getName(), e);
       }
     }
 
@@ -238,8 +238,9 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
       return null;
     }
     
-    if (context.getMappedObjects().containsKey(gwtObject)) {
-      return (J) context.getMappedObjects().get(gwtObject);
+    Object mapped = context.lookup(gwtObject);
+    if (mapped != null) {
+      return (J) mapped;
     }
 
     J jaxbObject;
@@ -251,16 +252,13 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
     }
 
     context.objectMapped(gwtObject, jaxbObject);
-    for (PropertyDescriptor[] pds : this.jaxbProperties2gwtProperties) {
-      PropertyDescriptor jaxbProperty = pds[0];
-      PropertyDescriptor gwtProperty = pds[1];
-      Method getter = gwtProperty.getReadMethod();
+    for (PropertyPlan plan : this.propertyPlans) {
       Object propertyValue;
       try {
-        propertyValue = getter.invoke(gwtObject);
+        propertyValue = plan.gwtGetter.invoke(gwtObject);
       }
       catch (Exception e) {
-        throw new GWTMappingException("Unable to read property '" + gwtProperty.getName() + "' on " + gwtObject, e);
+        throw new GWTMappingException("Unable to read property '" + plan.name + "' on " + gwtObject, e);
       }
 
       if (propertyValue == null) {
@@ -268,21 +266,21 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
       }
 
       GWTMapper mapper = GWTMapperIntrospector.getGWTMapperForGWTObject(propertyValue);
-      Method setter = jaxbProperty.getWriteMethod();
+      Method setter = plan.jaxbSetter;
       if (setter == null) {
         throw new GWTMappingException("In order to convert from GWT back to JAXB classes, you must provide a setter for property '"
-          + jaxbProperty.getName() + "' on class " + jaxbProperty.getReadMethod().getDeclaringClass());
+          + plan.name + "' on class " + plan.jaxbGetter.getDeclaringClass());
       }
 
       if (mapper == null) {
-        mapper = GWTMapperIntrospector.getGWTMapper(setter.getGenericParameterTypes()[0], findTypeAdapter(jaxbProperty), findXmlElement(jaxbProperty));
+        mapper = plan.getJAXBMapper();
       }
 
       try {
         setter.invoke(jaxbObject, mapper.toJAXB(propertyValue, context));
       }
       catch (Exception e) {
-        throw new GWTMappingException("Unable to set property " + jaxbProperty.getName() + " for the gwt bean " + gwtClass.getName(), e);
+        throw new GWTMappingException("Unable to set property " + plan.name + " for the gwt bean " + gwtClass.getName(), e);
       }
     }
 
@@ -319,4 +317,93 @@ public abstract class BaseGWTMapper<J, G> implements CustomGWTMapper<J, G> {
   public Class<G> getGwtClass() {
     return gwtClass;
   }
+
+  /**
+   * The plan for copying a single property, resolved once per mapper so that the per-object work is reduced to reads, writes
+   * and a mapper dispatch.
+   */
+  private static final class PropertyPlan {
+
+    final String name;
+    final Method jaxbGetter;
+    final Method jaxbSetter;
+    final Method gwtGetter;
+    final Method gwtSetter;
+    final Type jaxbGetterType;
+    final Type jaxbSetterType;
+    final XmlJavaTypeAdapter adapterInfo;
+    final XmlElement elementInfo;
+
+    /**
+     * Whether the declared type of the property is final, in which case the GWT-side mapper doesn't depend on the runtime class.
+     */
+    final boolean finalType;
+
+    /**
+     * The mapper last used to map a value to GWT, along with the runtime class it was resolved for.
+     */
+    private volatile ResolvedMapper lastGWTMapper;
+
+    /**
+     * The mapper used to map a value back to JAXB. Resolved lazily, since the property might refer back to the type being mapped.
+     */
+    private volatile GWTMapper jaxbMapper;
+
+    PropertyPlan(PropertyDescriptor jaxbProperty, PropertyDescriptor gwtProperty, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
+      this.name = jaxbProperty.getName();
+      this.jaxbGetter = jaxbProperty.getReadMethod();
+      this.jaxbSetter = jaxbProperty.getWriteMethod();
+      this.gwtGetter = gwtProperty.getReadMethod();
+      this.gwtSetter = gwtProperty.getWriteMethod();
+      this.jaxbGetterType = this.jaxbGetter == null ? null : this.jaxbGetter.getGenericReturnType();
+      this.jaxbSetterType = this.jaxbSetter == null ? null : this.jaxbSetter.getGenericParameterTypes()[0];
+      this.adapterInfo = adapterInfo;
+      this.elementInfo = elementInfo;
+      Class<?> declaredType = this.jaxbGetter == null ? null : this.jaxbGetter.getReturnType();
+      this.finalType = declaredType != null && !declaredType.isArray() && !declaredType.isPrimitive() && Modifier.isFinal(declaredType.getModifiers());
+    }
+
+    /**
+     * Get the mapper to use to map a property value of the specified runtime class to GWT.
+     *
+     * @param valueType The runtime class of the property value.
+     * @return The mapper.
+     */
+    GWTMapper getGWTMapper(Class valueType) {
+      ResolvedMapper resolved = this.lastGWTMapper;
+      if (resolved == null || (!this.finalType && resolved.valueType != valueType)) {
+        resolved = new ResolvedMapper(valueType, GWTMapperIntrospector.getGWTMapper(valueType, this.jaxbGetterType, this.adapterInfo, this.elementInfo));
+        this.lastGWTMapper = resolved;
+      }
+      return resolved.mapper;
+    }
+
+    /**
+     * Get the mapper to use to map a property value back to JAXB.
+     *
+     * @return The mapper.
+     */
+    GWTMapper getJAXBMapper() {
+      GWTMapper mapper = this.jaxbMapper;
+      if (mapper == null) {
+        mapper = GWTMapperIntrospector.getGWTMapper(this.jaxbSetterType, this.adapterInfo, this.elementInfo);
+        this.jaxbMapper = mapper;
+      }
+      return mapper;
+    }
+  }
+
+  /**
+   * A mapper resolved for a specific runtime class.
+   */
+  static final class ResolvedMapper {
+
+    final Class valueType;
+    final GWTMapper mapper;
+
+    ResolvedMapper(Class valueType, GWTMapper mapper) {
+      this.valueType = valueType;
+      this.mapper = mapper;
+    }
+  }
 }
@@ -39,7 +39,7 @@ import java.util.HashMap;
  */
 public abstract class GWTEndpointImpl extends RemoteServiceServlet {
 
-  private final HashMap<String, Method> operationNames2Methods = new HashMap<String, Method>();
+  private final HashMap<String, Operation> operationNames2Operations = new HashMap<String, Operation>();
   protected Object serviceBean;
   private SecurityExceptionChecker securityChecker = new DefaultSecurityExceptionChecker();
 
@@ -53,7 +53,7 @@ public abstract class GWTEndpointImpl extends RemoteServiceServlet {
         operationName = webMethodInfo.operationName();
       }
 
-      this.operationNames2Methods.put(operationName, method);
+      this.operationNames2Operations.put(operationName, new Operation(method));
     }
   }
 
@@ -69,37 +69,54 @@ public abstract class GWTEndpointImpl extends RemoteServiceServlet {
   }
 
   protected final Object invokeOperation(String operationName, Object... params) throws Exception {
-    Method method = this.operationNames2Methods.get(operationName);
-    if (method == null) {
+    Operation operation = this.operationNames2Operations.get(operationName);
+    if (operation == null) {
       throw new NoSuchMethodError("No such method: " + operationName);
     }
-    GWTMappingContext mappingContext = new GWTMappingContext();
 
-    Type[] paramTypes = method.getGenericParameterTypes();
-    if (paramTypes.length != params.length) {
-      throw new IllegalArgumentException(String.format("Wrong number of parameters for operation '%s'.  Expected %s, got %s.", operationName, paramTypes.length, params.length));
+    GWTMapper[] paramMappers = operation.paramMappers;
+    if (paramMappers.length != params.length) {
+      throw new IllegalArgumentException(String.format("Wrong number of parameters for operation '%s'.  Expected %s, got %s.", operationName, paramMappers.length, params.length));
     }
 
-    Object[] mappedParams = new Object[paramTypes.length];
-    for (int i = 0; i < paramTypes.length; i++) {
+    GWTMappingContext mappingContext = GWTMappingContext.borrow(operation.lastGraphSize);
+    try {
+      return invokeOperation(operation, params, mappingContext);
+    }
+    finally {
+      operation.lastGraphSize = mappingContext.size();
+      mappingContext.release();
+    }
+  }
+
+  /**
+   * Invoke an operation with the specified mapping context.
+   *
+   * @param operation The operation.
+   * @param params The parameters.
+   * @param mappingContext The mapping context.
+   * @return The result of the invocation.
+   */
+  private Object invokeOperation(Operation operation, Object[] params, GWTMappingContext mappingContext) throws Exception {
+    GWTMapper[] paramMappers = operation.paramMappers;
+    Object[] mappedParams = new Object[paramMappers.length];
+    for (int i = 0; i < paramMappers.length; i++) {
       GWTMapper paramMapper = GWTMapperIntrospector.getGWTMapperForGWTObject(params[i]);
       if (paramMapper == null) {
-        paramMapper = GWTMapperIntrospector.getGWTMapper(paramTypes[i]);
+        paramMapper = paramMappers[i] != null ? paramMappers[i] : GWTMapperIntrospector.getGWTMapper(operation.paramTypes[i]);
       }
       mappedParams[i] = paramMapper.toJAXB(params[i], mappingContext);
     }
 
     Object returnValue;
     try {
-      returnValue = method.invoke(serviceBean, mappedParams);
+      returnValue = operation.method.invoke(serviceBean, mappedParams);
     }
     catch (InvocationTargetException e) {
       Throwable targetException = e.getTargetException();
-      for (int i = 0; i < method.getExceptionTypes().length; i++) {
-        Class exceptionType = method.getExceptionTypes()[i];
-        if (exceptionType.isInstance(targetException)) {
-          throw (Exception) GWTMapperIntrospector.getGWTMapper(targetException.getClass(), exceptionType, null, null).toGWT(targetException, mappingContext);
-        }
+      GWTMapper exceptionMapper = operation.getExceptionMapper(targetException);
+      if (exceptionMapper != null) {
+        throw (Exception) exceptionMapper.toGWT(targetException, mappingContext);
       }
 
       if (targetException instanceof Error) {
@@ -110,8 +127,8 @@ public abstract class GWTEndpointImpl extends RemoteServiceServlet {
       }
     }
 
-    if (method.getReturnType() != Void.TYPE) {
-      returnValue = returnValue != null ? GWTMapperIntrospector.getGWTMapper(returnValue.getClass(), method.getGenericReturnType(), null, null).toGWT(returnValue, mappingContext) : null;
+    if (!operation.isVoid) {
+      returnValue = returnValue != null ? operation.getReturnMapper(returnValue.getClass()).toGWT(returnValue, mappingContext) : null;
     }
     
     return returnValue;
@@ -154,4 +171,101 @@ public abstract class GWTEndpointImpl extends RemoteServiceServlet {
    * @return The service interface.
    */
   protected abstract Class getServiceInterface();
+
+  /**
+   * An operation, with everything needed to invoke it resolved up front so that each invocation is reduced to mapping
+   * the parameters, invoking the method and mapping the result.
+   */
+  private static final class Operation {
+
+    final Method method;
+    final Type[] paramTypes;
+    final GWTMapper[] paramMappers;
+    final Class[] exceptionTypes;
+    final GWTMapper[] exceptionMappers;
+    final Type returnType;
+    final boolean isVoid;
+
+    /**
+     * The number of objects mapped by the last invocation, used to size the mapping context for the next one.
+     */
+    volatile int lastGraphSize;
+
+    /**
+     * The mapper last used to map a return value, along with the runtime class it was resolved for.
+     */
+    private volatile BaseGWTMapper.ResolvedMapper lastReturnMapper;
+
+    Operation(Method method) {
+      this.method = method;
+      this.paramTypes = method.getGenericParameterTypes();
+      this.paramMappers = new GWTMapper[this.paramTypes.length];
+      for (int i = 0; i < this.paramTypes.length; i++) {
+        try {
+          this.paramMappers[i] = GWTMapperIntrospector.getGWTMapper(this.paramTypes[i]);
+        }
+        catch (RuntimeException e) {
+          //leave it unresolved; the error will surface when the operation is invoked.
+          this.paramMappers[i] = null;
+        }
+      }
+      this.exceptionTypes = method.getExceptionTypes();
+      this.exceptionMappers = new GWTMapper[this.exceptionTypes.length];
+      for (int i = 0; i < this.exceptionTypes.length; i++) {
+        try {
+          this.exceptionMappers[i] = GWTMapperIntrospector.getGWTMapper(this.exceptionTypes[i], this.exceptionTypes[i], null, null);
+        }
+        catch (RuntimeException e) {
+          //leave it unresolved; the error will surface when the exception is thrown.
+          this.exceptionMappers[i] = null;
+        }
+      }
+      this.returnType = method.getGenericReturnType();
+      this.isVoid = method.getReturnType() == Void.TYPE;
+
+      try {
+        this.method.setAccessible(true);
+      }
+      catch (SecurityException e) {
+        //fall through; the access check will just be done on each invocation.
+      }
+    }
+
+    /**
+     * Get the mapper for an exception thrown by the operation.
+     *
+     * @param exception The exception.
+     * @return The mapper, or null if the exception isn't one of the declared exception types.
+     */
+    GWTMapper getExceptionMapper(Throwable exception) {
+      Class exceptionClass = exception.getClass();
+      for (int i = 0; i < this.exceptionTypes.length; i++) {
+        if (this.exceptionTypes[i].isInstance(exception)) {
+          if (this.exceptionTypes[i] == exceptionClass && this.exceptionMappers[i] != null) {
+            return this.exceptionMappers[i];
+          }
+
+          //a subclass of a declared exception type is mapped by its own class.
+          return GWTMapperIntrospector.getGWTMapper(exceptionClass, this.exceptionTypes[i], null, null);
+        }
+      }
+
+      return null;
+    }
+
+    /**
+     * Get the mapper for a return value of the specified runtime class.
+     *
+     * @param valueType The runtime class of the return value.
+     * @return The mapper.
+     */
+    GWTMapper getReturnMapper(Class valueType) {
+      BaseGWTMapper.ResolvedMapper resolved = this.lastReturnMapper;
+      if (resolved == null || resolved.valueType != valueType) {
+        resolved = new BaseGWTMapper.ResolvedMapper(valueType, GWTMapperIntrospector.getGWTMapper(valueType, this.returnType, null, null));
+        this.lastReturnMapper = resolved;
+      }
+      return resolved.mapper;
+    }
+  }
 }
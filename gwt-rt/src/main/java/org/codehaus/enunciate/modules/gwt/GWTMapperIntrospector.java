@@ -28,6 +28,8 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Introspector used to lookup GWT mappers.
@@ -36,18 +38,43 @@ import java.util.*;
  */
 public class GWTMapperIntrospector {
 
-  private static final Map<Type, GWTMapper> MAPPERS = new HashMap<Type, GWTMapper>();
+  /**
+   * The mappers, keyed on (real type, jaxb type, adapter, element info). Read-mostly; writes only happen the first time
+   * a given combination is seen.
+   */
+  private static final ConcurrentMap<MapperKey, GWTMapper> MAPPERS = new ConcurrentHashMap<MapperKey, GWTMapper>();
+
+  /**
+   * The custom mapper classes that have been loaded, keyed on the JAXB class.
+   */
+  private static final ConcurrentMap<Class, Class<? extends GWTMapper>> CUSTOM_MAPPER_CLASSES = new ConcurrentHashMap<Class, Class<? extends GWTMapper>>();
+
+  /**
+   * The JAXB classes known to have no custom mapper (negative lookup cache).
+   */
+  private static final Set<Class> NO_CUSTOM_MAPPER = Collections.newSetFromMap(new ConcurrentHashMap<Class, Boolean>());
+
+  /**
+   * The mappers for GWT objects, keyed on the GWT class.
+   */
+  private static final ConcurrentMap<Class, GWTMapper> GWT_OBJECT_MAPPERS = new ConcurrentHashMap<Class, GWTMapper>();
+
+  /**
+   * The GWT classes known to have no mapper (negative lookup cache).
+   */
+  private static final Set<Class> NO_GWT_OBJECT_MAPPER = Collections.newSetFromMap(new ConcurrentHashMap<Class, Boolean>());
+
   private static final Properties GWT2JAXBMAPPINGS = new Properties();
 
   static {
-    MAPPERS.put(BigDecimal.class, new BigDecimalGWTMapper());
-    MAPPERS.put(BigInteger.class, new BigIntegerGWTMapper());
-    MAPPERS.put(Calendar.class, new CalendarGWTMapper());
-    MAPPERS.put(DataHandler.class, new DataHandlerGWTMapper());
-    MAPPERS.put(QName.class, new QNameGWTMapper());
-    MAPPERS.put(URI.class, new URIGWTMapper());
-    MAPPERS.put(UUID.class, new UUIDGWTMapper());
-    MAPPERS.put(XMLGregorianCalendar.class, new XMLGregorianCalendarGWTMapper());
+    MAPPERS.put(new MapperKey(BigDecimal.class), new BigDecimalGWTMapper());
+    MAPPERS.put(new MapperKey(BigInteger.class), new BigIntegerGWTMapper());
+    MAPPERS.put(new MapperKey(Calendar.class), new CalendarGWTMapper());
+    MAPPERS.put(new MapperKey(DataHandler.class), new DataHandlerGWTMapper());
+    MAPPERS.put(new MapperKey(QName.class), new QNameGWTMapper());
+    MAPPERS.put(new MapperKey(URI.class), new URIGWTMapper());
+    MAPPERS.put(new MapperKey(UUID.class), new UUIDGWTMapper());
+    MAPPERS.put(new MapperKey(XMLGregorianCalendar.class), new XMLGregorianCalendarGWTMapper());
 
     ClassLoader loader;
     try {
@@ -89,13 +116,23 @@ public class GWTMapperIntrospector {
     if (gwtObject != null) {
       Class gwtType = gwtObject.getClass();
       if ((gwtType != null) && (!gwtType.isArray()) && (!gwtType.isPrimitive())) {
-        String jaxbType = GWT2JAXBMAPPINGS.getProperty(gwtType.getName());
-        if (jaxbType != null) {
-          try {
-            result = getGWTMapper(Class.forName(jaxbType));
+        result = GWT_OBJECT_MAPPERS.get(gwtType);
+        if (result == null && !NO_GWT_OBJECT_MAPPER.contains(gwtType)) {
+          String jaxbType = GWT2JAXBMAPPINGS.getProperty(gwtType.getName());
+          if (jaxbType != null) {
+            try {
+              result = getGWTMapper(Class.forName(jaxbType));
+            }
+            catch (Throwable e) {
+              result = null;
+            }
           }
-          catch (Throwable e) {
-            result = null;
+
+          if (result == null) {
+            NO_GWT_OBJECT_MAPPER.add(gwtType);
+          }
+          else {
+            GWT_OBJECT_MAPPERS.put(gwtType, result);
           }
         }
       }
@@ -104,15 +141,55 @@ public class GWTMapperIntrospector {
   }
 
   public static GWTMapper getGWTMapper(Class realType, Type jaxbType, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
-    if (adapterInfo == null && (realType != null) && (!realType.isArray()) && (!realType.isPrimitive()) && (realType.getPackage() != null)) {
+    if (!isRealTypeApplicable(realType, adapterInfo)) {
+      //the real type isn't considered, so don't let it fragment the cache.
+      realType = null;
+    }
+
+    MapperKey key = new MapperKey(realType, jaxbType, adapterInfo, elementInfo);
+    GWTMapper mapper = MAPPERS.get(key);
+    if (mapper == null) {
+      mapper = createGWTMapper(realType, jaxbType, adapterInfo, elementInfo);
+      GWTMapper existing = MAPPERS.putIfAbsent(key, mapper);
+      if (existing != null) {
+        mapper = existing;
+      }
+    }
+    return mapper;
+  }
+
+  /**
+   * Whether the real type of a value is to be considered when looking up its mapper.
+   *
+   * @param realType The real type.
+   * @param adapterInfo The adapter info.
+   * @return Whether the real type is to be considered.
+   */
+  private static boolean isRealTypeApplicable(Class realType, XmlJavaTypeAdapter adapterInfo) {
+    return adapterInfo == null && (realType != null) && (!realType.isArray()) && (!realType.isPrimitive()) && (realType.getPackage() != null);
+  }
+
+  /**
+   * Create (uncached) the GWT mapper for the specified type information.
+   *
+   * @param realType The real type, or null if the real type isn't to be considered.
+   * @param jaxbType The JAXB type.
+   * @param adapterInfo The adapter info.
+   * @param elementInfo The element info.
+   * @return The mapper.
+   */
+  private static GWTMapper createGWTMapper(Class realType, Type jaxbType, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
+    if (realType != null) {
       //first check the real type.  if a mapper exists, use it, otherwise use the type defined in the signature.
-      if (MAPPERS.containsKey(realType)) {
-        return MAPPERS.get(realType);
+      GWTMapper realTypeMapper = MAPPERS.get(new MapperKey(realType));
+      if (realTypeMapper != null) {
+        return realTypeMapper;
       }
 
       try {
-        loadCustomMapperClass(realType);
-        jaxbType = realType;
+        if (findCustomMapperClass(realType) != null) {
+          jaxbType = realType;
+        }
       }
       catch (Throwable e) {
         //fall through.
@@ -127,7 +204,6 @@ public class GWTMapperIntrospector {
       Type adaptingType = findAdaptingType(adapterInfo.value());
       GWTMapper adaptingMapper = getGWTMapper(adaptingType);
       try {
-        //if it's adapted, don't cache it (return it directly).
         return new AdaptingGWTMapper(adapterInfo.value().newInstance(), adaptingMapper, narrowType(jaxbType), narrowType(adaptingType));
       }
       catch (Exception e) {
@@ -140,11 +216,8 @@ public class GWTMapperIntrospector {
     }
     
     Class specifiedType = ((elementInfo != null) && (elementInfo.type() != null) && (elementInfo.type() != XmlElement.DEFAULT.class)) ? elementInfo.type() : null;
-    GWTMapper mapper;
-    if (adapterInfo == null && MAPPERS.containsKey(jaxbType)) {
-      mapper = MAPPERS.get(jaxbType);
-    }
-    else {
+    GWTMapper mapper = MAPPERS.get(new MapperKey(jaxbType));
+    if (mapper == null) {
       if (jaxbType instanceof ParameterizedType) {
         Type rawType = ((ParameterizedType) jaxbType).getRawType();
 
@@ -212,13 +285,13 @@ public class GWTMapperIntrospector {
         }
         else {
           try {
-            mapper = loadCustomMapperClass(jaxbClass).newInstance();
-          }
-          catch (ClassNotFoundException e) {
-            mapper = Enum.class.isAssignableFrom(jaxbClass) ? new EnumGWTMapper(jaxbClass) : DefaultGWTMapper.INSTANCE;
-          }
-          catch (NoClassDefFoundError e) {
-            mapper = Enum.class.isAssignableFrom(jaxbClass) ? new EnumGWTMapper(jaxbClass) : DefaultGWTMapper.INSTANCE;
+            Class<? extends GWTMapper> customMapperClass = findCustomMapperClass(jaxbClass);
+            if (customMapperClass != null) {
+              mapper = customMapperClass.newInstance();
+            }
+            else {
+              mapper = Enum.class.isAssignableFrom(jaxbClass) ? new EnumGWTMapper(jaxbClass) : DefaultGWTMapper.INSTANCE;
+            }
           }
           catch (Throwable e) {
             throw new GWTMappingException("Unable to instantiate class '" + jaxbClass.getPackage().getName() + ".gwt." + jaxbClass.getSimpleName() + "GWTMapper'.", e);
@@ -229,8 +302,11 @@ public class GWTMapperIntrospector {
         mapper = DefaultGWTMapper.INSTANCE;
       }
 
-      if (specifiedType == null) { //only cache if the type isn't specified.
-        MAPPERS.put(jaxbType, mapper);
+      if (specifiedType == null) { //only cache by the type alone if the type isn't specified.
+        GWTMapper existing = MAPPERS.putIfAbsent(new MapperKey(jaxbType), mapper);
+        if (existing != null) {
+          mapper = existing;
+        }
       }
     }
 
@@ -258,14 +334,39 @@ public class GWTMapperIntrospector {
     }
   }
 
-  private static Class<? extends GWTMapper> loadCustomMapperClass(Class jaxbClass) throws ClassNotFoundException {
-    if (String.valueOf(jaxbClass.getPackage()).startsWith("java.")) {
-      throw new ClassNotFoundException();
+  /**
+   * Find the custom (generated) mapper class for the specified JAXB class. Lookups are cached, including negative lookups, so
+   * that a type without a custom mapper doesn't cost a failed class load every time it's seen.
+   *
+   * @param jaxbClass The JAXB class.
+   * @return The custom mapper class, or null if none exists.
+   */
+  private static Class<? extends GWTMapper> findCustomMapperClass(Class jaxbClass) {
+    Class<? extends GWTMapper> mapperClass = CUSTOM_MAPPER_CLASSES.get(jaxbClass);
+    if (mapperClass != null || NO_CUSTOM_MAPPER.contains(jaxbClass)) {
+      return mapperClass;
     }
-    if (String.valueOf(jaxbClass.getPackage()).startsWith("javax.")) {
-      throw new ClassNotFoundException();
+
+    String packageName = jaxbClass.getPackage().getName();
+    if (!packageName.startsWith("java.") && !packageName.startsWith("javax.")) {
+      try {
+        mapperClass = (Class<? extends GWTMapper>) Class.forName(packageName + ".gwt." + jaxbClass.getSimpleName() + "GWTMapper");
+      }
+      catch (ClassNotFoundException e) {
+        mapperClass = null;
+      }
+      catch (NoClassDefFoundError e) {
+        mapperClass = null;
+      }
+    }
+
+    if (mapperClass == null) {
+      NO_CUSTOM_MAPPER.add(jaxbClass);
     }
-    return (Class<? extends GWTMapper>) Class.forName(jaxbClass.getPackage().getName() + ".gwt." + jaxbClass.getSimpleName() + "GWTMapper");
+    else {
+      CUSTOM_MAPPER_CLASSES.put(jaxbClass, mapperClass);
+    }
+    return mapperClass;
   }
 
   private static Type findAdaptingType(Class<? extends XmlAdapter> adapterClass) {
@@ -286,4 +387,54 @@ public class GWTMapperIntrospector {
   private GWTMapperIntrospector() {
   }
 
+  /**
+   * Key for a cached mapper.
+   */
+  private static final class MapperKey {
+
+    private final Class realType;
+    private final Type jaxbType;
+    private final XmlJavaTypeAdapter adapterInfo;
+    private final XmlElement elementInfo;
+    private final int hash;
+
+    MapperKey(Type jaxbType) {
+      this(null, jaxbType, null, null);
+    }
+
+    MapperKey(Class realType, Type jaxbType, XmlJavaTypeAdapter adapterInfo, XmlElement elementInfo) {
+      this.realType = realType;
+      this.jaxbType = jaxbType;
+      this.adapterInfo = adapterInfo;
+      this.elementInfo = elementInfo;
+      int hash = realType == null ? 0 : realType.hashCode();
+      hash = 31 * hash + (jaxbType == null ? 0 : jaxbType.hashCode());
+      hash = 31 * hash + (adapterInfo == null ? 0 : adapterInfo.hashCode());
+      hash = 31 * hash + (elementInfo == null ? 0 : elementInfo.hashCode());
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof MapperKey)) {
+        return false;
+      }
+
+      MapperKey other = (MapperKey) o;
+      return this.hash == other.hash
+        && (realType == null ? other.realType == null : realType.equals(other.realType))
+        && (jaxbType == null ? other.jaxbType == null : jaxbType.equals(other.jaxbType))
+        && (adapterInfo == null ? other.adapterInfo == null : adapterInfo.equals(other.adapterInfo))
+        && (elementInfo == null ? other.elementInfo == null : elementInfo.equals(other.elementInfo));
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
 }
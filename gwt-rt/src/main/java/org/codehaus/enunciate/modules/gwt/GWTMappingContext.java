@@ -16,24 +16,242 @@
 
 package org.codehaus.enunciate.modules.gwt;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
- * A mapping context for mapping GWT objects.
+ * A mapping context for mapping GWT objects. The objects that have already been mapped are kept in an open-addressing
+ * identity table that can be sized up front.
+ * <p/>
+ * If pooling is enabled (with the {@link #POOLED_PROPERTY} system property or {@link #setPooled(boolean)}), the table of a
+ * {@link #release() released} context is reused by the next context {@link #borrow(int) borrowed} on the same thread.
+ * Only the table is kept, and only if it's small, so a pooled thread doesn't hold on to any classes of the application.
  *
  * @author Ryan Heaton
  */
 public class GWTMappingContext {
 
-  private final Map<Object, Object> mappedObjects = new IdentityHashMap<Object, Object>();
+  private static final int MINIMUM_CAPACITY = 16;
 
+  /**
+   * The system property that enables the pooling of the tables of released contexts.
+   */
+  public static final String POOLED_PROPERTY = "org.codehaus.enunciate.modules.gwt.pooledMappingContexts";
+
+  /**
+   * The largest table (in entries) that will be kept around for reuse by a thread.
+   */
+  private static final int MAXIMUM_POOLED_CAPACITY = 1 << 10;
+
+  private static final Object NULL_KEY = new Object();
+
+  private static final ThreadLocal<Object[]> POOLED_TABLES = new ThreadLocal<Object[]>();
+
+  private static volatile boolean pooled = Boolean.getBoolean(POOLED_PROPERTY);
+
+  /**
+   * The table, alternating keys and values.
+   */
+  private Object[] table;
+  private int size;
+  private int threshold;
+
+  public GWTMappingContext() {
+    this(0);
+  }
+
+  /**
+   * @param expectedSize The expected number of objects to be mapped.
+   */
+  public GWTMappingContext(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * @param table The (empty) table.
+   */
+  private GWTMappingContext(Object[] table) {
+    this.table = table;
+    this.threshold = ((table.length >> 1) * 2) / 3;
+  }
+
+  /**
+   * Whether the tables of released contexts are reused.
+   *
+   * @return Whether the tables of released contexts are reused.
+   */
+  public static boolean isPooled() {
+    return pooled;
+  }
+
+  /**
+   * Whether the tables of released contexts are reused. Disabling pooling doesn't discard the tables already pooled by
+   * other threads, but they're no longer used.
+   *
+   * @param pooled Whether the tables of released contexts are reused.
+   */
+  public static void setPooled(boolean pooled) {
+    GWTMappingContext.pooled = pooled;
+    if (!pooled) {
+      POOLED_TABLES.remove();
+    }
+  }
+
+  /**
+   * Borrow a mapping context for the current thread. If pooling is enabled, the table last released by this thread is
+   * reused if it's big enough.
+   *
+   * @param expectedSize The expected number of objects to be mapped.
+   * @return The mapping context, which should be {@link #release() released} when the mapping is done.
+   */
+  public static GWTMappingContext borrow(int expectedSize) {
+    if (pooled) {
+      Object[] table = POOLED_TABLES.get();
+      if (table != null && (table.length >> 1) >= capacityFor(expectedSize)) {
+        POOLED_TABLES.remove();
+        return new GWTMappingContext(table);
+      }
+    }
+
+    return new GWTMappingContext(expectedSize);
+  }
+
+  /**
+   * Release this context. If pooling is enabled, its table is cleared and kept for reuse by the current thread. The
+   * context must not be used after it has been released.
+   */
+  public void release() {
+    Object[] tab = this.table;
+    if (pooled && tab != null && (tab.length >> 1) <= MAXIMUM_POOLED_CAPACITY) {
+      Object[] current = POOLED_TABLES.get();
+      if (current == null || current.length < tab.length) {
+        if (this.size > 0) {
+          Arrays.fill(tab, null);
+        }
+        POOLED_TABLES.set(tab);
+      }
+      this.table = null;
+      this.size = 0;
+    }
+  }
+
+  /**
+   * Look up the object that the specified object has been mapped to.
+   *
+   * @param from The object mapped from.
+   * @return The object it was mapped to, or null if it hasn't been mapped.
+   */
+  public Object lookup(Object from) {
+    Object key = from == null ? NULL_KEY : from;
+    Object[] tab = this.table;
+    int mask = tab.length - 1;
+    int i = indexFor(key, mask);
+    while (true) {
+      Object item = tab[i];
+      if (item == key) {
+        return tab[i + 1];
+      }
+      else if (item == null) {
+        return null;
+      }
+      i = (i + 2) & mask;
+    }
+  }
+
+  /**
+   * Identify an object as being mapped.
+   *
+   * @param from The object mapped from.
+   * @param to The object mapped to.
+   */
+  public void objectMapped(Object from, Object to) {
+    Object key = from == null ? NULL_KEY : from;
+    Object[] tab = this.table;
+    int mask = tab.length - 1;
+    int i = indexFor(key, mask);
+    while (true) {
+      Object item = tab[i];
+      if (item == key) {
+        tab[i + 1] = to;
+        return;
+      }
+      else if (item == null) {
+        tab[i] = key;
+        tab[i + 1] = to;
+        if (++this.size > this.threshold) {
+          resize(tab.length);  //the table holds two slots per entry, so this doubles the capacity.
+        }
+        return;
+      }
+      i = (i + 2) & mask;
+    }
+  }
+
+  /**
+   * The number of objects that have been mapped.
+   *
+   * @return The number of objects that have been mapped.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get all the objects that have already been mapped.
+   *
+   * @return The objects that have been mapped.
+   * @deprecated Copies the mapped objects; use {@link #lookup(Object)} instead.
+   */
+  @Deprecated
   public Map<Object, Object> getMappedObjects() {
+    IdentityHashMap<Object, Object> mappedObjects = new IdentityHashMap<Object, Object>(this.size);
+    Object[] tab = this.table;
+    for (int i = 0; i < tab.length; i += 2) {
+      if (tab[i] != null) {
+        mappedObjects.put(tab[i] == NULL_KEY ? null : tab[i], tab[i + 1]);
+      }
+    }
     return Collections.unmodifiableMap(mappedObjects);
   }
 
-  public void objectMapped(Object from, Object to) {
-    this.mappedObjects.put(from, to);
+  private void resize(int capacity) {
+    Object[] oldTable = this.table;
+    allocate(capacity);
+    Object[] tab = this.table;
+    int mask = tab.length - 1;
+    for (int j = 0; j < oldTable.length; j += 2) {
+      Object key = oldTable[j];
+      if (key != null) {
+        int i = indexFor(key, mask);
+        while (tab[i] != null) {
+          i = (i + 2) & mask;
+        }
+        tab[i] = key;
+        tab[i + 1] = oldTable[j + 1];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    this.table = new Object[capacity << 1];
+    this.threshold = (capacity * 2) / 3;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    //keep the load factor at or under 2/3.
+    int minimum = expectedSize + (expectedSize >> 1) + 1;
+    int capacity = MINIMUM_CAPACITY;
+    while (capacity < minimum && capacity < (1 << 29)) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static int indexFor(Object key, int mask) {
+    int h = System.identityHashCode(key);
+    //multiply by -127 and shift so the low-order bit is clear (keys live at even indexes).
+    return ((h << 1) - (h << 8)) & mask;
   }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2006-2008 Web Cohesion
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.enunciate.modules.gwt;
+
+import junit.framework.TestCase;
+
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.lang.reflect.Method;
+import java.net.URL;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestGWTMapperIntrospector extends TestCase {
+
+  /**
+   * Tests that mappers are cached, including adapted mappers.
+   */
+  public void testMappersAreCached() throws Exception {
+    assertSame(GWTMapperIntrospector.getGWTMapper(BeanOne.class), GWTMapperIntrospector.getGWTMapper(BeanOne.class));
+
+    Method getter = BeanOne.class.getMethod("getProperty8");
+    XmlJavaTypeAdapter adapterInfo = getter.getAnnotation(XmlJavaTypeAdapter.class);
+    GWTMapper adapted = GWTMapperIntrospector.getGWTMapper(new URL("http://localhost").getClass(), getter.getGenericReturnType(), adapterInfo, null);
+    assertTrue(adapted instanceof AdaptingGWTMapper);
+    assertSame(adapted, GWTMapperIntrospector.getGWTMapper(URL.class, getter.getGenericReturnType(), adapterInfo, null));
+  }
+
+  /**
+   * Tests types without a custom mapper.
+   */
+  public void testTypeWithoutCustomMapper() throws Exception {
+    assertSame(DefaultGWTMapper.INSTANCE, GWTMapperIntrospector.getGWTMapper(URLAdapter.class, Object.class));
+    assertSame(DefaultGWTMapper.INSTANCE, GWTMapperIntrospector.getGWTMapper(URLAdapter.class, Object.class));
+    assertNull(GWTMapperIntrospector.getGWTMapperForGWTObject(new URLAdapter()));
+    assertNull(GWTMapperIntrospector.getGWTMapperForGWTObject(new URLAdapter()));
+  }
+}
@@ -38,6 +38,7 @@ import org.codehaus.enunciate.contract.jaxrs.ResourceMethod;
 import org.codehaus.enunciate.main.*;
 import org.codehaus.enunciate.main.webapp.BaseWebAppFragment;
 import org.codehaus.enunciate.main.webapp.WebAppComponent;
+import org.codehaus.enunciate.modules.DependencyAwareModule;
 import org.codehaus.enunciate.modules.FacetAware;
 import org.codehaus.enunciate.modules.FreemarkerDeploymentModule;
 import org.codehaus.enunciate.modules.ProjectExtensionModule;
@@ -257,7 +258,7 @@ import java.util.regex.Pattern;
  * @author Ryan Heaton
  * @docFileName module_gwt.html
  */
-public class GWTDeploymentModule extends FreemarkerDeploymentModule implements ProjectExtensionModule, GWTHomeAwareModule, EnunciateClasspathListener, FacetAware {
+public class GWTDeploymentModule extends FreemarkerDeploymentModule implements ProjectExtensionModule, GWTHomeAwareModule, EnunciateClasspathListener, FacetAware, DependencyAwareModule {
 
   private boolean forceGenerateJsonOverlays = false;
   private boolean disableJsonOverlays = false;
@@ -294,6 +295,17 @@ public class GWTDeploymentModule extends FreemarkerDeploymentModule implements P
     return "gwt";
   }
 
+  /**
+   * The GWT compile (of the GWT apps and the client-side classes) only uses files generated by this module, so it can
+   * run concurrently with the other modules.
+   *
+   * @param target The target.
+   * @return No dependencies for the compile step, null otherwise.
+   */
+  public Set<String> getStepDependencies(Enunciate.Target target) {
+    return target == Enunciate.Target.COMPILE ? Collections.<String>emptySet() : null;
+  }
+
   @Override
   public void init(Enunciate enunciate) throws EnunciateException {
     super.init(enunciate);
@@ -417,22 +429,28 @@ public class GWTDeploymentModule extends FreemarkerDeploymentModule implements P
   public void doFreemarkerGenerate() throws IOException, TemplateException, EnunciateException {
     File clientSideGenerateDir = getClientSideGenerateDir();
     File serverSideGenerateDir = getServerSideGenerateDir();
-    boolean upToDate = enunciate.isUpToDateWithSources(clientSideGenerateDir) && enunciate.isUpToDateWithSources(serverSideGenerateDir);
+    //load the references to the templates....
+    URL typeMapperTemplate = getTemplateURL("gwt-type-mapper.fmt");
+    URL enumTypeMapperTemplate = getTemplateURL("gwt-enum-15-type-mapper.fmt");
+    URL faultMapperTemplate = getTemplateURL("gwt-fault-mapper.fmt");
+    URL moduleXmlTemplate = getTemplateURL("gwt-module-xml.fmt");
+
+    URL eiTemplate = isUseWrappedServices() ? getTemplateURL("gwt-legacy-endpoint-interface.fmt") : getTemplateURL("gwt-endpoint-interface.fmt");
+    URL endpointImplTemplate = getTemplateURL("gwt-endpoint-impl.fmt");
+    URL faultTemplate = getTemplateURL("gwt-fault.fmt");
+    URL typeTemplate = getTemplateURL("gwt-type.fmt");
+    URL overlayTypeTemplate = getTemplateURL("gwt-overlay-type.fmt");
+    URL enumTypeTemplate = getTemplateURL("gwt-enum-15-type.fmt");
+    URL overlayEnumTypeTemplate = getTemplateURL("gwt-enum-overlay-type.fmt");
+
+    BuildState.Fingerprint inputs = enunciate.newFingerprint(this)
+      .addTemplate(typeMapperTemplate).addTemplate(enumTypeMapperTemplate).addTemplate(faultMapperTemplate).addTemplate(moduleXmlTemplate)
+      .addTemplate(eiTemplate).addTemplate(endpointImplTemplate).addTemplate(faultTemplate).addTemplate(typeTemplate)
+      .addTemplate(overlayTypeTemplate).addTemplate(enumTypeTemplate).addTemplate(overlayEnumTypeTemplate)
+      .add(String.valueOf(this.springDIFound))
+      .add(this.gwtClasspathHandler != null ? new TreeMap<String, String>(this.gwtClasspathHandler.getSourcePackagesToModules()).toString() : "");
+    boolean upToDate = enunciate.isUpToDateWithInputs(clientSideGenerateDir, inputs) && enunciate.isUpToDateWithInputs(serverSideGenerateDir, inputs);
     if (!upToDate) {
-      //load the references to the templates....
-      URL typeMapperTemplate = getTemplateURL("gwt-type-mapper.fmt");
-      URL enumTypeMapperTemplate = getTemplateURL("gwt-enum-15-type-mapper.fmt");
-      URL faultMapperTemplate = getTemplateURL("gwt-fault-mapper.fmt");
-      URL moduleXmlTemplate = getTemplateURL("gwt-module-xml.fmt");
-
-      URL eiTemplate = isUseWrappedServices() ? getTemplateURL("gwt-legacy-endpoint-interface.fmt") : getTemplateURL("gwt-endpoint-interface.fmt");
-      URL endpointImplTemplate = getTemplateURL("gwt-endpoint-impl.fmt");
-      URL faultTemplate = getTemplateURL("gwt-fault.fmt");
-      URL typeTemplate = getTemplateURL("gwt-type.fmt");
-      URL overlayTypeTemplate = getTemplateURL("gwt-overlay-type.fmt");
-      URL enumTypeTemplate = getTemplateURL("gwt-enum-15-type.fmt");
-      URL overlayEnumTypeTemplate = getTemplateURL("gwt-enum-overlay-type.fmt");
-
       EnunciateFreemarkerModel model = getModel();
       model.put("useSpringDI", this.springDIFound);
       model.put("useWrappedServices", this.isUseWrappedServices());
@@ -624,6 +642,9 @@ public class GWTDeploymentModule extends FreemarkerDeploymentModule implements P
         mappingsOut.flush();
         mappingsOut.close();
       }
+
+      enunciate.setUpToDateWithInputs(clientSideGenerateDir, inputs);
+      enunciate.setUpToDateWithInputs(serverSideGenerateDir, inputs);
     }
     else {
       info("Skipping GWT source generation as everything appears up-to-date...");
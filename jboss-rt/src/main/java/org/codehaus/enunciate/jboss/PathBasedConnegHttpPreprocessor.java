@@ -4,6 +4,11 @@ import org.jboss.resteasy.spi.HttpRequest;
 import org.jboss.resteasy.spi.HttpRequestPreprocessor;
 
 import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -11,22 +16,69 @@ import java.util.Map;
  */
 public class PathBasedConnegHttpPreprocessor implements HttpRequestPreprocessor {
 
-  private Map<String,MediaType> mediaTypeMappings;
+  /**
+   * The mappings, indexed by the first character of their key, longest key first.
+   */
+  private final Map<Character, Mapping[]> mappingsByFirstChar = new HashMap<Character, Mapping[]>();
 
   public PathBasedConnegHttpPreprocessor(Map<String,MediaType> mediaTypeMappings) {
-    this.mediaTypeMappings = mediaTypeMappings;
+    Map<Character, List<Mapping>> mappings = new HashMap<Character, List<Mapping>>();
+    for (Map.Entry<String, MediaType> mediaType : mediaTypeMappings.entrySet()) {
+      String key = mediaType.getKey();
+      if (key.length() == 0) {
+        continue;
+      }
+
+      List<Mapping> candidates = mappings.get(key.charAt(0));
+      if (candidates == null) {
+        candidates = new ArrayList<Mapping>();
+        mappings.put(key.charAt(0), candidates);
+      }
+      candidates.add(new Mapping(key, mediaType.getValue()));
+    }
+
+    for (Map.Entry<Character, List<Mapping>> entry : mappings.entrySet()) {
+      List<Mapping> candidates = entry.getValue();
+      Collections.sort(candidates, new Comparator<Mapping>() {
+        public int compare(Mapping m1, Mapping m2) {
+          return m2.key.length() - m1.key.length();
+        }
+      });
+      this.mappingsByFirstChar.put(entry.getKey(), candidates.toArray(new Mapping[candidates.size()]));
+    }
   }
 
   public void preProcess(HttpRequest request) {
     String preprocessedPath = request.getPreprocessedPath();
-    for (Map.Entry<String, MediaType> mediaType : mediaTypeMappings.entrySet()) {
-      int mediaTypeMappingIndex = preprocessedPath.indexOf("/" + mediaType.getKey() + "/");
-      if (mediaTypeMappingIndex >= 0) {
-        preprocessedPath = preprocessedPath.substring(mediaTypeMappingIndex + mediaType.getKey().length() + 1);
-        request.setPreprocessedPath(preprocessedPath);
-        request.getHttpHeaders().getAcceptableMediaTypes().add(0, mediaType.getValue());
-        break;
+    int length = preprocessedPath.length();
+
+    //look for the first "/[key]/" in the path, checking only the mappings that start with the character after each slash.
+    int slash = preprocessedPath.indexOf('/');
+    while (slash >= 0 && slash + 1 < length) {
+      Mapping[] candidates = this.mappingsByFirstChar.get(preprocessedPath.charAt(slash + 1));
+      if (candidates != null) {
+        for (Mapping candidate : candidates) {
+          int end = slash + 1 + candidate.key.length();
+          if (end < length && preprocessedPath.charAt(end) == '/' && preprocessedPath.regionMatches(slash + 1, candidate.key, 0, candidate.key.length())) {
+            request.setPreprocessedPath(preprocessedPath.substring(end));
+            request.getHttpHeaders().getAcceptableMediaTypes().add(0, candidate.mediaType);
+            return;
+          }
+        }
       }
+
+      slash = preprocessedPath.indexOf('/', slash + 1);
+    }
+  }
+
+  private static final class Mapping {
+
+    final String key;
+    final MediaType mediaType;
+
+    Mapping(String key, MediaType mediaType) {
+      this.key = key;
+      this.mediaType = mediaType;
     }
   }
 }
@@ -0,0 +1,129 @@
+package org.codehaus.enunciate.jboss;
+
+import org.jboss.resteasy.spi.HttpRequest;
+import org.jboss.resteasy.spi.HttpRequestPreprocessor;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the time {@link PathBasedConnegHttpPreprocessor} takes to preprocess a request against the previous
+ * implementation, which searched the path for each mapping in turn, with 5, 20 and 100 mappings. This isn't a unit
+ * test; run it on the test classpath with <code>java org.codehaus.enunciate.jboss.PathBasedConnegBenchmark
+ * [iterations]</code>.
+ *
+ * @author Ryan Heaton
+ */
+public class PathBasedConnegBenchmark {
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+    for (int mappingCount : new int[] {5, 20, 100}) {
+      Map<String, MediaType> mappings = new HashMap<String, MediaType>();
+      for (int i = 0; i < mappingCount; i++) {
+        mappings.put("type" + i, new MediaType("application", "x-type" + i));
+      }
+
+      //a match deep in the path, no match, and a match at the start of the path.
+      String[] paths = {"/rest/type" + (mappingCount - 1) + "/people/123", "/rest/people/123/addresses", "/type0/people"};
+      HttpRequestPreprocessor previous = new IndexOfConnegHttpPreprocessor(mappings);
+      HttpRequestPreprocessor current = new PathBasedConnegHttpPreprocessor(mappings);
+
+      //warm up.
+      time(previous, paths, iterations);
+      time(current, paths, iterations);
+
+      System.out.println(String.format("%d mappings: previous %d ns/op, current %d ns/op", mappingCount, time(previous, paths, iterations), time(current, paths, iterations)));
+    }
+  }
+
+  /**
+   * Time the preprocessing of the specified paths.
+   *
+   * @param preprocessor The preprocessor.
+   * @param paths The paths to preprocess, in turn.
+   * @param iterations The number of requests to preprocess.
+   * @return The average time per request, in nanoseconds.
+   */
+  private static long time(HttpRequestPreprocessor preprocessor, String[] paths, int iterations) {
+    BenchmarkRequest request = new BenchmarkRequest();
+    HttpRequest proxy = request.proxy();
+    long checksum = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      request.path = paths[i % paths.length];
+      request.acceptable.clear();
+      preprocessor.preProcess(proxy);
+      checksum += request.path.length();
+    }
+    long duration = System.nanoTime() - start;
+    if (checksum == 0) {
+      //keep the loop from being optimized away.
+      System.out.println();
+    }
+    return duration / iterations;
+  }
+
+  /**
+   * A request with a mutable path and an acceptable media type list.
+   */
+  private static final class BenchmarkRequest implements InvocationHandler {
+
+    String path;
+    final List<MediaType> acceptable = new ArrayList<MediaType>();
+
+    HttpRequest proxy() {
+      return (HttpRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{HttpRequest.class, HttpHeaders.class}, this);
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if ("getPreprocessedPath".equals(name)) {
+        return this.path;
+      }
+      else if ("setPreprocessedPath".equals(name)) {
+        this.path = (String) args[0];
+        return null;
+      }
+      else if ("getHttpHeaders".equals(name)) {
+        return proxy;
+      }
+      else if ("getAcceptableMediaTypes".equals(name)) {
+        return this.acceptable;
+      }
+      throw new UnsupportedOperationException(name);
+    }
+  }
+
+  /**
+   * The previous implementation, which built a "/[key]/" string and searched the whole path for it, for each mapping.
+   */
+  private static final class IndexOfConnegHttpPreprocessor implements HttpRequestPreprocessor {
+
+    private final Map<String, MediaType> mediaTypeMappings;
+
+    IndexOfConnegHttpPreprocessor(Map<String, MediaType> mediaTypeMappings) {
+      this.mediaTypeMappings = mediaTypeMappings;
+    }
+
+    public void preProcess(HttpRequest request) {
+      String preprocessedPath = request.getPreprocessedPath();
+      for (Map.Entry<String, MediaType> mediaType : mediaTypeMappings.entrySet()) {
+        int mediaTypeMappingIndex = preprocessedPath.indexOf("/" + mediaType.getKey() + "/");
+        if (mediaTypeMappingIndex >= 0) {
+          preprocessedPath = preprocessedPath.substring(mediaTypeMappingIndex + mediaType.getKey().length() + 1);
+          request.setPreprocessedPath(preprocessedPath);
+          request.getHttpHeaders().getAcceptableMediaTypes().add(0, mediaType.getValue());
+          break;
+        }
+      }
+    }
+  }
+}
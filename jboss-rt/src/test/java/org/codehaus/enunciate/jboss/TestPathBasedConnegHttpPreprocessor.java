@@ -0,0 +1,97 @@
+package org.codehaus.enunciate.jboss;
+
+import static org.easymock.EasyMock.*;
+
+import junit.framework.TestCase;
+import org.jboss.resteasy.spi.HttpRequest;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestPathBasedConnegHttpPreprocessor extends TestCase {
+
+  private static final MediaType XML = new MediaType("application", "xml");
+  private static final MediaType JSON = new MediaType("application", "json");
+  private static final MediaType JSON_V2 = new MediaType("application", "vnd.json-v2");
+
+  /**
+   * tests that the first mapping in the path is applied.
+   */
+  public void testFirstMatch() throws Exception {
+    //the mapping that comes first in the path wins, no matter the order of the mappings.
+    Map<String, MediaType> mappings = new LinkedHashMap<String, MediaType>();
+    mappings.put("xml", XML);
+    mappings.put("json", JSON);
+    PathBasedConnegHttpPreprocessor preprocessor = new PathBasedConnegHttpPreprocessor(mappings);
+
+    List<MediaType> acceptable = new ArrayList<MediaType>();
+    acceptable.add(XML);
+    assertPreprocessed(preprocessor, "/rest/json/people/xml/1", "/people/xml/1", acceptable);
+    assertEquals(2, acceptable.size());
+    assertSame(JSON, acceptable.get(0));
+
+    acceptable = new ArrayList<MediaType>();
+    assertPreprocessed(preprocessor, "/xml/people/json/1", "/people/json/1", acceptable);
+    assertEquals(1, acceptable.size());
+    assertSame(XML, acceptable.get(0));
+  }
+
+  /**
+   * tests that the longest of the mappings at the same place in the path is applied.
+   */
+  public void testLongestKey() throws Exception {
+    Map<String, MediaType> mappings = new HashMap<String, MediaType>();
+    mappings.put("json", JSON);
+    mappings.put("json/v2", JSON_V2);
+    PathBasedConnegHttpPreprocessor preprocessor = new PathBasedConnegHttpPreprocessor(mappings);
+
+    List<MediaType> acceptable = new ArrayList<MediaType>();
+    assertPreprocessed(preprocessor, "/rest/json/v2/people", "/people", acceptable);
+    assertEquals(1, acceptable.size());
+    assertSame(JSON_V2, acceptable.get(0));
+
+    acceptable = new ArrayList<MediaType>();
+    assertPreprocessed(preprocessor, "/rest/json/v3/people", "/v3/people", acceptable);
+    assertEquals(1, acceptable.size());
+    assertSame(JSON, acceptable.get(0));
+  }
+
+  /**
+   * tests that a path without a mapping isn't changed.
+   */
+  public void testNoMatch() throws Exception {
+    Map<String, MediaType> mappings = new HashMap<String, MediaType>();
+    mappings.put("json", JSON);
+    mappings.put("xml", XML);
+    PathBasedConnegHttpPreprocessor preprocessor = new PathBasedConnegHttpPreprocessor(mappings);
+
+    //a key has to be a whole segment, followed by a slash.
+    for (String path : new String[] {"/rest/people/1", "/rest/jsonp/people", "/rest/people/json", "/rest/xm/people", "/"}) {
+      HttpRequest request = createMock(HttpRequest.class);
+      expect(request.getPreprocessedPath()).andReturn(path);
+      replay(request);
+      preprocessor.preProcess(request);
+      verify(request);
+    }
+  }
+
+  private void assertPreprocessed(PathBasedConnegHttpPreprocessor preprocessor, String path, String expectedPath, List<MediaType> acceptable) {
+    HttpRequest request = createMock(HttpRequest.class);
+    HttpHeaders headers = createMock(HttpHeaders.class);
+    expect(request.getPreprocessedPath()).andReturn(path);
+    request.setPreprocessedPath(expectedPath);
+    expect(request.getHttpHeaders()).andReturn(headers);
+    expect(headers.getAcceptableMediaTypes()).andReturn(acceptable);
+    replay(request, headers);
+    preprocessor.preProcess(request);
+    verify(request, headers);
+  }
+}
@@ -5,24 +5,47 @@ import com.sun.jersey.api.model.AbstractResourceMethod;
 import com.sun.jersey.api.model.AbstractSubResourceLocator;
 import com.sun.jersey.server.impl.modelapi.annotation.IntrospectionModeller;
 import com.sun.jersey.core.reflection.AnnotatedMethod;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.framework.ReflectiveMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.target.SingletonTargetSource;
+import org.springframework.util.ClassUtils;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
- * Factory for JSR 311 resources that are advised.
+ * Factory for JSR 311 resources that are advised. The proxy class is generated once for each resource class, and the
+ * interceptor chain for each method is resolved once (and cached) by this factory, so advising each resource instance
+ * only costs the instantiation of a proxy.
+ * <p/>
+ * Like Spring's own proxies, the proxies implement {@link org.springframework.aop.SpringProxy} and (unless the factory
+ * is opaque) {@link Advised}. Invocations on the {@link Advised} interface go to this factory, so the configuration is
+ * shared by all the resources it advises, but the target of each proxy is its own bare resource.
+ * <p/>
+ * These proxies don't expose themselves through {@link org.springframework.aop.framework.AopContext}. If the factory is
+ * configured to {@link #setExposeProxy(boolean) expose the proxy}, each resource instance is advised with a regular
+ * Spring proxy instead, which does.
  *
  * @author Ryan Heaton
  */
 public class AdvisedResourceFactory<T> extends ProxyFactory {
 
   private final boolean advising;
-
-  private AdvisedResourceFactory() {
-    advising = true;
-    //no-op for internal use.
-  }
+  private final Class<T> resourceClass;
+  private volatile ProxyCreator proxyCreator;
 
   /**
    * Create an advised resource factory for the specified class.
@@ -30,6 +53,7 @@ public class AdvisedResourceFactory<T> extends ProxyFactory {
    * @param resourceClass The resource class.
    */
   public AdvisedResourceFactory(Class<T> resourceClass) {
+    this.resourceClass = resourceClass;
     AbstractResource resource = IntrospectionModeller.createResource(resourceClass);
 
     if (!resource.isRootResource()) {
@@ -63,12 +87,21 @@ public class AdvisedResourceFactory<T> extends ProxyFactory {
       //we're not doing any advising, just return the bare resource.
       return bareResource;
     }
-    else {
-      AdvisedResourceFactory local = new AdvisedResourceFactory();
+    else if (isExposeProxy()) {
+      //only spring's own proxies can expose themselves through the AopContext.
+      ProxyFactory local = new ProxyFactory();
       local.copyConfigurationFrom(this);
       local.setTarget(bareResource);
       return local.getProxy();
     }
+    else {
+      ProxyCreator proxyCreator = this.proxyCreator;
+      if (proxyCreator == null) {
+        proxyCreator = isProxyTargetClass() ? new CglibProxyCreator() : new JdkProxyCreator();
+        this.proxyCreator = proxyCreator;
+      }
+      return proxyCreator.createProxy(bareResource);
+    }
   }
 
   protected Set<Class> getDefiningClasses(AbstractResource resourceClass) {
@@ -89,4 +122,167 @@ public class AdvisedResourceFactory<T> extends ProxyFactory {
     return definingClasses;
   }
 
+  /**
+   * Invoke a method on an advised resource.
+   *
+   * @param proxy The proxy.
+   * @param target The bare resource.
+   * @param method The method.
+   * @param args The arguments.
+   * @return The return value.
+   */
+  protected Object invokeAdvised(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+    if (method.getDeclaringClass() == AdvisedResource.class) {
+      return target;
+    }
+    else if (method.getDeclaringClass().isInterface() && method.getDeclaringClass().isAssignableFrom(Advised.class)) {
+      if (method.getParameterTypes().length == 0 && "getTargetSource".equals(method.getName())) {
+        return new SingletonTargetSource(target);
+      }
+      else if (method.getParameterTypes().length == 0 && "getTargetClass".equals(method.getName())) {
+        return target.getClass();
+      }
+
+      //other invocations on the Advised interface go to the proxy configuration.
+      return AopUtils.invokeJoinpointUsingReflection(this, method, args);
+    }
+    else if (AopUtils.isEqualsMethod(method)) {
+      return proxy == args[0];
+    }
+    else if (AopUtils.isHashCodeMethod(method)) {
+      return System.identityHashCode(proxy);
+    }
+    else if ("finalize".equals(method.getName()) && method.getParameterTypes().length == 0) {
+      //the bare resource is finalized on its own.
+      return null;
+    }
+
+    Class<?> targetClass = target.getClass();
+    //the interceptor chain for each method is cached by this factory.
+    List chain = getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+    Object retVal;
+    if (chain.isEmpty()) {
+      retVal = AopUtils.invokeJoinpointUsingReflection(target, method, args);
+    }
+    else {
+      retVal = new ResourceMethodInvocation(proxy, target, method, args, targetClass, chain).proceed();
+    }
+
+    if (retVal == target && method.getReturnType().isInstance(proxy)) {
+      //"return this" returns the proxy.
+      retVal = proxy;
+    }
+    return retVal;
+  }
+
+  /**
+   * Implemented by the advised resources created by this factory.
+   */
+  public static interface AdvisedResource {
+
+    /**
+     * The bare resource that's being advised.
+     *
+     * @return The bare resource that's being advised.
+     */
+    Object getAdvisedResourceTarget();
+  }
+
+  /**
+   * The interfaces implemented by the proxies: the proxied interfaces, {@link org.springframework.aop.SpringProxy} and
+   * {@link Advised} (as Spring's proxies would implement them) and {@link AdvisedResource}.
+   *
+   * @return The interfaces implemented by the proxies.
+   */
+  protected Class[] getProxyInterfaces() {
+    Class[] interfaces = AopProxyUtils.completeProxiedInterfaces(this);
+    Class[] proxyInterfaces = new Class[interfaces.length + 1];
+    System.arraycopy(interfaces, 0, proxyInterfaces, 0, interfaces.length);
+    proxyInterfaces[interfaces.length] = AdvisedResource.class;
+    return proxyInterfaces;
+  }
+
+  private static interface ProxyCreator {
+
+    Object createProxy(Object target);
+  }
+
+  /**
+   * Creates JDK proxies with the constructor of the proxy class.
+   */
+  private final class JdkProxyCreator implements ProxyCreator {
+
+    private final Constructor<?> constructor;
+
+    JdkProxyCreator() {
+      try {
+        this.constructor = Proxy.getProxyClass(ClassUtils.getDefaultClassLoader(), getProxyInterfaces()).getConstructor(InvocationHandler.class);
+      }
+      catch (NoSuchMethodException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    public Object createProxy(final Object target) {
+      try {
+        return this.constructor.newInstance(new InvocationHandler() {
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return invokeAdvised(proxy, target, method, args);
+          }
+        });
+      }
+      catch (InvocationTargetException e) {
+        throw new IllegalStateException(e.getTargetException());
+      }
+      catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Creates CGLIB proxies of the proxy class generated for the resource class.
+   */
+  private final class CglibProxyCreator implements ProxyCreator {
+
+    private final Class<?> proxyClass;
+
+    CglibProxyCreator() {
+      Enhancer enhancer = new Enhancer();
+      enhancer.setSuperclass(resourceClass);
+      enhancer.setInterfaces(getProxyInterfaces());
+      enhancer.setCallbackType(MethodInterceptor.class);
+      enhancer.setClassLoader(resourceClass.getClassLoader());
+      this.proxyClass = enhancer.createClass();
+    }
+
+    public Object createProxy(final Object target) {
+      Enhancer.registerCallbacks(this.proxyClass, new Callback[]{new MethodInterceptor() {
+        public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+          return invokeAdvised(proxy, target, method, args);
+        }
+      }});
+
+      try {
+        return this.proxyClass.newInstance();
+      }
+      catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+      finally {
+        Enhancer.registerCallbacks(this.proxyClass, null);
+      }
+    }
+  }
+
+  /**
+   * A method invocation on an advised resource.
+   */
+  private static final class ResourceMethodInvocation extends ReflectiveMethodInvocation {
+
+    ResourceMethodInvocation(Object proxy, Object target, Method method, Object[] arguments, Class targetClass, List chain) {
+      super(proxy, target, method, arguments, targetClass, chain);
+    }
+  }
+
 }
@@ -24,11 +24,23 @@ import javax.xml.bind.Marshaller;
 import javax.xml.bind.PropertyException;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,16 +54,142 @@ public class EnunciateJAXBContextResolver implements ContextResolver<JAXBContext
 
   private static final Logger LOG = Logger.getLogger(EnunciateJAXBContextResolver.class.getName());
 
-  private final JAXBContext context;
   private final Object prefixMapper;
+  private final FutureTask<JAXBContext> initialization;
+  private volatile Set<Class> types = Collections.emptySet();
 
-  private final Set<Class> types;
+  /**
+   * The contexts created for root elements that aren't one of the known types, so marshallers (and pools of them) can be reused.
+   */
+  private final ConcurrentMap<Class<?>, JAXBContext> rootElementContexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
 
   public EnunciateJAXBContextResolver() throws Exception {
-    this.types = loadTypes();
+    this(false);
+  }
+
+  /**
+   * @param background Whether to create the JAXB context on a background thread. If so, requests for the context wait
+   * until it's been created, but the application can otherwise go ahead and serve requests that don't need it.
+   */
+  public EnunciateJAXBContextResolver(boolean background) throws Exception {
     this.prefixMapper = loadPrefixMapper();
+    this.initialization = new FutureTask<JAXBContext>(new Callable<JAXBContext>() {
+      public JAXBContext call() throws Exception {
+        return initialize();
+      }
+    });
+
+    if (background) {
+      Thread thread = new Thread(this.initialization, "Enunciate JAXB Context Initialization");
+      thread.setDaemon(true);
+      thread.setContextClassLoader(getDefaultClassLoader());
+      thread.start();
+    }
+    else {
+      this.initialization.run();
+      try {
+        this.initialization.get();
+      }
+      catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        throw cause instanceof Exception ? (Exception) cause : e;
+      }
+    }
+  }
+
+  /**
+   * Load the types and create the JAXB context.
+   *
+   * @return The JAXB context.
+   */
+  protected JAXBContext initialize() throws Exception {
+    long start = System.currentTimeMillis();
+    try {
+      Set<Class> types = loadTypes();
+      long typesLoaded = System.currentTimeMillis();
+      JAXBContext context = applyPrefixMapper(JAXBContext.newInstance(types.toArray(new Class[types.size()])));
+      long end = System.currentTimeMillis();
+      LOG.info(String.format("Created the JAXB context for %d types in %d ms (total initialization: %d ms).", types.size(), end - typesLoaded, end - start));
+      this.types = types;
+      return context;
+    }
+    catch (Exception e) {
+      LOG.log(Level.SEVERE, "Unable to create the JAXB context for jersey.", e);
+      throw e;
+    }
+  }
+
+  /**
+   * Whether the JAXB context has been initialized.
+   *
+   * @return Whether the JAXB context has been initialized.
+   */
+  public boolean isInitialized() {
+    return this.initialization.isDone() && !isFailed();
+  }
+
+  /**
+   * Whether the JAXB context failed to initialize (or its initialization was cancelled).
+   *
+   * @return Whether the JAXB context failed to initialize.
+   */
+  public boolean isFailed() {
+    if (!this.initialization.isDone()) {
+      return false;
+    }
+    else if (this.initialization.isCancelled()) {
+      return true;
+    }
+
+    try {
+      this.initialization.get();
+      return false;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    catch (ExecutionException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Stop the initialization of the JAXB context if it's still going on the background thread.
+   */
+  public void destroy() {
+    this.initialization.cancel(true);
+  }
+
+  /**
+   * Wait for the JAXB context to be initialized.
+   *
+   * @return The JAXB context, or null if it couldn't be created.
+   */
+  protected JAXBContext awaitContext() {
+    try {
+      return this.initialization.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    catch (ExecutionException e) {
+      //already logged.
+      return null;
+    }
+    catch (CancellationException e) {
+      return null;
+    }
+  }
 
-    JAXBContext context = JAXBContext.newInstance(this.types.toArray(new Class[types.size()]));
+  /**
+   * Wrap the specified context so that its marshallers apply the namespace prefix mapper, if there is one.
+   *
+   * @param context The context.
+   * @return The context to use.
+   */
+  protected JAXBContext applyPrefixMapper(JAXBContext context) {
     if (this.prefixMapper != null) {
       context = new DelegatingJAXBContext(context) {
         @Override
@@ -67,22 +205,62 @@ public class EnunciateJAXBContextResolver implements ContextResolver<JAXBContext
         }
       };
     }
-    this.context = context;
+    return context;
   }
 
   public Set<Class> loadTypes() {
-    HashSet<Class> types = new HashSet<Class>();
+    long start = System.currentTimeMillis();
+    Map<String, List<String>> typeIndex = readTypeIndex();
+    long indexRead = System.currentTimeMillis();
+    int typeCount = 0;
+    for (List<String> typeNames : typeIndex.values()) {
+      typeCount += typeNames.size();
+    }
+    LOG.info(String.format("Read the index of %d jaxb types in %d packages in %d ms.", typeCount, typeIndex.size(), indexRead - start));
+
+    Set<Class> types = new LinkedHashSet<Class>(typeCount * 2);
+    for (Map.Entry<String, List<String>> pckg : typeIndex.entrySet()) {
+      long packageStart = System.currentTimeMillis();
+      for (String typeName : pckg.getValue()) {
+        try {
+          types.add(loadClass(typeName));
+        }
+        catch (Throwable e) {
+          LOG.log(Level.SEVERE, "Error loading jaxb type for jersey.", e);
+        }
+      }
+      if (LOG.isLoggable(Level.FINE)) {
+        LOG.fine(String.format("Loaded %d jaxb types in package \"%s\" in %d ms.", pckg.getValue().size(), pckg.getKey(), System.currentTimeMillis() - packageStart));
+      }
+    }
+    LOG.info(String.format("Loaded %d jaxb types in %d ms.", types.size(), System.currentTimeMillis() - indexRead));
+
+    return types;
+  }
+
+  /**
+   * Read the index of jaxb types, grouped by package.
+   *
+   * @return The names of the jaxb types, by package.
+   */
+  protected Map<String, List<String>> readTypeIndex() {
+    Map<String, List<String>> typeIndex = new LinkedHashMap<String, List<String>>();
     InputStream stream = loadResource("/jaxrs-jaxb-types.list");
     if (stream != null) {
       try {
         BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "utf-8"));
         String line = reader.readLine();
         while (line != null) {
-          try {
-            types.add(loadClass(line));
-          }
-          catch (Throwable e) {
-            LOG.log(Level.SEVERE, "Error loading jaxb type for jersey.", e);
+          line = line.trim();
+          if (line.length() > 0) {
+            int lastDot = line.lastIndexOf('.');
+            String pckg = lastDot < 0 ? "" : line.substring(0, lastDot);
+            List<String> typeNames = typeIndex.get(pckg);
+            if (typeNames == null) {
+              typeNames = new ArrayList<String>();
+              typeIndex.put(pckg, typeNames);
+            }
+            typeNames.add(line);
           }
           line = reader.readLine();
         }
@@ -90,10 +268,17 @@ public class EnunciateJAXBContextResolver implements ContextResolver<JAXBContext
       catch (Throwable e) {
         LOG.log(Level.SEVERE, "Error reading jaxb types for jersey.", e);
       }
+      finally {
+        try {
+          stream.close();
+        }
+        catch (IOException e) {
+          //fall through...
+        }
+      }
     }
 
-
-    return types;
+    return typeIndex;
   }
 
   protected Object loadPrefixMapper() {
@@ -161,33 +346,27 @@ public class EnunciateJAXBContextResolver implements ContextResolver<JAXBContext
   }
 
   public JAXBContext getContext(Class<?> objectType) {
-    if (types.contains(objectType)) {
+    JAXBContext context = awaitContext();
+    if (context != null && this.types.contains(objectType)) {
       return context;
     }
     else if (objectType.isAnnotationPresent(XmlRootElement.class)) {
       //if this is a root element, we'll do our best to apply our namespace prefix mapper.
-      try {
-        JAXBContext context = JAXBContext.newInstance(objectType);
-        if (this.prefixMapper != null) {
-          context = new DelegatingJAXBContext(context) {
-            @Override
-            public Marshaller createMarshaller() throws JAXBException {
-              Marshaller marshaller = super.createMarshaller();
-              try {
-                marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", prefixMapper);
-              }
-              catch (PropertyException e) {
-                //fall through...
-              }
-              return marshaller;
-            }
-          };
+      context = this.rootElementContexts.get(objectType);
+      if (context == null) {
+        try {
+          context = applyPrefixMapper(JAXBContext.newInstance(objectType));
+        }
+        catch (Exception e) {
+          return null;
+        }
+
+        JAXBContext existing = this.rootElementContexts.putIfAbsent(objectType, context);
+        if (existing != null) {
+          context = existing;
         }
-        return context;
-      }
-      catch (Exception e) {
-        //fall through...
       }
+      return context;
     }
 
     return null;
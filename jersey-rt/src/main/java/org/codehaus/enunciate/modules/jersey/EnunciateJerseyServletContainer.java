@@ -21,6 +21,8 @@ import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,6 +33,8 @@ import java.util.logging.Logger;
  * <ul>
  *   <li>Loading known Enunciate providers</li>
  *   <li>Application of a JAXB namespace prefix mapper</li>
+ *   <li>Optional creation of the JAXB context on a background thread</li>
+ *   <li>Optional pooling of JAXB marshallers and unmarshallers</li>
  *   <li>path-based resource conneg</li>
  *   <li>Automatic (and dynamic) leverage of Spring container, if found in the environment.</li>
  * </ul>
@@ -45,10 +49,32 @@ public class EnunciateJerseyServletContainer extends ServletContainer {
   private WebApplication wa;
   private String servletPath;
   private boolean pathBasedConneg = true;
+  private MediaTypePrefixTrie mediaTypeMappings;
+  private final ConcurrentMap<String, URI> baseUris = new ConcurrentHashMap<String, URI>();
+  private PooledJAXBProvider pooledJAXBProvider;
+  private EnunciateJAXBContextResolver jaxbContextResolver;
+
+  /**
+   * The maximum number of base URIs to cache. The host is taken from the request, so this bounds what a client can fill it with.
+   */
+  private static final int MAX_CACHED_BASE_URIS = 256;
 
   @Override
   protected void configure(ServletConfig sc, ResourceConfig rc, WebApplication wa) {
-    rc.getClasses().add(EnunciateJAXBContextResolver.class);
+    this.jaxbContextResolver = null;
+    if (Boolean.valueOf(sc.getInitParameter(JerseyAdaptedHttpServletRequest.FEATURE_BACKGROUND_JAXB_CONTEXT))) {
+      try {
+        this.jaxbContextResolver = new EnunciateJAXBContextResolver(true);
+        rc.getSingletons().add(this.jaxbContextResolver);
+      }
+      catch (Exception e) {
+        LOG.log(Level.SEVERE, "Unable to create the JAXB context resolver. Creating the JAXB context on startup instead...", e);
+      }
+    }
+
+    if (this.jaxbContextResolver == null) {
+      rc.getClasses().add(EnunciateJAXBContextResolver.class);
+    }
 
     InputStream stream = loadResource("/jaxrs-providers.list");
     if (stream != null) {
@@ -101,6 +127,22 @@ public class EnunciateJerseyServletContainer extends ServletContainer {
     this.pathBasedConneg = Boolean.valueOf(pathBasedConneg);
     rc.getFeatures().put(JerseyAdaptedHttpServletRequest.FEATURE_PATH_BASED_CONNEG, this.pathBasedConneg);
 
+    if (Boolean.valueOf(sc.getInitParameter(JerseyAdaptedHttpServletRequest.FEATURE_POOLED_JAXB))) {
+      int poolSize = PooledJAXBProvider.DEFAULT_POOL_SIZE;
+      String jaxbPoolSize = sc.getInitParameter(JerseyAdaptedHttpServletRequest.PROPERTY_JAXB_POOL_SIZE);
+      if (jaxbPoolSize != null) {
+        try {
+          poolSize = Integer.parseInt(jaxbPoolSize.trim());
+        }
+        catch (NumberFormatException e) {
+          LOG.log(Level.WARNING, "Invalid JAXB pool size: " + jaxbPoolSize + ". Using the default...");
+        }
+      }
+      this.pooledJAXBProvider = new PooledJAXBProvider(poolSize);
+      rc.getSingletons().add(this.pooledJAXBProvider);
+    }
+    rc.getFeatures().put(JerseyAdaptedHttpServletRequest.FEATURE_POOLED_JAXB, this.pooledJAXBProvider != null);
+
     String resourceProvider = sc.getInitParameter(JerseyAdaptedHttpServletRequest.PROPERTY_RESOURCE_PROVIDER_FACTORY);
     if (resourceProvider != null) {
       this.resourceProviderFactory = resourceProvider;
@@ -130,6 +172,8 @@ public class EnunciateJerseyServletContainer extends ServletContainer {
   protected void initiate(ResourceConfig rc, WebApplication wa) {
     wa.initiate(rc, loadResourceProviderFacotry(rc));
     this.resourceConfig = rc;
+    this.mediaTypeMappings = new MediaTypePrefixTrie(rc.getMediaTypeMappings());
+    this.baseUris.clear();
   }
 
   @Override
@@ -139,6 +183,45 @@ public class EnunciateJerseyServletContainer extends ServletContainer {
     return wa;
   }
 
+  @Override
+  public void destroy() {
+    if (this.pooledJAXBProvider != null) {
+      LOG.log(Level.INFO, "JAXB pool statistics: " + this.pooledJAXBProvider);
+    }
+    if (this.jaxbContextResolver != null) {
+      this.jaxbContextResolver.destroy();
+    }
+    super.destroy();
+  }
+
+  /**
+   * Whether the JAXB context is ready. The JAXB context is always ready unless it's being created on a background thread
+   * (see {@link JerseyAdaptedHttpServletRequest#FEATURE_BACKGROUND_JAXB_CONTEXT}).
+   *
+   * @return Whether the JAXB context is ready.
+   */
+  public boolean isJAXBContextReady() {
+    return this.jaxbContextResolver == null || this.jaxbContextResolver.isInitialized();
+  }
+
+  /**
+   * Whether the JAXB context failed to be created on the background thread. If so, it will never be ready.
+   *
+   * @return Whether the JAXB context failed to be created.
+   */
+  public boolean isJAXBContextFailed() {
+    return this.jaxbContextResolver != null && this.jaxbContextResolver.isFailed();
+  }
+
+  /**
+   * The pooled JAXB provider, if JAXB pooling is enabled.
+   *
+   * @return The pooled JAXB provider, or null if JAXB pooling isn't enabled.
+   */
+  public PooledJAXBProvider getPooledJAXBProvider() {
+    return pooledJAXBProvider;
+  }
+
   /**
    * Attempts to load the spring component provider factory, if spring is enabled.
    * @param rc The resource config.
@@ -212,27 +295,33 @@ public class EnunciateJerseyServletContainer extends ServletContainer {
         requestPath = requestPath.substring(1);
       }
 
-      for (Map.Entry<String, MediaType> mediaMapping : this.resourceConfig.getMediaTypeMappings().entrySet()) {
-        if (requestPath.startsWith(mediaMapping.getKey())) {
-          //found a match to a specific media type, so we need to append the media type's 'key' to the base uri.
-          String mediaKey = mediaMapping.getKey();
-          baseUriPathBuilder.append('/').append(mediaKey);
-          requestPath = requestPath.substring(mediaKey.length());
-          mediaType = mediaMapping.getValue();
-          break;
-        }
+      Map.Entry<String, MediaType> mediaMapping = this.mediaTypeMappings.findLongestPrefix(requestPath);
+      if (mediaMapping != null) {
+        //found a match to a specific media type, so we need to append the media type's 'key' to the base uri.
+        String mediaKey = mediaMapping.getKey();
+        baseUriPathBuilder.append('/').append(mediaKey);
+        requestPath = requestPath.substring(mediaKey.length());
+        mediaType = mediaMapping.getValue();
       }
     }
 
-
     final String baseUriPath = baseUriPathBuilder.append('/').toString();
 
-    //this check is in the super class, so I thought I'd keep it here for grins.
-    if (!baseUriPath.equals(UriComponent.encode(baseUriPath, UriComponent.Type.PATH))) {
-        throw new ContainerException("The servlet context path and/or the servlet path contain characters that are percent enocded");
-    }
+    requestUrl.replacePath(baseUriPath);
+    String baseUriKey = new StringBuilder(request.getScheme()).append("://").append(request.getServerName()).append(':').append(request.getServerPort()).append(baseUriPath).toString();
+    URI baseUri = this.baseUris.get(baseUriKey);
+    if (baseUri == null) {
+      //this check is in the super class, so I thought I'd keep it here for grins.
+      if (!baseUriPath.equals(UriComponent.encode(baseUriPath, UriComponent.Type.PATH))) {
+          throw new ContainerException("The servlet context path and/or the servlet path contain characters that are percent enocded");
+      }
 
-    final URI baseUri = requestUrl.replacePath(baseUriPath).build();
+      baseUri = requestUrl.build();
+      if (this.baseUris.size() >= MAX_CACHED_BASE_URIS) {
+        this.baseUris.clear();
+      }
+      this.baseUris.put(baseUriKey, baseUri);
+    }
 
     String queryParameters = request.getQueryString();
     if (queryParameters == null) {
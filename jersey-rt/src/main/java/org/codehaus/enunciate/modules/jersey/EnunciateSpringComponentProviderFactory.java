@@ -93,6 +93,10 @@ public class EnunciateSpringComponentProviderFactory extends SpringComponentProv
 
   // Inherited.
   public <T> T getInjectableInstance(T instance) {
+    if (instance instanceof AdvisedResourceFactory.AdvisedResource) {
+      instance = (T) ((AdvisedResourceFactory.AdvisedResource) instance).getAdvisedResourceTarget();
+    }
+
     while (AopUtils.isAopProxy(instance)) {
       final Advised aopResource = (Advised) instance;
       try {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2006-2008 Web Cohesion
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.enunciate.modules.jersey;
+
+import javax.xml.bind.JAXBException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of (non-thread-safe) JAXB objects such as marshallers and unmarshallers. The pool is split into stripes
+ * that are selected by thread so that concurrent requests rarely contend for the same lock.
+ *
+ * @author Ryan Heaton
+ */
+abstract class JAXBPool<T> {
+
+  private final Stripe[] stripes;
+  private final int mask;
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+
+  /**
+   * @param maxSize The maximum number of idle objects kept by the pool.
+   * @param hits The counter of borrows satisfied by the pool.
+   * @param misses The counter of borrows that had to create a new object.
+   */
+  JAXBPool(int maxSize, AtomicLong hits, AtomicLong misses) {
+    int stripeCount = 1;
+    int processors = Runtime.getRuntime().availableProcessors();
+    while (stripeCount < processors && stripeCount < maxSize) {
+      stripeCount <<= 1;
+    }
+
+    int stripeCapacity = maxSize <= 0 ? 0 : Math.max(1, maxSize / stripeCount);
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new Stripe(stripeCapacity);
+    }
+    this.mask = stripeCount - 1;
+    this.hits = hits;
+    this.misses = misses;
+  }
+
+  /**
+   * Create a new object for the pool.
+   *
+   * @return The new object.
+   */
+  protected abstract T create() throws JAXBException;
+
+  /**
+   * Borrow an object from the pool, creating one if there are none idle.
+   *
+   * @return The object, which should be {@link #release(Object) released} if it's fit to be reused.
+   */
+  @SuppressWarnings ( "unchecked" )
+  T borrow() throws JAXBException {
+    Object pooled = stripe().pop();
+    if (pooled != null) {
+      this.hits.incrementAndGet();
+      return (T) pooled;
+    }
+
+    this.misses.incrementAndGet();
+    return create();
+  }
+
+  /**
+   * Return an object to the pool. The object is dropped if the pool is full.
+   *
+   * @param object The object.
+   */
+  void release(T object) {
+    stripe().push(object);
+  }
+
+  private Stripe stripe() {
+    return this.stripes[((int) Thread.currentThread().getId()) & this.mask];
+  }
+
+  private static final class Stripe {
+
+    private final Object[] items;
+    private int count;
+
+    Stripe(int capacity) {
+      this.items = new Object[capacity];
+    }
+
+    synchronized Object pop() {
+      if (this.count == 0) {
+        return null;
+      }
+
+      Object item = this.items[--this.count];
+      this.items[this.count] = null;
+      return item;
+    }
+
+    synchronized void push(Object item) {
+      if (this.count < this.items.length) {
+        this.items[this.count++] = item;
+      }
+    }
+  }
+}
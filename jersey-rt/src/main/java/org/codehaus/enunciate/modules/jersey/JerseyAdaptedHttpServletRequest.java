@@ -20,6 +20,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import javax.ws.rs.core.MediaType;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -29,8 +31,19 @@ public class JerseyAdaptedHttpServletRequest extends HttpServletRequestWrapper {
   public static final String PROPERTY_SERVLET_PATH = "org.codehaus.enunciate.modules.jersey.config.ServletPath";
   public static final String PROPERTY_RESOURCE_PROVIDER_FACTORY = "org.codehaus.enunciate.modules.jersey.config.ResourceProviderFactory";
   public static final String FEATURE_PATH_BASED_CONNEG = "org.codehaus.enunciate.modules.jersey.config.PathBasedConneg";
+  public static final String FEATURE_POOLED_JAXB = "org.codehaus.enunciate.modules.jersey.config.PooledJAXB";
+  public static final String FEATURE_BACKGROUND_JAXB_CONTEXT = "org.codehaus.enunciate.modules.jersey.config.BackgroundJAXBContext";
+  public static final String PROPERTY_JAXB_POOL_SIZE = "org.codehaus.enunciate.modules.jersey.config.JAXBPoolSize";
+
+  /**
+   * The "Accept" header values used to override the requested media type, by media type. There's one for each
+   * path-based conneg mapping.
+   */
+  private static final ConcurrentMap<MediaType, String> ACCEPT_OVERRIDES = new ConcurrentHashMap<MediaType, String>();
 
   private final MediaType mediaType;
+  private final String acceptOverride;
+  private List<String> headerNames;
 
   /**
    * Create a request adapted for Jersey.
@@ -41,6 +54,17 @@ public class JerseyAdaptedHttpServletRequest extends HttpServletRequestWrapper {
   public JerseyAdaptedHttpServletRequest(HttpServletRequest request, MediaType mediaType) {
     super(request);
     this.mediaType = mediaType;
+    if (mediaType != null) {
+      String acceptOverride = ACCEPT_OVERRIDES.get(mediaType);
+      if (acceptOverride == null) {
+        acceptOverride = mediaType.toString();
+        ACCEPT_OVERRIDES.putIfAbsent(mediaType, acceptOverride);
+      }
+      this.acceptOverride = acceptOverride;
+    }
+    else {
+      this.acceptOverride = null;
+    }
   }
 
   /**
@@ -51,13 +75,11 @@ public class JerseyAdaptedHttpServletRequest extends HttpServletRequestWrapper {
    */
   @Override
   public String getHeader(String headerName) {
-    String header = super.getHeader(headerName);
-
     //intercept the "Accept" header if the media type is specified on the path.
-    if (mediaType != null && "Accept".equalsIgnoreCase(headerName)) {
-      header = mediaType.toString();
+    if (acceptOverride != null && "Accept".equalsIgnoreCase(headerName)) {
+      return acceptOverride;
     }
-    return header;
+    return super.getHeader(headerName);
   }
 
   /**
@@ -68,13 +90,11 @@ public class JerseyAdaptedHttpServletRequest extends HttpServletRequestWrapper {
    */
   @Override
   public Enumeration getHeaders(String headerName) {
-    Enumeration headers = super.getHeaders(headerName);
-
     //intercept the "Accept" header if the media type is specified on the path.
-    if (mediaType != null && "Accept".equalsIgnoreCase(headerName)) {
-      headers = Collections.enumeration(Arrays.asList(mediaType.toString()));
+    if (acceptOverride != null && "Accept".equalsIgnoreCase(headerName)) {
+      return new SingletonEnumeration(acceptOverride);
     }
-    return headers;
+    return super.getHeaders(headerName);
   }
 
   /**
@@ -84,18 +104,48 @@ public class JerseyAdaptedHttpServletRequest extends HttpServletRequestWrapper {
    */
   @Override
   public Enumeration getHeaderNames() {
-    Enumeration headerNames = super.getHeaderNames();
-    List<String> copy = new ArrayList<String>();
-    if (mediaType != null) {
-      copy.add("Accept");
+    if (mediaType == null) {
+      return super.getHeaderNames();
+    }
+
+    List<String> headerNames = this.headerNames;
+    if (headerNames == null) {
+      Enumeration names = super.getHeaderNames();
+      headerNames = new ArrayList<String>();
+      headerNames.add("Accept");
+      while (names.hasMoreElements()) {
+        String headerName = (String) names.nextElement();
+        if (!"Accept".equalsIgnoreCase(headerName)) {
+          headerNames.add(headerName);
+        }
+      }
+      this.headerNames = headerNames;
+    }
+    return Collections.enumeration(headerNames);
+  }
+
+  /**
+   * An enumeration of a single value.
+   */
+  private static final class SingletonEnumeration implements Enumeration {
+
+    private final Object value;
+    private boolean consumed = false;
+
+    private SingletonEnumeration(Object value) {
+      this.value = value;
+    }
+
+    public boolean hasMoreElements() {
+      return !consumed;
     }
 
-    while (headerNames.hasMoreElements()) {
-      String headerName = (String) headerNames.nextElement();
-      if (mediaType == null || !"Accept".equalsIgnoreCase(headerName)) {
-        copy.add(headerName);
+    public Object nextElement() {
+      if (consumed) {
+        throw new NoSuchElementException();
       }
+      consumed = true;
+      return value;
     }
-    return Collections.enumeration(copy);
   }
 }
@@ -0,0 +1,78 @@
+package org.codehaus.enunciate.modules.jersey;
+
+import javax.ws.rs.core.MediaType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A prefix trie of the media type mappings used for path-based content negotiation, so the mapping for a request path
+ * can be found in a single pass over the path.
+ *
+ * @author Ryan Heaton
+ */
+class MediaTypePrefixTrie {
+
+  private final Node root = new Node();
+
+  /**
+   * @param mediaTypeMappings The media type mappings (path prefix to media type).
+   */
+  MediaTypePrefixTrie(Map<String, MediaType> mediaTypeMappings) {
+    for (Map.Entry<String, MediaType> mapping : mediaTypeMappings.entrySet()) {
+      String prefix = mapping.getKey();
+      Node node = this.root;
+      for (int i = 0; i < prefix.length(); i++) {
+        Character c = prefix.charAt(i);
+        Node child = node.children.get(c);
+        if (child == null) {
+          child = new Node();
+          node.children.put(c, child);
+        }
+        node = child;
+      }
+      node.prefix = prefix;
+      node.mediaType = mapping.getValue();
+    }
+  }
+
+  /**
+   * Find the longest mapped prefix of the specified path.
+   *
+   * @param path The path.
+   * @return The mapping for the longest prefix, or null if no mapped prefix matches.
+   */
+  Map.Entry<String, MediaType> findLongestPrefix(String path) {
+    Node match = this.root.prefix != null ? this.root : null;
+    Node node = this.root;
+    for (int i = 0; i < path.length() && !node.children.isEmpty(); i++) {
+      node = node.children.get(path.charAt(i));
+      if (node == null) {
+        break;
+      }
+
+      if (node.prefix != null) {
+        match = node;
+      }
+    }
+    return match;
+  }
+
+  private static final class Node implements Map.Entry<String, MediaType> {
+
+    final Map<Character, Node> children = new HashMap<Character, Node>(4);
+    String prefix;
+    MediaType mediaType;
+
+    public String getKey() {
+      return prefix;
+    }
+
+    public MediaType getValue() {
+      return mediaType;
+    }
+
+    public MediaType setValue(MediaType value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2006-2008 Web Cohesion
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.enunciate.modules.jersey;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.sax.SAXSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads and writes XML root elements with marshallers and unmarshallers borrowed from bounded pools, one set of pools
+ * for each JAXB context supplied by the JAXB context resolver (see {@link EnunciateJAXBContextResolver}). Enabled with
+ * the {@link JerseyAdaptedHttpServletRequest#FEATURE_POOLED_JAXB} init parameter.
+ *
+ * @author Ryan Heaton
+ */
+@Provider
+@Produces ( { "application/xml", "text/xml", "application/*+xml" } )
+@Consumes ( { "application/xml", "text/xml", "application/*+xml" } )
+public class PooledJAXBProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+  /**
+   * The default maximum number of idle marshallers (and unmarshallers) kept for each JAXB context.
+   */
+  public static final int DEFAULT_POOL_SIZE = 32;
+
+  /**
+   * The maximum number of JAXB contexts to keep pools for. Any other contexts are served by unpooled marshallers and
+   * unmarshallers, which are counted as misses.
+   */
+  private static final int MAX_POOLED_CONTEXTS = 64;
+
+  private final int poolSize;
+  private final ConcurrentMap<JAXBContext, Pools> pools = new ConcurrentHashMap<JAXBContext, Pools>();
+  private final AtomicLong marshallerHits = new AtomicLong();
+  private final AtomicLong marshallerMisses = new AtomicLong();
+  private final AtomicLong unmarshallerHits = new AtomicLong();
+  private final AtomicLong unmarshallerMisses = new AtomicLong();
+  private final SAXParserFactory parserFactory = newParserFactory();
+
+  @Context
+  private Providers providers;
+
+  public PooledJAXBProvider() {
+    this(DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * @param poolSize The maximum number of idle marshallers (and unmarshallers) kept for each JAXB context.
+   */
+  public PooledJAXBProvider(int poolSize) {
+    this.poolSize = poolSize;
+  }
+
+  public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return type.isAnnotationPresent(XmlRootElement.class) && getJAXBContext(type, mediaType) != null;
+  }
+
+  public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException, WebApplicationException {
+    JAXBContext context = getJAXBContext(type, mediaType);
+    Pools pools = getPools(context);
+    try {
+      Unmarshalling unmarshalling;
+      if (pools != null) {
+        unmarshalling = pools.unmarshallers.borrow();
+      }
+      else {
+        this.unmarshallerMisses.incrementAndGet();
+        unmarshalling = newUnmarshalling(context);
+      }
+
+      InputSource source = new InputSource(entityStream);
+      String charset = mediaType.getParameters().get("charset");
+      if (charset != null) {
+        source.setEncoding(charset);
+      }
+
+      Object result = unmarshalling.unmarshaller.unmarshal(new SAXSource(unmarshalling.reader, source));
+      if (pools != null) {
+        //only return the unmarshaller if it got through the document without error.
+        pools.unmarshallers.release(unmarshalling);
+      }
+      if (result instanceof JAXBElement) {
+        result = ((JAXBElement) result).getValue();
+      }
+      return result;
+    }
+    catch (UnmarshalException e) {
+      throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+    }
+    catch (JAXBException e) {
+      throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return type.isAnnotationPresent(XmlRootElement.class) && getJAXBContext(type, mediaType) != null;
+  }
+
+  public long getSize(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return -1;
+  }
+
+  public void writeTo(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+    JAXBContext context = getJAXBContext(type, mediaType);
+    Pools pools = getPools(context);
+    try {
+      Marshaller marshaller;
+      if (pools != null) {
+        marshaller = pools.marshallers.borrow();
+      }
+      else {
+        this.marshallerMisses.incrementAndGet();
+        marshaller = context.createMarshaller();
+      }
+
+      String charset = mediaType.getParameters().get("charset");
+      marshaller.setProperty(Marshaller.JAXB_ENCODING, charset == null ? "UTF-8" : charset);
+      marshaller.marshal(o, entityStream);
+      if (pools != null) {
+        //only return the marshaller if it got through the document without error.
+        pools.marshallers.release(marshaller);
+      }
+    }
+    catch (JAXBException e) {
+      throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * The JAXB context for the specified type, as supplied by the context resolver.
+   *
+   * @param type The type.
+   * @param mediaType The media type.
+   * @return The JAXB context, or null if none.
+   */
+  protected JAXBContext getJAXBContext(Class<?> type, MediaType mediaType) {
+    ContextResolver<JAXBContext> resolver = this.providers == null ? null : this.providers.getContextResolver(JAXBContext.class, mediaType);
+    return resolver == null ? null : resolver.getContext(type);
+  }
+
+  /**
+   * The pools for the specified JAXB context.
+   *
+   * @param context The JAXB context.
+   * @return The pools, or null if the context isn't pooled because the maximum number of contexts are already pooled.
+   */
+  private Pools getPools(JAXBContext context) {
+    Pools pools = this.pools.get(context);
+    if (pools == null && this.pools.size() < MAX_POOLED_CONTEXTS) {
+      pools = new Pools(context);
+      Pools existing = this.pools.putIfAbsent(context, pools);
+      if (existing != null) {
+        pools = existing;
+      }
+    }
+    return pools;
+  }
+
+  /**
+   * Create an unmarshaller for the specified JAXB context, along with the XML reader it parses with.
+   *
+   * @param context The JAXB context.
+   * @return The unmarshaller and its XML reader.
+   */
+  private Unmarshalling newUnmarshalling(JAXBContext context) throws JAXBException {
+    XMLReader reader;
+    try {
+      synchronized (this.parserFactory) {
+        reader = this.parserFactory.newSAXParser().getXMLReader();
+      }
+    }
+    catch (Exception e) {
+      throw new JAXBException(e);
+    }
+    return new Unmarshalling(context.createUnmarshaller(), reader);
+  }
+
+  /**
+   * The maximum number of idle marshallers (and unmarshallers) kept for each JAXB context.
+   *
+   * @return The maximum number of idle marshallers (and unmarshallers) kept for each JAXB context.
+   */
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * The number of marshallers that were borrowed from a pool.
+   *
+   * @return The number of marshallers that were borrowed from a pool.
+   */
+  public long getMarshallerHits() {
+    return marshallerHits.get();
+  }
+
+  /**
+   * The number of marshallers that had to be created because none were pooled.
+   *
+   * @return The number of marshallers that had to be created because none were pooled.
+   */
+  public long getMarshallerMisses() {
+    return marshallerMisses.get();
+  }
+
+  /**
+   * The number of unmarshallers that were borrowed from a pool.
+   *
+   * @return The number of unmarshallers that were borrowed from a pool.
+   */
+  public long getUnmarshallerHits() {
+    return unmarshallerHits.get();
+  }
+
+  /**
+   * The number of unmarshallers that had to be created because none were pooled.
+   *
+   * @return The number of unmarshallers that had to be created because none were pooled.
+   */
+  public long getUnmarshallerMisses() {
+    return unmarshallerMisses.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("marshallers: %d hits, %d misses; unmarshallers: %d hits, %d misses; %d contexts pooled",
+                         getMarshallerHits(), getMarshallerMisses(), getUnmarshallerHits(), getUnmarshallerMisses(), this.pools.size());
+  }
+
+  /**
+   * The marshaller and unmarshaller pools for a JAXB context.
+   */
+  private final class Pools {
+
+    final JAXBPool<Marshaller> marshallers;
+    final JAXBPool<Unmarshalling> unmarshallers;
+
+    Pools(final JAXBContext context) {
+      this.marshallers = new JAXBPool<Marshaller>(poolSize, marshallerHits, marshallerMisses) {
+        @Override
+        protected Marshaller create() throws JAXBException {
+          return context.createMarshaller();
+        }
+      };
+
+      this.unmarshallers = new JAXBPool<Unmarshalling>(poolSize, unmarshallerHits, unmarshallerMisses) {
+        @Override
+        protected Unmarshalling create() throws JAXBException {
+          return newUnmarshalling(context);
+        }
+      };
+    }
+  }
+
+  /**
+   * An unmarshaller and the XML reader it parses with.
+   */
+  private static final class Unmarshalling {
+
+    final Unmarshaller unmarshaller;
+    final XMLReader reader;
+
+    Unmarshalling(Unmarshaller unmarshaller, XMLReader reader) {
+      this.unmarshaller = unmarshaller;
+      this.reader = reader;
+    }
+  }
+
+  /**
+   * A namespace-aware parser factory that doesn't resolve external entities.
+   *
+   * @return The parser factory.
+   */
+  private static SAXParserFactory newParserFactory() {
+    SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+    parserFactory.setNamespaceAware(true);
+    setFeature(parserFactory, XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    setFeature(parserFactory, "http://xml.org/sax/features/external-general-entities", false);
+    setFeature(parserFactory, "http://xml.org/sax/features/external-parameter-entities", false);
+    return parserFactory;
+  }
+
+  private static void setFeature(SAXParserFactory parserFactory, String feature, boolean value) {
+    try {
+      parserFactory.setFeature(feature, value);
+    }
+    catch (Exception e) {
+      //fall through...
+    }
+  }
+}
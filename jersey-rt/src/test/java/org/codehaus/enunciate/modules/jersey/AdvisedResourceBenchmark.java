@@ -0,0 +1,75 @@
+package org.codehaus.enunciate.modules.jersey;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ * Measures the requests per second that can be served by a per-request root resource with one advice applied, where each
+ * request advises a new resource instance and invokes its resource method. The resources are advised by
+ * {@link AdvisedResourceFactory}, and by a new Spring proxy for each instance as before the proxy classes and the
+ * interceptor chains were cached. This isn't a unit test; run it on the test classpath with
+ * <code>java org.codehaus.enunciate.modules.jersey.AdvisedResourceBenchmark [requests]</code>.
+ *
+ * @author Ryan Heaton
+ */
+public class AdvisedResourceBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int requests = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+    benchmark("JDK proxy", new AdvisedResourceFactory<InterfaceGreetingResource>(InterfaceGreetingResource.class), InterfaceGreetingResource.class, requests);
+    benchmark("CGLIB proxy", new AdvisedResourceFactory<ClassGreetingResource>(ClassGreetingResource.class), ClassGreetingResource.class, requests);
+  }
+
+  private static <T extends Greeting> void benchmark(String name, AdvisedResourceFactory<T> factory, Class<T> resourceClass, int requests) throws Exception {
+    factory.addAdvice(new PassThroughInterceptor());
+
+    //warm up.
+    serve(factory, resourceClass, requests, false);
+    serve(factory, resourceClass, requests, true);
+
+    System.out.println(String.format("%s: previous %d requests/s, current %d requests/s", name,
+                                     serve(factory, resourceClass, requests, false), serve(factory, resourceClass, requests, true)));
+  }
+
+  /**
+   * Serve the specified number of requests.
+   *
+   * @param factory The advised resource factory.
+   * @param resourceClass The resource class.
+   * @param requests The number of requests.
+   * @param cached Whether to advise the resources with the factory, or with a new Spring proxy for each resource.
+   * @return The requests served per second.
+   */
+  private static <T extends Greeting> long serve(AdvisedResourceFactory<T> factory, Class<T> resourceClass, int requests, boolean cached) throws Exception {
+    long checksum = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      T resource = resourceClass.newInstance();
+      Greeting advised;
+      if (cached) {
+        advised = (Greeting) factory.createAdvisedResource(resource);
+      }
+      else {
+        ProxyFactory local = new ProxyFactory();
+        local.copyConfigurationFrom(factory);
+        local.setTarget(resource);
+        advised = (Greeting) local.getProxy();
+      }
+      checksum += advised.greet().length();
+    }
+    long duration = System.nanoTime() - start;
+    if (checksum == 0) {
+      //keep the loop from being optimized away.
+      System.out.println();
+    }
+    return requests * 1000000000L / Math.max(duration, 1);
+  }
+
+  private static class PassThroughInterceptor implements MethodInterceptor {
+
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package org.codehaus.enunciate.modules.jersey;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+/**
+ * A root resource whose resource methods are declared by the class, so it's advised with a CGLIB proxy.
+ *
+ * @author Ryan Heaton
+ */
+@Path ( "/class" )
+public class ClassGreetingResource implements Greeting {
+
+  @GET
+  public String greet() {
+    return "hello";
+  }
+}
@@ -0,0 +1,12 @@
+package org.codehaus.enunciate.modules.jersey;
+
+import javax.ws.rs.GET;
+
+/**
+ * @author Ryan Heaton
+ */
+public interface Greeting {
+
+  @GET
+  String greet();
+}
@@ -0,0 +1,16 @@
+package org.codehaus.enunciate.modules.jersey;
+
+import javax.ws.rs.Path;
+
+/**
+ * A root resource whose resource methods are all declared by an interface, so it's advised with a JDK proxy.
+ *
+ * @author Ryan Heaton
+ */
+@Path ( "/interface" )
+public class InterfaceGreetingResource implements Greeting {
+
+  public String greet() {
+    return "hello";
+  }
+}
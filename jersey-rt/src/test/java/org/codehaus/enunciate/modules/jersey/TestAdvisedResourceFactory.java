@@ -0,0 +1,80 @@
+package org.codehaus.enunciate.modules.jersey;
+
+import junit.framework.TestCase;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestAdvisedResourceFactory extends TestCase {
+
+  /**
+   * tests advising a resource with a JDK proxy.
+   */
+  public void testJdkProxy() throws Exception {
+    AdvisedResourceFactory<InterfaceGreetingResource> factory = new AdvisedResourceFactory<InterfaceGreetingResource>(InterfaceGreetingResource.class);
+    CountingInterceptor interceptor = new CountingInterceptor();
+    factory.addAdvice(interceptor);
+
+    InterfaceGreetingResource bare = new InterfaceGreetingResource();
+    Object advised = factory.createAdvisedResource(bare);
+    assertTrue(Proxy.isProxyClass(advised.getClass()));
+    assertAdvised(advised, bare, interceptor);
+
+    //each resource has its own target.
+    InterfaceGreetingResource other = new InterfaceGreetingResource();
+    assertSame(other, ((Advised) factory.createAdvisedResource(other)).getTargetSource().getTarget());
+    assertSame(bare, ((Advised) advised).getTargetSource().getTarget());
+  }
+
+  /**
+   * tests advising a resource with a CGLIB proxy.
+   */
+  public void testCglibProxy() throws Exception {
+    AdvisedResourceFactory<ClassGreetingResource> factory = new AdvisedResourceFactory<ClassGreetingResource>(ClassGreetingResource.class);
+    CountingInterceptor interceptor = new CountingInterceptor();
+    factory.addAdvice(interceptor);
+
+    ClassGreetingResource bare = new ClassGreetingResource();
+    Object advised = factory.createAdvisedResource(bare);
+    assertTrue(AopUtils.isCglibProxy(advised));
+    assertTrue(advised instanceof ClassGreetingResource);
+    assertAdvised(advised, bare, interceptor);
+  }
+
+  /**
+   * tests that a resource isn't advised if there's no advice.
+   */
+  public void testNoAdvice() throws Exception {
+    AdvisedResourceFactory<ClassGreetingResource> factory = new AdvisedResourceFactory<ClassGreetingResource>(ClassGreetingResource.class);
+    ClassGreetingResource bare = new ClassGreetingResource();
+    assertSame(bare, factory.createAdvisedResource(bare));
+  }
+
+  private void assertAdvised(Object advised, Object bare, CountingInterceptor interceptor) throws Exception {
+    assertEquals("hello", ((Greeting) advised).greet());
+    assertEquals(1, interceptor.count);
+
+    //the proxies look like spring's own.
+    assertTrue(AopUtils.isAopProxy(advised));
+    assertSame(bare.getClass(), AopUtils.getTargetClass(advised));
+    assertSame(bare, ((Advised) advised).getTargetSource().getTarget());
+    assertEquals(1, ((Advised) advised).getAdvisors().length);
+    assertSame(bare, ((AdvisedResourceFactory.AdvisedResource) advised).getAdvisedResourceTarget());
+  }
+
+  private static class CountingInterceptor implements MethodInterceptor {
+
+    int count;
+
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      count++;
+      return invocation.proceed();
+    }
+  }
+}
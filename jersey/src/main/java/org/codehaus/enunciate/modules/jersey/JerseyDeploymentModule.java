@@ -21,8 +21,16 @@ import org.apache.commons.digester.RuleSet;
 import org.codehaus.enunciate.EnunciateException;
 import org.codehaus.enunciate.apt.EnunciateClasspathListener;
 import org.codehaus.enunciate.apt.EnunciateFreemarkerModel;
+import org.codehaus.enunciate.config.SchemaInfo;
+import org.codehaus.enunciate.config.WsdlInfo;
+import org.codehaus.enunciate.contract.jaxb.Registry;
+import org.codehaus.enunciate.contract.jaxb.RootElementDeclaration;
+import org.codehaus.enunciate.contract.jaxb.TypeDefinition;
 import org.codehaus.enunciate.contract.jaxrs.ResourceMethod;
 import org.codehaus.enunciate.contract.jaxrs.RootResource;
+import org.codehaus.enunciate.contract.jaxws.EndpointInterface;
+import org.codehaus.enunciate.contract.jaxws.WebFault;
+import org.codehaus.enunciate.contract.jaxws.WebMethod;
 import org.codehaus.enunciate.contract.validation.ValidationException;
 import org.codehaus.enunciate.contract.validation.Validator;
 import org.codehaus.enunciate.main.Enunciate;
@@ -109,6 +117,15 @@ import java.util.*;
  * <p>The Jersey module also supports an arbitrary number of "init-param" child elements that can be used to specify the init parameters (e.g.
  * container request filters, etc.) of the Jersey servlet. The "init-param" element supports a "name" attribute and a "value" attribute.</p>
  *
+ * <p>For example, XML-heavy applications can have the XML root elements read and written with pooled JAXB marshallers and unmarshallers
+ * by setting the "org.codehaus.enunciate.modules.jersey.config.PooledJAXB" init parameter to "true". The number of idle marshallers (and
+ * unmarshallers) kept for each JAXB context is set with the "org.codehaus.enunciate.modules.jersey.config.JAXBPoolSize" init parameter
+ * (default: 32).</p>
+ *
+ * <p>Large applications can shorten startup by setting the "org.codehaus.enunciate.modules.jersey.config.BackgroundJAXBContext" init
+ * parameter to "true", in which case the JAXB context is created on a background thread. Requests that need the JAXB context wait
+ * for it, but other requests are served in the meantime.</p>
+ *
  * <h1><a name="artifacts">Artifacts</a></h1>
  *
  * <p>The Jersey deployment module exports no artifacts.</p>
@@ -251,10 +268,46 @@ public class JerseyDeploymentModule extends FreemarkerDeploymentModule implement
     jacksonAvailable |= classes.contains("org.codehaus.jackson.jaxrs.JacksonJsonProvider");
   }
 
+  /**
+   * The names of the JAXB types to list, sorted so the types of each package are listed together, without duplicates.
+   *
+   * @param model The model.
+   * @return The names of the JAXB types.
+   */
+  protected Set<String> getJaxbTypeNames(EnunciateFreemarkerModel model) {
+    Set<String> typeNames = new TreeSet<String>();
+    for (SchemaInfo schemaInfo : model.getNamespacesToSchemas().values()) {
+      for (TypeDefinition typeDefinition : schemaInfo.getTypeDefinitions()) {
+        typeNames.add(ClassForNameMethod.forName(typeDefinition));
+      }
+      for (RootElementDeclaration rootElement : schemaInfo.getGlobalElements()) {
+        typeNames.add(ClassForNameMethod.forName(rootElement));
+      }
+      for (Registry registry : schemaInfo.getRegistries()) {
+        typeNames.add(ClassForNameMethod.forName(registry));
+      }
+    }
+
+    for (WsdlInfo wsdlInfo : model.getNamespacesToWSDLs().values()) {
+      for (EndpointInterface ei : wsdlInfo.getEndpointInterfaces()) {
+        for (WebMethod webMethod : ei.getWebMethods()) {
+          for (WebFault webFault : webMethod.getWebFaults()) {
+            //sometimes we could leverage the fault beans for error responses.
+            if (webFault.isImplicitSchemaElement()) {
+              typeNames.add(webFault.getImplicitFaultBeanQualifiedName());
+            }
+          }
+        }
+      }
+    }
+    return typeNames;
+  }
+
   public void doFreemarkerGenerate() throws EnunciateException, IOException, TemplateException {
     if (!isUpToDate()) {
       EnunciateFreemarkerModel model = getModel();
       model.put("forName", new ClassForNameMethod());
+      model.put("jaxbTypeNames", getJaxbTypeNames(model));
       processTemplate(getRootResourceListTemplateURL(), model);
       processTemplate(getProvidersListTemplateURL(), model);
       processTemplate(getJaxbTypesTemplateURL(), model);
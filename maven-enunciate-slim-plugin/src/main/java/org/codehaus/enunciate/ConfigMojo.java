@@ -207,6 +207,13 @@ public class ConfigMojo extends AbstractMojo {
    */
   private boolean compileDebug = true;
 
+  /**
+   * Whether to compile incrementally, i.e. to only compile the sources that changed since the last compile.
+   *
+   * @parameter expression="${enunciate.compile.incremental}" default-value="false"
+   */
+  private boolean compileIncrementally = false;
+
   /**
    * The exports.
    *
@@ -254,6 +261,14 @@ public class ConfigMojo extends AbstractMojo {
    */
   private boolean javacCheck = false;
 
+  /**
+   * The number of threads on which to step the Enunciate modules. Modules that declare their dependencies are stepped
+   * concurrently if more than one.
+   *
+   * @parameter expression="${enunciate.module.threads}" default-value="1"
+   */
+  private int moduleThreads = 1;
+
   /**
    * List of source directories that are enunciate-added.
    */
@@ -311,6 +326,7 @@ public class ConfigMojo extends AbstractMojo {
 
     MavenSpecificEnunciate enunciate = loadMavenSpecificEnunciate(sourceDirs);
     enunciate.setJavacCheck(this.javacCheck);
+    enunciate.setModuleThreads(this.moduleThreads);
     EnunciateConfiguration config = createEnunciateConfiguration();
     config.setLabel(project.getArtifactId());
     if (this.configFile != null) {
@@ -414,6 +430,7 @@ public class ConfigMojo extends AbstractMojo {
     }
 
     enunciate.setCompileDebugInfo(this.compileDebug);
+    enunciate.setCompileIncrementally(this.compileIncrementally);
 
     try {
       enunciate.loadMavenConfiguration();
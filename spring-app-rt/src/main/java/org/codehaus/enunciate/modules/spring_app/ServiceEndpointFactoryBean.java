@@ -18,7 +18,11 @@ package org.codehaus.enunciate.modules.spring_app;
 
 import org.aopalliance.aop.Advice;
 import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.framework.ReflectiveMethodInvocation;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.aop.target.SingletonTargetSource;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
@@ -29,7 +33,11 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextException;
 import org.springframework.context.support.ApplicationObjectSupport;
 import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.*;
 
 /**
@@ -45,6 +53,7 @@ public class ServiceEndpointFactoryBean extends ApplicationObjectSupport impleme
   private Object serviceImplementationBean;
   private String defaultImplementationBeanName;
   private Class defaultImplementationClass;
+  private boolean precomputeAdviceChains = false;
 
   public ServiceEndpointFactoryBean(Class serviceInterface) {
     if (serviceInterface == null) {
@@ -231,12 +240,41 @@ public class ServiceEndpointFactoryBean extends ApplicationObjectSupport impleme
         }
       }
 
-      endpoint = proxyFactory.getProxy();
+      if (this.precomputeAdviceChains && iface.isInterface()) {
+        endpoint = createPrecomputedProxy(proxyFactory, iface, endpointImpl);
+      }
+      else {
+        endpoint = proxyFactory.getProxy();
+      }
     }
 
     return endpoint;
   }
 
+  /**
+   * Creates a proxy that resolves the interceptor chain for each method of the service interface up front. Methods that
+   * aren't advised are invoked directly on the endpoint implementation. The proxy configuration is frozen.
+   *
+   * @param proxyFactory The proxy configuration.
+   * @param iface        The interface.
+   * @param endpointImpl The implementation.
+   * @return The proxy.
+   */
+  protected Object createPrecomputedProxy(ProxyFactory proxyFactory, Class iface, Object endpointImpl) {
+    proxyFactory.addInterface(iface);
+    proxyFactory.setFrozen(true);
+
+    Class targetClass = endpointImpl.getClass();
+    Map<Method, List> chains = new HashMap<Method, List>();
+    for (Method method : iface.getMethods()) {
+      List chain = proxyFactory.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+      chains.put(method, chain.isEmpty() ? Collections.emptyList() : Arrays.asList(chain.toArray()));
+    }
+
+    Class[] proxiedInterfaces = AopProxyUtils.completeProxiedInterfaces(proxyFactory);
+    return Proxy.newProxyInstance(ClassUtils.getDefaultClassLoader(), proxiedInterfaces, new PrecomputedChainInvocationHandler(proxyFactory, endpointImpl, chains));
+  }
+
   /**
    * The service interface.
    * 
@@ -299,4 +337,85 @@ public class ServiceEndpointFactoryBean extends ApplicationObjectSupport impleme
   public void setDefaultImplementationClass(Class defaultImplementationClass) {
     this.defaultImplementationClass = defaultImplementationClass;
   }
+
+  /**
+   * Whether to resolve the interceptor chain for each method of the service interface when the endpoint is created, instead
+   * of matching the advisors on each invocation.
+   *
+   * @return Whether to resolve the interceptor chain for each method of the service interface when the endpoint is created.
+   */
+  public boolean isPrecomputeAdviceChains() {
+    return precomputeAdviceChains;
+  }
+
+  /**
+   * Whether to resolve the interceptor chain for each method of the service interface when the endpoint is created, instead
+   * of matching the advisors on each invocation.
+   *
+   * @param precomputeAdviceChains Whether to resolve the interceptor chain for each method of the service interface when the endpoint is created.
+   */
+  public void setPrecomputeAdviceChains(boolean precomputeAdviceChains) {
+    this.precomputeAdviceChains = precomputeAdviceChains;
+  }
+
+  /**
+   * Invocation handler for an endpoint with precomputed interceptor chains.
+   */
+  private static final class PrecomputedChainInvocationHandler implements InvocationHandler {
+
+    private final ProxyFactory config;
+    private final Object target;
+    private final Class targetClass;
+    private final Map<Method, List> chains;
+
+    PrecomputedChainInvocationHandler(ProxyFactory config, Object target, Map<Method, List> chains) {
+      this.config = config;
+      this.target = target;
+      this.targetClass = target.getClass();
+      this.chains = chains;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      List chain = this.chains.get(method);
+      if (chain == null) {
+        if (AopUtils.isEqualsMethod(method)) {
+          return proxy == args[0];
+        }
+        else if (AopUtils.isHashCodeMethod(method)) {
+          return System.identityHashCode(proxy);
+        }
+        else if (method.getDeclaringClass().isInterface() && method.getDeclaringClass().isAssignableFrom(Advised.class)) {
+          //invocations on the Advised interface go to the proxy configuration.
+          return AopUtils.invokeJoinpointUsingReflection(this.config, method, args);
+        }
+
+        //not a method of the service interface (e.g. toString); the configuration is frozen, so the chain can be resolved as usual.
+        chain = this.config.getInterceptorsAndDynamicInterceptionAdvice(method, this.targetClass);
+      }
+
+      Object retVal;
+      if (chain.isEmpty()) {
+        retVal = AopUtils.invokeJoinpointUsingReflection(this.target, method, args);
+      }
+      else {
+        retVal = new EndpointMethodInvocation(proxy, this.target, method, args, this.targetClass, chain).proceed();
+      }
+
+      if (retVal == this.target && method.getReturnType().isInstance(proxy)) {
+        //"return this" returns the proxy.
+        retVal = proxy;
+      }
+      return retVal;
+    }
+  }
+
+  /**
+   * A method invocation on an endpoint.
+   */
+  private static final class EndpointMethodInvocation extends ReflectiveMethodInvocation {
+
+    EndpointMethodInvocation(Object proxy, Object target, Method method, Object[] arguments, Class targetClass, List chain) {
+      super(proxy, target, method, arguments, targetClass, chain);
+    }
+  }
 }
\ No newline at end of file
@@ -116,6 +116,8 @@ import java.util.*;
  * <li>The "<b>contextConfigLocation</b>" attribute specifies the value of the contextConfigLocation init parameter supplied to the Spring
  *     <a href="http://static.springsource.org/spring/docs/2.0.x/api/org/springframework/web/context/ContextLoaderListener.html">ContextLoaderListener</a>.  The default is "/WEB-INF/" + <tt>applicationContextFilename</tt>.</li>
  * <li>The "springVersion" attribute specifies the spring version to use. If not set, an attempt will be made to autodetect it.</li>
+ * <li>The "precomputeAdviceChains" attribute specifies whether the interceptor chain for each method of a service endpoint should be
+ *     resolved when the endpoint is created, so that methods without any applicable advice skip the chain. Default: false.</li>
  * </ul>
  *
  * <h3><a name="config_springImport">The "springImport" element</a></h3>
@@ -208,6 +210,7 @@ public class SpringAppDeploymentModule extends FreemarkerDeploymentModule implem
   private boolean enableSecurity = false;
   private boolean factoryBeanFound = false;
   private boolean spring3 = false;
+  private boolean precomputeAdviceChains = false;
 
   /**
    * @return "spring-app"
@@ -259,6 +262,7 @@ public class SpringAppDeploymentModule extends FreemarkerDeploymentModule implem
       model.put("springImports", getSpringImportURIs());
       model.put("applicationContextFilename", getApplicationContextFilename());
       model.put("spring3", this.spring3);
+      model.put("precomputeAdviceChains", this.precomputeAdviceChains);
       Object docsDir = enunciate.getProperty("docs.webapp.dir");
       if (docsDir == null) {
         docsDir = "";
@@ -490,6 +494,24 @@ public class SpringAppDeploymentModule extends FreemarkerDeploymentModule implem
     this.enableSecurity = enableSecurity;
   }
 
+  /**
+   * Whether to resolve the interceptor chain for each method of a service endpoint when the endpoint is created.
+   *
+   * @return Whether to resolve the interceptor chain for each method of a service endpoint when the endpoint is created.
+   */
+  public boolean isPrecomputeAdviceChains() {
+    return precomputeAdviceChains;
+  }
+
+  /**
+   * Whether to resolve the interceptor chain for each method of a service endpoint when the endpoint is created.
+   *
+   * @param precomputeAdviceChains Whether to resolve the interceptor chain for each method of a service endpoint when the endpoint is created.
+   */
+  public void setPrecomputeAdviceChains(boolean precomputeAdviceChains) {
+    this.precomputeAdviceChains = precomputeAdviceChains;
+  }
+
   /**
    * The spring version to use.
    *
@@ -28,6 +28,7 @@ import org.codehaus.enunciate.contract.jaxrs.ResourceMethod;
 import org.codehaus.enunciate.contract.jaxrs.RootResource;
 import org.codehaus.enunciate.contract.jaxws.EndpointInterface;
 import org.codehaus.enunciate.contract.validation.Validator;
+import org.codehaus.enunciate.main.BuildState;
 import org.codehaus.enunciate.main.Enunciate;
 import org.codehaus.enunciate.main.FileArtifact;
 import org.codehaus.enunciate.modules.FacetAware;
@@ -375,6 +376,10 @@ public class XMLDeploymentModule extends FreemarkerDeploymentModule implements F
         model.setWadlFile(wadl);
       }
     }
+
+    if (!upToDate) {
+      enunciate.setUpToDateWithInputs(artifactDir, getInputs());
+    }
   }
 
   /**
@@ -384,7 +389,16 @@ public class XMLDeploymentModule extends FreemarkerDeploymentModule implements F
    * @return Whether the artifact directory is up-to-date.
    */
   protected boolean isUpToDate(File artifactDir) {
-    return enunciate.isUpToDateWithSources(artifactDir);
+    return enunciate.isUpToDateWithInputs(artifactDir, getInputs());
+  }
+
+  /**
+   * The fingerprint of the inputs of the generated XML files.
+   *
+   * @return The fingerprint of the inputs of the generated XML files.
+   */
+  protected BuildState.Fingerprint getInputs() {
+    return enunciate.newFingerprint(this).addTemplate(getTemplateURL());
   }
 
   /**